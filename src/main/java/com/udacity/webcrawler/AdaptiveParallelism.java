@@ -0,0 +1,17 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for whether the number of crawler threads should be adjusted during the
+ * crawl.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "adaptiveParallelism"} option
+ * from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdaptiveParallelism {
+}
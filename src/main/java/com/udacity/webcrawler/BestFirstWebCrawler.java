@@ -0,0 +1,261 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Wrapped;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WebCrawler} that always crawls the most promising known page next.
+ *
+ * <p>Links go into a {@link PriorityFrontier} ordered by the bound {@link LinkScorer}. A fixed
+ * number of workers repeatedly take the best link from the frontier, so with a tight timeout the
+ * pages the scorer considers most useful are the ones that get crawled. Workers that find the
+ * frontier empty while other pages are still being crawled wait until a link is queued.
+ *
+ * <p>Pages still being downloaded when the deadline passes are left out of the results, and a page
+ * only counts as visited once its word counts have been merged.
+ */
+@Wrapped
+final class BestFirstWebCrawler implements WebCrawler {
+
+    private final Clock clock;
+    private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
+    private final LinkScorer scorer;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final int workerCount;
+    private final ExecutorService threadPool;
+    private final WordDictionary dictionary;
+
+    @Inject
+    BestFirstWebCrawler(
+            Clock clock,
+            PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
+            LinkScorer scorer,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @TargetParallelism int threadCount,
+            @MaxDepth int maxDepth,
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            WordDictionary dictionary) {
+        this.clock = clock;
+        this.parserFactory = parserFactory;
+        this.canonicalizer = canonicalizer;
+        this.scorer = scorer;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
+        this.workerCount = Math.max(1, Math.min(threadCount, getMaxParallelism()));
+        this.threadPool = Executors.newFixedThreadPool(workerCount);
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
+        Crawl crawl = new Crawl(clock.instant().plus(timeout));
+        for (String url : canonicalizer.canonicalize(startingUrls)) {
+            crawl.enqueue(url, 0);
+        }
+        List<Callable<Void>> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(() -> {
+                crawl.work();
+                return null;
+            });
+        }
+        try {
+            long remainingMillis = Math.max(0, Duration.between(clock.instant(), crawl.deadline).toMillis());
+            threadPool.invokeAll(workers, remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            crawl.cancel();
+        }
+
+        Map<String, Integer> counts = crawl.totals.toMap();
+        if (counts.isEmpty()) {
+            return CrawlResult.builder()
+                    .setWordCounts(counts)
+                    .setUrlsVisited(crawl.mergedPages.get())
+                    .build();
+        }
+
+        return CrawlResult.builder()
+                .setWordCounts(WordCounts.sort(counts, popularWordCount))
+                .setUrlsVisited(crawl.mergedPages.get())
+                .build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The state of a single call to {@link #crawl(List)}.
+     */
+    private final class Crawl {
+        private final Instant deadline;
+        private final PriorityFrontier frontier = new PriorityFrontier(scorer);
+        private final WordTotals totals = new WordTotals(dictionary);
+        // Holds every URL that has been claimed by a worker, but only the ones that were merged
+        // count as visited.
+        private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger mergedPages = new AtomicInteger();
+        // The number of pages that are queued or being crawled. A page is counted before it is
+        // queued, and its links are counted before it is done, so the count only drops to zero
+        // once nothing is queued and nothing is in flight.
+        private final AtomicInteger pendingPages = new AtomicInteger();
+        // Idle workers wait on workChanged until a page is queued or the crawl is over.
+        private final Lock workLock = new ReentrantLock();
+        private final Condition workChanged = workLock.newCondition();
+        // Merges take the read lock; cancel() takes the write lock, so once it returns no worker
+        // touches the totals or the frontier again.
+        private final ReadWriteLock cancelLock = new ReentrantReadWriteLock();
+        private volatile boolean done;
+        private volatile boolean cancelled;
+
+        Crawl(Instant deadline) {
+            this.deadline = deadline;
+        }
+
+        void work() {
+            PriorityFrontier.Entry entry;
+            while ((entry = nextEntry()) != null) {
+                try {
+                    crawlPage(entry.getUrl(), entry.getDepth());
+                } finally {
+                    if (pendingPages.decrementAndGet() == 0) {
+                        finishWork();
+                    }
+                }
+            }
+        }
+
+        void enqueue(String url, int depth) {
+            if (depth >= maxDepth || visitedUrls.contains(url)) {
+                return;
+            }
+            if (ignoredUrls.matches(url)) {
+                return;
+            }
+            pendingPages.incrementAndGet();
+            if (!frontier.offer(url, depth)) {
+                pendingPages.decrementAndGet();
+                return;
+            }
+            workLock.lock();
+            try {
+                workChanged.signal();
+            } finally {
+                workLock.unlock();
+            }
+        }
+
+        /**
+         * Stops the workers, and keeps pages that are still being crawled out of the totals.
+         */
+        void cancel() {
+            cancelLock.writeLock().lock();
+            try {
+                cancelled = true;
+            } finally {
+                cancelLock.writeLock().unlock();
+            }
+            finishWork();
+        }
+
+        /**
+         * Returns the best page in the frontier, waiting for one to be queued if it is empty while
+         * other pages are still being crawled.
+         *
+         * @return null if the crawl is done, cancelled or past its deadline.
+         */
+        private PriorityFrontier.Entry nextEntry() {
+            workLock.lock();
+            try {
+                while (true) {
+                    long remainingNanos = Duration.between(clock.instant(), deadline).toNanos();
+                    if (done || cancelled || remainingNanos <= 0) {
+                        return null;
+                    }
+                    PriorityFrontier.Entry entry = frontier.poll();
+                    if (entry != null) {
+                        return entry;
+                    }
+                    if (pendingPages.get() == 0) {
+                        done = true;
+                        workChanged.signalAll();
+                        return null;
+                    }
+                    workChanged.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } finally {
+                workLock.unlock();
+            }
+        }
+
+        private void finishWork() {
+            workLock.lock();
+            try {
+                done = true;
+                workChanged.signalAll();
+            } finally {
+                workLock.unlock();
+            }
+        }
+
+        private void crawlPage(String url, int depth) {
+            if (!visitedUrls.add(url)) {
+                return;
+            }
+            PageParser.Result result = parserFactory.get(url).parse();
+            cancelLock.readLock().lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                totals.add(result);
+                mergedPages.incrementAndGet();
+                for (String link : result.getLinks()) {
+                    enqueue(link, depth + 1);
+                }
+            } finally {
+                cancelLock.readLock().unlock();
+            }
+        }
+    }
+}
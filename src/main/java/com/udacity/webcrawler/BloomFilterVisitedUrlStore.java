@@ -0,0 +1,172 @@
+package com.udacity.webcrawler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link VisitedUrlStore} for very large crawls, built as a scalable Bloom filter in off-heap
+ * memory.
+ *
+ * <p>The bits of each Bloom filter live in a direct {@link ByteBuffer}, so the store adds nothing
+ * to the Java heap and nothing for the garbage collector to scan, however many URLs it holds. When
+ * a filter has taken in as many URLs as it was sized for, a new filter twice as big is added, with
+ * a false positive rate half that of the previous one. The false positive rates of all the filters
+ * add up to at most the configured rate. A filter that would not fit in a single buffer is sized
+ * down to the largest one that does, and more filters are chained after it as it fills up.
+ *
+ * <p>A false positive means that a page that was never visited is taken to have been visited, and
+ * is skipped. URLs are never forgotten, so no page is crawled twice.
+ */
+final class BloomFilterVisitedUrlStore implements VisitedUrlStore {
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    // Direct buffers are indexed by int, so a single filter can be at most about 2 GB, including
+    // the 7 spare bytes that let its words be aligned.
+    private static final long MAX_FILTER_WORDS = (Integer.MAX_VALUE - 7L) / 8;
+    private static final double TIGHTENING_RATIO = 0.5;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder size = new LongAdder();
+    // Copied on write; only the last filter takes in new URLs.
+    private volatile Filter[] filters;
+
+    /**
+     * Creates a store.
+     *
+     * @param initialCapacity   the number of URLs the first filter is sized for.
+     * @param falsePositiveRate the highest acceptable chance that a URL that was not visited is
+     *                          taken to have been visited, between 0 and 1.
+     */
+    BloomFilterVisitedUrlStore(int initialCapacity, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        filters = new Filter[] {
+                new Filter(Math.max(1, initialCapacity), falsePositiveRate * (1 - TIGHTENING_RATIO))
+        };
+    }
+
+    @Override
+    public boolean addIfAbsent(String url) {
+        long fingerprint = FingerprintSet.fingerprint(url);
+        // Checking and setting the bits is not atomic, so adds of the same URL are serialized. Adds
+        // of different URLs may still set bits of the same word at the same time, which is why the
+        // bits are set with an atomic OR.
+        synchronized (locks[(int) (fingerprint >>> 32) & (LOCK_STRIPES - 1)]) {
+            Filter[] current = filters;
+            for (Filter filter : current) {
+                if (filter.mightContain(fingerprint)) {
+                    return false;
+                }
+            }
+            Filter last = current[current.length - 1];
+            if (last.count.get() >= last.capacity) {
+                last = grow(last);
+            }
+            last.put(fingerprint);
+        }
+        size.increment();
+        return true;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = FingerprintSet.fingerprint(url);
+        for (Filter filter : filters) {
+            if (filter.mightContain(fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Returns the number of bytes of off-heap memory in use.
+     */
+    long offHeapBytes() {
+        return Arrays.stream(filters).mapToLong(filter -> filter.bits.capacity()).sum();
+    }
+
+    /**
+     * Adds a new filter after the given full one, unless another thread already has, and returns
+     * the filter that takes in new URLs.
+     */
+    private synchronized Filter grow(Filter full) {
+        Filter[] current = filters;
+        Filter last = current[current.length - 1];
+        if (last != full) {
+            return last;
+        }
+        Filter next = new Filter(full.capacity * 2, full.falsePositiveRate * TIGHTENING_RATIO);
+        Filter[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = next;
+        filters = grown;
+        return next;
+    }
+
+    /**
+     * A single Bloom filter of fixed size.
+     */
+    private static final class Filter {
+        private final ByteBuffer bits;
+        private final long bitCount;
+        private final int hashCount;
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final AtomicLong count = new AtomicLong();
+
+        Filter(long capacity, double falsePositiveRate) {
+            double bitsPerUrl = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            // Take in fewer URLs than asked for if the filter would not fit in a buffer; the store
+            // chains another filter once this one is full.
+            this.capacity = Math.max(1, Math.min(capacity, (long) (MAX_FILTER_WORDS * 64 / bitsPerUrl)));
+            this.falsePositiveRate = falsePositiveRate;
+            long words = Math.min(((long) Math.ceil(this.capacity * bitsPerUrl) + 63) / 64, MAX_FILTER_WORDS);
+            this.bitCount = words * 64;
+            this.hashCount = Math.max(1, (int) Math.round(bitsPerUrl * Math.log(2)));
+            long bytes = words * 8 + 7;
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Bloom filter of " + words + " words does not fit in a buffer");
+            }
+            this.bits = ByteBuffer.allocateDirect((int) bytes).alignedSlice(8);
+        }
+
+        boolean mightContain(long fingerprint) {
+            long h1 = fingerprint;
+            long h2 = Long.rotateLeft(fingerprint, 32) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                long word = (long) LONGS.getAcquire(bits, (int) (bit >>> 6) * 8);
+                if ((word & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long fingerprint) {
+            long h1 = fingerprint;
+            long h2 = Long.rotateLeft(fingerprint, 32) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                LONGS.getAndBitwiseOrRelease(bits, (int) (bit >>> 6) * 8, 1L << bit);
+            }
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Wrapped;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WebCrawler} that crawls breadth-first, one depth level at a time.
+ *
+ * <p>All pages of a level are crawled in parallel before any page of the next level. Links found
+ * on a level are filtered against the ignored URLs, and claimed in the {@link VisitedUrlStore} when
+ * they are queued, so that each URL is queued at most once. They go into a {@link SpillingFrontier} for the
+ * next level, which keeps a bounded number of them on the heap and spills the rest to disk, so no
+ * link is dropped however wide a level is. Work is allocated per unique URL rather than per link,
+ * and the shallow pages are crawled first if the timeout is tight.
+ *
+ * <p>An exception thrown while crawling a page stops the crawl, and is rethrown by
+ * {@link #crawl(List)}. Pages still being downloaded when the deadline passes are left out of the
+ * results, and a page only counts as visited once its word counts have been merged.
+ */
+@Wrapped
+final class BreadthFirstWebCrawler implements WebCrawler {
+
+    /**
+     * The maximum number of URLs of a single depth level that are kept on the heap. The rest are
+     * spilled to disk.
+     */
+    static final int LEVEL_HEAD_SIZE = 1 << 20;
+
+    private final Clock clock;
+    private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final int workerCount;
+    private final ExecutorService threadPool;
+    private final Provider<VisitedUrlStore> visitedUrlStores;
+    private final WordDictionary dictionary;
+
+    @Inject
+    BreadthFirstWebCrawler(
+            Clock clock,
+            PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @TargetParallelism int threadCount,
+            @MaxDepth int maxDepth,
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            Provider<VisitedUrlStore> visitedUrlStores,
+            WordDictionary dictionary) {
+        this.clock = clock;
+        this.parserFactory = parserFactory;
+        this.canonicalizer = canonicalizer;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
+        this.workerCount = Math.max(1, Math.min(threadCount, getMaxParallelism()));
+        this.threadPool = Executors.newFixedThreadPool(workerCount);
+        this.visitedUrlStores = visitedUrlStores;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
+        Crawl crawl = new Crawl(clock.instant().plus(timeout));
+        SpillingFrontier level = new SpillingFrontier(LEVEL_HEAD_SIZE);
+        try {
+            for (String url : canonicalizer.canonicalize(startingUrls)) {
+                crawl.enqueue(new CrawlCheckpoint.PendingPage(url, url, maxDepth), level);
+            }
+            for (int depth = maxDepth; depth > 0 && level.size() > 0; depth--) {
+                // The links found on the last level are never crawled, so there is no need to keep
+                // them.
+                SpillingFrontier nextLevel = (depth > 1) ? new SpillingFrontier(LEVEL_HEAD_SIZE) : null;
+                boolean finished;
+                try {
+                    finished = crawlLevel(crawl, level, nextLevel);
+                } finally {
+                    level.close();
+                    level = nextLevel;
+                }
+                if (!finished) {
+                    break;
+                }
+            }
+        } finally {
+            crawl.cancel();
+            if (level != null) {
+                level.close();
+            }
+        }
+
+        Map<String, Integer> counts = crawl.totals.toMap();
+        if (counts.isEmpty()) {
+            return CrawlResult.builder()
+                    .setWordCounts(counts)
+                    .setUrlsVisited(crawl.visitedCount.get())
+                    .build();
+        }
+
+        return CrawlResult.builder()
+                .setWordCounts(WordCounts.sort(counts, popularWordCount))
+                .setUrlsVisited(crawl.visitedCount.get())
+                .build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Crawls every URL in the given level, and queues the links found into the next level. Unless
+     * every page of the level was crawled in time, the crawl is cancelled before this returns, so
+     * that workers still running leave the frontiers and the totals alone.
+     *
+     * @param nextLevel the frontier for the next level, or null if links should not be followed.
+     * @return false if the deadline was reached before the level was done.
+     * @throws RuntimeException if crawling a page of the level threw it.
+     */
+    private boolean crawlLevel(Crawl crawl, SpillingFrontier level, SpillingFrontier nextLevel) {
+        int workers = (int) Math.min(workerCount, level.size());
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                CrawlCheckpoint.PendingPage page;
+                while ((page = crawl.poll(level)) != null) {
+                    crawl.crawlPage(page, nextLevel);
+                }
+                return null;
+            });
+        }
+        boolean finished = false;
+        try {
+            long remainingMillis = Math.max(0, Duration.between(clock.instant(), crawl.deadline).toMillis());
+            List<Future<Void>> futures = threadPool.invokeAll(tasks, remainingMillis, TimeUnit.MILLISECONDS);
+            boolean cancelled = false;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (CancellationException e) {
+                    // Still running at the deadline.
+                    cancelled = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            finished = !cancelled && !clock.instant().isAfter(crawl.deadline);
+            return finished;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            if (!finished) {
+                crawl.cancel();
+            }
+        }
+    }
+
+    /**
+     * The state of a single call to {@link #crawl(List)}.
+     */
+    private final class Crawl {
+        private final Instant deadline;
+        private final WordTotals totals = new WordTotals(dictionary);
+        // Holds every URL that has been queued, but only the ones that were merged count as
+        // visited.
+        private final VisitedUrlStore visitedUrls = visitedUrlStores.get();
+        private final AtomicInteger visitedCount = new AtomicInteger();
+        // Polls, merges and enqueues take the read lock; cancel() takes the write lock, so once it
+        // returns no worker touches the frontiers or the totals again.
+        private final ReadWriteLock cancelLock = new ReentrantReadWriteLock();
+        private volatile boolean cancelled;
+
+        Crawl(Instant deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Returns the next page of the given level, or null if there is none, the deadline has
+         * passed, or the crawl has been cancelled.
+         */
+        CrawlCheckpoint.PendingPage poll(SpillingFrontier level) {
+            cancelLock.readLock().lock();
+            try {
+                if (cancelled || clock.instant().isAfter(deadline)) {
+                    return null;
+                }
+                return level.poll();
+            } finally {
+                cancelLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Crawls the given page, merges its word counts and queues its links into the next level,
+         * unless the crawl is cancelled while the page is being downloaded.
+         */
+        void crawlPage(CrawlCheckpoint.PendingPage page, SpillingFrontier nextLevel) {
+            PageParser.Result result = parserFactory.get(page.getUrl()).parse();
+            cancelLock.readLock().lock();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                totals.add(result);
+                visitedCount.incrementAndGet();
+                if (nextLevel != null) {
+                    for (String link : result.getLinks()) {
+                        enqueue(new CrawlCheckpoint.PendingPage(link, page.getStartingUrl(), page.getDepth() - 1), nextLevel);
+                    }
+                }
+            } finally {
+                cancelLock.readLock().unlock();
+            }
+        }
+
+        void enqueue(CrawlCheckpoint.PendingPage page, SpillingFrontier frontier) {
+            if (ignoredUrls.matches(page.getUrl())) {
+                return;
+            }
+            if (!visitedUrls.addIfAbsent(page.getUrl())) {
+                return;
+            }
+            frontier.offer(page);
+        }
+
+        void cancel() {
+            cancelLock.writeLock().lock();
+            try {
+                cancelled = true;
+            } finally {
+                cancelLock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the path of the file where the progress of the crawl is saved.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "checkpointPath"} option
+ * from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CheckpointPath {
+}
@@ -0,0 +1,114 @@
+package com.udacity.webcrawler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chooses how many pages should be crawled at the same time, in the spirit of TCP congestion
+ * control.
+ *
+ * <p>The crawler reports how long each page took, and calls {@link #adjust(int, double)} at a fixed
+ * interval with the number of tasks waiting for a thread and the current CPU load. The limit grows
+ * by one per interval while tasks are waiting (additive increase), and shrinks by a quarter when
+ * the CPU is saturated or pages take much longer than they did at the best point seen so far
+ * (multiplicative decrease). A growing page latency means the hosts being crawled, or the network,
+ * are not keeping up, so more threads would only add to the queue on the other side.
+ */
+final class ConcurrencyController {
+
+    private static final double CPU_SATURATED = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double DECREASE_FACTOR = 0.75;
+    // Weight of the latest interval in the smoothed latency.
+    private static final double LATENCY_SMOOTHING = 0.3;
+    // How fast the baseline latency follows the smoothed latency upwards. Without this, a crawl
+    // that moves on to slower hosts would keep cutting the limit down to the minimum.
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder latencySamples = new LongAdder();
+    private volatile int limit;
+    // Only used by adjust().
+    private double smoothedLatency = Double.NaN;
+    private double baselineLatency = Double.NaN;
+
+    /**
+     * Creates a controller.
+     *
+     * @param minLimit     the smallest limit it may choose, at least 1.
+     * @param initialLimit the limit to start from.
+     * @param maxLimit     the largest limit it may choose.
+     */
+    ConcurrencyController(int minLimit, int initialLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException(
+                    "invalid limits " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Returns the current limit.
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records how long a single page took to download and parse. Safe to call from any thread.
+     */
+    void recordLatency(long nanos) {
+        latencyNanos.add(nanos);
+        latencySamples.increment();
+    }
+
+    /**
+     * Picks a new limit based on the latencies recorded since the previous call. Must not be called
+     * concurrently.
+     *
+     * @param queueDepth the number of tasks waiting for a thread.
+     * @param cpuLoad    the CPU load between 0 and 1, or a negative value if it is not known.
+     * @return the new limit.
+     */
+    int adjust(int queueDepth, double cpuLoad) {
+        long samples = latencySamples.sumThenReset();
+        long nanos = latencyNanos.sumThenReset();
+        boolean slower = false;
+        if (samples > 0) {
+            double latency = (double) nanos / samples;
+            smoothedLatency = Double.isNaN(smoothedLatency)
+                    ? latency
+                    : smoothedLatency + LATENCY_SMOOTHING * (latency - smoothedLatency);
+            baselineLatency = Double.isNaN(baselineLatency) || smoothedLatency < baselineLatency
+                    ? smoothedLatency
+                    : baselineLatency + BASELINE_DRIFT * (smoothedLatency - baselineLatency);
+            slower = smoothedLatency > baselineLatency * LATENCY_TOLERANCE;
+        }
+
+        int current = limit;
+        if (cpuLoad >= CPU_SATURATED || slower) {
+            current = Math.max(minLimit, (int) (current * DECREASE_FACTOR));
+        } else if (queueDepth > 0) {
+            current = Math.min(maxLimit, current + 1);
+        }
+        limit = current;
+        return current;
+    }
+
+    /**
+     * Returns the recent CPU load of the whole system between 0 and 1, or a negative value if it is
+     * not available on this JVM.
+     */
+    static double systemCpuLoad() {
+        OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getCpuLoad();
+        }
+        return -1;
+    }
+}
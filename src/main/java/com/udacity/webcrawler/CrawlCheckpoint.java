@@ -0,0 +1,380 @@
+package com.udacity.webcrawler;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An on-disk journal of the pages a crawl has finished, which a later crawl can resume from.
+ *
+ * <p>Rather than writing snapshots of the crawl state, which would have to stop the workers to be
+ * consistent, every finished page is appended as one record holding its URL, its word counts and
+ * its links. Workers only add the record to an in-memory queue; a background thread writes out the
+ * queued records at a fixed interval as one compressed block. From the records, {@link #load(Path)}
+ * rebuilds the visited pages, the partial word counts and the pages that were still to be crawled.
+ *
+ * <p>A block is only written once it is complete, and a trailing block that was cut short by a
+ * crash is ignored when loading, so at most one interval of work is lost. When a crawl resumes, the
+ * file is first truncated to the end of its last complete block, so that new blocks follow it
+ * directly and the file stays readable after any number of crashes.
+ */
+final class CrawlCheckpoint {
+
+    private static final int MAGIC = 0x5743434b;
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 8;
+
+    private final Queue<Page> unwritten = new ConcurrentLinkedQueue<>();
+    private final FileChannel channel;
+    private final ScheduledExecutorService writer;
+    private volatile boolean failed;
+    // Why writing stopped, reported by close().
+    private IOException failure;
+
+    /**
+     * Opens the checkpoint file at the given path and starts writing to it in the background.
+     *
+     * @param path     the checkpoint file.
+     * @param interval how often the finished pages are written out.
+     * @param resumed  the state {@link #load(Path) loaded} from the file, to add to the records it
+     *                 holds, or null to start over.
+     */
+    CrawlCheckpoint(Path path, Duration interval, State resumed) throws IOException {
+        this.channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                (resumed != null) ? StandardOpenOption.READ : StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            if (resumed != null) {
+                // Drops a block that was cut short by a crash, which would hide everything
+                // appended after it.
+                channel.truncate(resumed.length);
+                channel.position(resumed.length);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).putInt(VERSION).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        writer.scheduleWithFixedDelay(this::writeInBackground, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records that the given page has been crawled, and its word counts have been merged into the
+     * crawl result. Does not block on I/O.
+     *
+     * @param url         the URL of the page.
+     * @param startingUrl the starting URL whose crawl led to this page.
+     * @param depth       the remaining depth at this page, as passed to the task that crawled it.
+     * @param wordCounts  the word counts of the page.
+     * @param links       the links on the page.
+     */
+    void pageCrawled(
+            String url, String startingUrl, int depth, Map<String, Integer> wordCounts, List<String> links) {
+        if (!failed) {
+            unwritten.add(new Page(url, startingUrl, depth, wordCounts, links));
+        }
+    }
+
+    /**
+     * Writes out the remaining records and closes the file.
+     *
+     * @throws IOException if a block could not be written, now or in the background. The records
+     *                     up to that block are still in the file.
+     */
+    void close() throws IOException {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            write();
+        } finally {
+            channel.close();
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void writeInBackground() {
+        try {
+            write();
+        } catch (IOException e) {
+            // Recorded in failure, and thrown by close().
+        }
+    }
+
+    /**
+     * Writes all queued records as one block: its compressed length, followed by the compressed
+     * records.
+     *
+     * <p>If the block cannot be written, checkpointing stops: the block may have been written in
+     * part, and anything appended after it could not be read back. What the file holds so far can
+     * still be resumed from.
+     */
+    private synchronized void write() throws IOException {
+        if (failed || unwritten.isEmpty()) {
+            return;
+        }
+        try {
+            List<Page> pages = new ArrayList<>();
+            for (Page page = unwritten.poll(); page != null; page = unwritten.poll()) {
+                pages.add(page);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(new byte[4]);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+                out.writeInt(pages.size());
+                for (Page page : pages) {
+                    page.writeTo(out);
+                }
+            } finally {
+                deflater.end();
+            }
+            ByteBuffer block = ByteBuffer.wrap(bytes.toByteArray());
+            block.putInt(0, block.capacity() - 4);
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            unwritten.clear();
+            failure = (e instanceof IOException io) ? io : new IOException(e);
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads the crawl state recorded in the checkpoint file at the given path.
+     *
+     * @throws IOException if the file cannot be read, or is not a checkpoint file.
+     */
+    static State load(Path path) throws IOException {
+        State state = new State();
+        long size = Files.size(path);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException(path + " is not a crawl checkpoint");
+                }
+            } catch (EOFException e) {
+                throw new IOException(path + " is not a crawl checkpoint", e);
+            }
+            state.length = HEADER_LENGTH;
+            // Stops at the end of the file, or at a block that was cut short by a crash.
+            while (size - state.length >= 4) {
+                int length = in.readInt();
+                if (length < 0 || length > size - state.length - 4) {
+                    break;
+                }
+                byte[] block = new byte[length];
+                in.readFully(block);
+                readBlock(block, state);
+                state.length += 4 + length;
+            }
+        }
+        state.pending.removeIf(page -> state.visitedUrls.contains(page.url));
+        return state;
+    }
+
+    private static void readBlock(byte[] block, State state) throws IOException {
+        Inflater inflater = new Inflater();
+        try (InputStream inflated = new InflaterInputStream(new ByteArrayInputStream(block), inflater);
+             DataInputStream in = new DataInputStream(inflated)) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Page page = Page.readFrom(in);
+                state.visitedUrls.add(page.url);
+                page.wordCounts.forEach((word, n) -> state.counts.merge(word, n, Integer::sum));
+                for (String link : page.links) {
+                    state.pending.add(new PendingPage(link, page.startingUrl, page.depth - 1));
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * The crawl state read back from a checkpoint file.
+     */
+    static final class State {
+        private final Set<String> visitedUrls = new HashSet<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final List<PendingPage> pending = new ArrayList<>();
+        // The offset just past the last complete block.
+        private long length;
+
+        /**
+         * Returns the URLs of the pages that were crawled.
+         */
+        Set<String> getVisitedUrls() {
+            return visitedUrls;
+        }
+
+        /**
+         * Returns the word counts of all the pages that were crawled.
+         */
+        Map<String, Integer> getCounts() {
+            return counts;
+        }
+
+        /**
+         * Returns the pages that were linked to from crawled pages, but were not crawled yet. The
+         * same URL may appear more than once.
+         */
+        List<PendingPage> getPending() {
+            return pending;
+        }
+
+        /**
+         * Returns the length of the file up to the end of its last complete block.
+         */
+        long getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * A page that still has to be crawled.
+     */
+    static final class PendingPage {
+        private final String url;
+        private final String startingUrl;
+        private final int depth;
+
+        PendingPage(String url, String startingUrl, int depth) {
+            this.url = url;
+            this.startingUrl = startingUrl;
+            this.depth = depth;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        String getStartingUrl() {
+            return startingUrl;
+        }
+
+        /**
+         * Returns the remaining depth at this page.
+         */
+        int getDepth() {
+            return depth;
+        }
+    }
+
+    private static final class Page {
+        private final String url;
+        private final String startingUrl;
+        private final int depth;
+        private final Map<String, Integer> wordCounts;
+        private final List<String> links;
+
+        Page(String url, String startingUrl, int depth, Map<String, Integer> wordCounts, List<String> links) {
+            this.url = url;
+            this.startingUrl = startingUrl;
+            this.depth = depth;
+            this.wordCounts = wordCounts;
+            this.links = links;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            writeString(out, url);
+            writeString(out, startingUrl);
+            out.writeInt(depth);
+            out.writeInt(wordCounts.size());
+            for (Map.Entry<String, Integer> entry : wordCounts.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(links.size());
+            for (String link : links) {
+                writeString(out, link);
+            }
+        }
+
+        static Page readFrom(DataInputStream in) throws IOException {
+            String url = readString(in);
+            String startingUrl = readString(in);
+            int depth = in.readInt();
+            int wordCount = in.readInt();
+            Map<String, Integer> wordCounts = new HashMap<>(wordCount * 2);
+            for (int i = 0; i < wordCount; i++) {
+                wordCounts.put(readString(in), in.readInt());
+            }
+            int linkCount = in.readInt();
+            List<String> links = new ArrayList<>(linkCount);
+            for (int i = 0; i < linkCount; i++) {
+                links.add(readString(in));
+            }
+            return new Page(url, startingUrl, depth, wordCounts, links);
+        }
+
+        /**
+         * Writes the UTF-8 length of the string and then its bytes. Unlike
+         * {@link DataOutputStream#writeUTF(String)}, this has no 64 KB limit.
+         */
+        private static void writeString(DataOutputStream out, String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Bad string length in checkpoint: " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Inject;
+
+/**
+ * The default {@link LinkScorer}. It prefers shallow pages, then pages that many other pages link
+ * to, then hosts that have not been crawled much yet, and finally short URLs.
+ */
+final class DefaultLinkScorer implements LinkScorer {
+
+    private static final double DEPTH_WEIGHT = 8.0;
+    private static final double INLINK_WEIGHT = 1.0;
+    private static final double HOST_NOVELTY_WEIGHT = 2.0;
+    private static final double URL_LENGTH_WEIGHT = 1.0 / 256;
+
+    @Inject
+    DefaultLinkScorer() {
+    }
+
+    @Override
+    public double score(String url, int depth, int inlinks, int pagesOnHost) {
+        return DEPTH_WEIGHT / (1 + depth)
+                + INLINK_WEIGHT * Math.log1p(inlinks)
+                + HOST_NOVELTY_WEIGHT / (1 + pagesOnHost)
+                - URL_LENGTH_WEIGHT * url.length();
+    }
+}
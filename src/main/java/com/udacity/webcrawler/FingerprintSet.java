@@ -0,0 +1,244 @@
+package com.udacity.webcrawler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free set of URLs that stores a 64-bit fingerprint of each URL instead of the URL itself.
+ *
+ * <p>Fingerprints are kept in open-addressing hash tables with linear probing, backed by
+ * {@link AtomicLongArray}s, so a URL costs between 16 and 32 bytes no matter how long it is. A slot
+ * only ever changes from empty to a fingerprint, with a compare-and-set, so
+ * {@link #addIfAbsent(String)} is atomic: of several threads adding the same URL, exactly one
+ * gets {@code true}.
+ *
+ * <p>When a table gets half full, a bigger one is linked to it and the thread that linked it copies
+ * the fingerprints over. While it does, it marks every empty slot of the old table as moved, so that
+ * threads that run into a moved slot carry on in the new table, and no fingerprint added to the old
+ * table is missed by the copy. Nobody waits for the copy to finish. The set is split into segments
+ * by fingerprint, each with its own tables, so that threads rarely compete for the same table.
+ *
+ * <p>Two different URLs have the same fingerprint with a probability of about 2<sup>-64</sup>, so a
+ * crawl of 100 million URLs has a chance of roughly 1 in 3,700 of skipping a page it should have
+ * crawled.
+ *
+ * <p>This is the default {@link VisitedUrlStore}.
+ */
+final class FingerprintSet implements VisitedUrlStore {
+
+    private static final long EMPTY = 0;
+    private static final long MOVED = 1;
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates a set sized for the given number of URLs. It grows beyond that as needed.
+     */
+    FingerprintSet(int expectedSize) {
+        int segmentCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1);
+        segments = new Segment[segmentCount];
+        int tableSize = tableSizeFor(Math.max(1, expectedSize / segmentCount) * 2);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(tableSize);
+        }
+        segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    /**
+     * Adds the given URL if it is not already in the set.
+     *
+     * @return true if the URL was added, or false if it was already in the set.
+     */
+    @Override
+    public boolean addIfAbsent(String url) {
+        long fingerprint = fingerprint(url);
+        if (segmentFor(fingerprint).add(fingerprint)) {
+            size.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given URL is in the set.
+     */
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).contains(fingerprint);
+    }
+
+    /**
+     * Returns the number of URLs in the set.
+     */
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        // The table index comes from the low bits, so pick the segment with the high bits.
+        return segments.length == 1 ? segments[0] : segments[(int) (fingerprint >>> segmentShift)];
+    }
+
+    /**
+     * Returns the 64-bit fingerprint of the given URL, which is never {@code EMPTY} or
+     * {@code MOVED}.
+     */
+    static long fingerprint(CharSequence url) {
+        // FNV-1a over the UTF-16 chars, followed by the MurmurHash3 finalizer so that every bit of
+        // the result depends on every char.
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (hash == EMPTY || hash == MOVED) ? hash + 2 : hash;
+    }
+
+    private static int tableSizeFor(int size) {
+        return Math.max(MIN_TABLE_SIZE, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+    }
+
+    /**
+     * A part of the set that holds the fingerprints with the same high bits.
+     */
+    private static final class Segment {
+        private final AtomicReference<Table> current;
+
+        Segment(int tableSize) {
+            current = new AtomicReference<>(new Table(tableSize));
+        }
+
+        boolean add(long fingerprint) {
+            return add(current.get(), fingerprint);
+        }
+
+        private boolean add(Table table, long fingerprint) {
+            while (true) {
+                int result = table.add(fingerprint);
+                if (result == Table.ADDED) {
+                    if (table.count.incrementAndGet() >= table.threshold) {
+                        grow(table);
+                    }
+                    return true;
+                }
+                if (result == Table.PRESENT) {
+                    return false;
+                }
+                table = table.next.get();
+            }
+        }
+
+        boolean contains(long fingerprint) {
+            Table table = current.get();
+            while (true) {
+                int result = table.find(fingerprint);
+                if (result != Table.FORWARDED) {
+                    return result == Table.PRESENT;
+                }
+                table = table.next.get();
+            }
+        }
+
+        /**
+         * Links a table of twice the size to the given one and copies the fingerprints over, unless
+         * another thread is already doing so.
+         */
+        private void grow(Table table) {
+            if (table.next.get() != null) {
+                return;
+            }
+            Table bigger = new Table(table.slots.length() * 2);
+            // Set before any slot is marked as moved, so threads that run into a moved slot always
+            // find the bigger table.
+            if (!table.next.compareAndSet(null, bigger)) {
+                return;
+            }
+            for (int i = 0; i < table.slots.length(); i++) {
+                long value = table.slots.get(i);
+                while (value == EMPTY) {
+                    if (table.slots.compareAndSet(i, EMPTY, MOVED)) {
+                        break;
+                    }
+                    value = table.slots.get(i);
+                }
+                if (value != EMPTY && value != MOVED) {
+                    add(bigger, value);
+                }
+            }
+            current.compareAndSet(table, bigger);
+        }
+    }
+
+    /**
+     * A single open-addressing hash table.
+     */
+    private static final class Table {
+        static final int ADDED = 0;
+        static final int PRESENT = 1;
+        static final int ABSENT = 2;
+        // The fingerprint has to be looked for, or added, in the next table.
+        static final int FORWARDED = 3;
+
+        final AtomicLongArray slots;
+        final AtomicInteger count = new AtomicInteger();
+        final int threshold;
+        final AtomicReference<Table> next = new AtomicReference<>();
+
+        Table(int size) {
+            slots = new AtomicLongArray(size);
+            threshold = size / 2;
+        }
+
+        int add(long fingerprint) {
+            int mask = slots.length() - 1;
+            int index = (int) fingerprint & mask;
+            while (true) {
+                long value = slots.get(index);
+                if (value == fingerprint) {
+                    return PRESENT;
+                }
+                if (value == MOVED) {
+                    return FORWARDED;
+                }
+                if (value == EMPTY) {
+                    if (slots.compareAndSet(index, EMPTY, fingerprint)) {
+                        return ADDED;
+                    }
+                    // Another thread took the slot first; look at what it put there.
+                    continue;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        int find(long fingerprint) {
+            int mask = slots.length() - 1;
+            int index = (int) fingerprint & mask;
+            while (true) {
+                long value = slots.get(index);
+                if (value == fingerprint) {
+                    return PRESENT;
+                }
+                if (value == MOVED) {
+                    return FORWARDED;
+                }
+                if (value == EMPTY) {
+                    return ABSENT;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Wrapped;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WebCrawler} that runs on a work-stealing {@link ForkJoinPool}.
+ *
+ * <p>Every page is a {@link CountedCompleter} that forks one subtask per outgoing link and then
+ * returns. A page completes once all of its subtasks have completed, so no worker ever blocks in a
+ * {@code join()} while it waits on a subtree; idle workers steal the forked subtasks instead.
+ *
+ * <p>The crawl waits for the task tree only until the deadline. Tasks that are still in the pool
+ * then find the crawl cancelled, and pages that are still being parsed are left out of the result.
+ * A page that throws is reported as failed without ending the crawl.
+ */
+@Wrapped
+final class ForkJoinWebCrawler implements WebCrawler {
+
+    private final Clock clock;
+    private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final ForkJoinPool pool;
+    private final WordDictionary dictionary;
+
+    @Inject
+    ForkJoinWebCrawler(
+            Clock clock,
+            PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @TargetParallelism int threadCount,
+            @MaxDepth int maxDepth,
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            WordDictionary dictionary) {
+        this.clock = clock;
+        this.parserFactory = parserFactory;
+        this.canonicalizer = canonicalizer;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
+        this.pool = new ForkJoinPool(Math.max(1, Math.min(threadCount, getMaxParallelism())));
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
+        Crawl crawl = new Crawl(clock.instant().plus(timeout));
+        ForkJoinTask<Void> root = pool.submit(new CrawlRoot(canonicalizer.canonicalize(startingUrls), crawl));
+        try {
+            long remaining = Duration.between(clock.instant(), crawl.deadline).toMillis();
+            root.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Pages still in flight are abandoned; the results so far are returned.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Every page catches its own failures.
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            crawl.cancel();
+            root.cancel(false);
+        }
+
+        CrawlResult.Builder resultBuilder = CrawlResult.builder()
+                .setUrlsVisited(crawl.mergedPages.get())
+                .setUrlsFailure(crawl.failedUrls);
+        Map<String, Integer> counts = crawl.totals.toMap();
+        if (counts.isEmpty()) {
+            resultBuilder.setWordCounts(counts);
+        } else {
+            resultBuilder.setWordCounts(WordCounts.sort(counts, popularWordCount));
+        }
+        return resultBuilder.build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The state of a single call to {@link #crawl(List)}.
+     */
+    private final class Crawl {
+        private final Instant deadline;
+        private final WordTotals totals = new WordTotals(dictionary);
+        private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger mergedPages = new AtomicInteger();
+        private final Set<String> failedUrls = ConcurrentHashMap.newKeySet();
+        // Merges and the forking of their links take the read lock; cancel() takes the write lock,
+        // so no merge straddles it.
+        private final ReadWriteLock cancelLock = new ReentrantReadWriteLock();
+        // Set once the crawl stops waiting, so that tasks still in the pool leave the totals alone.
+        private volatile boolean cancelled;
+
+        Crawl(Instant deadline) {
+            this.deadline = deadline;
+        }
+
+        void cancel() {
+            cancelLock.writeLock().lock();
+            try {
+                cancelled = true;
+            } finally {
+                cancelLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The root of the task tree. It forks one {@link CrawlTask} per starting URL and completes once
+     * all of them have completed.
+     */
+    private final class CrawlRoot extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> startingUrls;
+        private final Crawl crawl;
+
+        CrawlRoot(List<String> startingUrls, Crawl crawl) {
+            this.startingUrls = startingUrls;
+            this.crawl = crawl;
+        }
+
+        @Override
+        public void compute() {
+            for (String url : startingUrls) {
+                addToPendingCount(1);
+                new CrawlTask(this, url, maxDepth, crawl).fork();
+            }
+            tryComplete();
+        }
+    }
+
+    /**
+     * Downloads and processes a single page, then forks a subtask for every link on the page that
+     * has not been visited yet.
+     */
+    private final class CrawlTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final String url;
+        private final int maxDepth;
+        private final Crawl crawl;
+
+        CrawlTask(CountedCompleter<?> parent, String url, int maxDepth, Crawl crawl) {
+            super(parent);
+            this.url = url;
+            this.maxDepth = maxDepth;
+            this.crawl = crawl;
+        }
+
+        @Override
+        public void compute() {
+            try {
+                crawlPage();
+            } catch (RuntimeException e) {
+                // Completing exceptionally would complete the root and end the whole crawl.
+                crawl.failedUrls.add(url);
+            } finally {
+                tryComplete();
+            }
+        }
+
+        private void crawlPage() {
+            if (!shouldVisit()) {
+                return;
+            }
+            PageParser.Result result = parserFactory.get(url).parse();
+            crawl.cancelLock.readLock().lock();
+            try {
+                if (crawl.cancelled) {
+                    return;
+                }
+                crawl.totals.add(result);
+                crawl.mergedPages.incrementAndGet();
+                for (String link : result.getLinks()) {
+                    // Cheap pre-check so that already visited links do not cost a task allocation.
+                    // The authoritative check is the atomic add() in shouldVisit().
+                    if (!crawl.visitedUrls.contains(link)) {
+                        addToPendingCount(1);
+                        new CrawlTask(this, link, maxDepth - 1, crawl).fork();
+                    }
+                }
+            } finally {
+                crawl.cancelLock.readLock().unlock();
+            }
+        }
+
+        private boolean shouldVisit() {
+            if (maxDepth == 0 || crawl.cancelled || clock.instant().isAfter(crawl.deadline)) {
+                return false;
+            }
+            if (ignoredUrls.matches(url)) {
+                return false;
+            }
+            // Claims the page, so that no other task downloads it. It is only counted as visited
+            // once it has been merged.
+            return crawl.visitedUrls.add(url);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.udacity.webcrawler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An exact {@link VisitedUrlStore} that stores the URLs themselves, sharing the prefixes that URLs
+ * of the same site have in common.
+ *
+ * <p>URLs are kept sorted as UTF-8 bytes and front-coded in blocks of {@code BLOCK_SIZE}: the
+ * first URL of a block is stored in full, and every other URL as the length of the prefix it shares
+ * with the URL before it, followed by the rest of its bytes. A lookup binary-searches the first URLs
+ * of the blocks and then decodes a single block. New URLs go to a small hash set first, which is
+ * merged into the blocks once it holds more than an eighth as many URLs as the blocks do, so each
+ * URL is rewritten a bounded number of times on average.
+ *
+ * <p>The set is split into stripes by host, each with its own lock, so that URLs of the same host
+ * share prefixes and URLs of different hosts rarely compete for a lock.
+ *
+ * <p>Unlike {@link FingerprintSet} and {@link BloomFilterVisitedUrlStore}, a lookup never gives a
+ * wrong answer.
+ */
+final class FrontCodedUrlSet implements VisitedUrlStore {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int MIN_PENDING = 1024;
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder size = new LongAdder();
+
+    FrontCodedUrlSet() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public boolean addIfAbsent(String url) {
+        if (stripeFor(url).add(url)) {
+            size.increment();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return stripeFor(url).contains(url);
+    }
+
+    @Override
+    public int size() {
+        return size.intValue();
+    }
+
+    /**
+     * Returns the number of bytes of front-coded URL data, not counting URLs that have not been
+     * merged into the blocks yet.
+     */
+    long encodedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.data.length + stripe.blockOffsets.length * 4L;
+            }
+        }
+        return bytes;
+    }
+
+    private Stripe stripeFor(String url) {
+        // Hash the authority without copying it out of the URL, like HostScheduler.hostOf().
+        int start = url.indexOf("://");
+        start = (start < 0) ? url.length() : start + 3;
+        int hash = 0;
+        for (int i = start; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            hash = 31 * hash + Character.toLowerCase(c);
+        }
+        hash ^= hash >>> 16;
+        return stripes[(hash * 0x9e3779b9) >>> (32 - Integer.numberOfTrailingZeros(STRIPES))];
+    }
+
+    /**
+     * The URLs of the hosts that hash to the same stripe.
+     */
+    private static final class Stripe {
+        private final Set<String> pending = new HashSet<>();
+        private byte[] data = new byte[0];
+        private int[] blockOffsets = new int[0];
+        private int encodedCount;
+        // Holds the URL being decoded during a lookup.
+        private byte[] scratch = new byte[256];
+
+        synchronized boolean add(String url) {
+            if (pending.contains(url) || encodedContains(url.getBytes(StandardCharsets.UTF_8))) {
+                return false;
+            }
+            pending.add(url);
+            if (pending.size() > Math.max(MIN_PENDING, encodedCount / 8)) {
+                merge();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(String url) {
+            return pending.contains(url) || encodedContains(url.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private boolean encodedContains(byte[] key) {
+            // Find the last block whose first URL is not greater than the key.
+            int low = 0;
+            int high = blockOffsets.length - 1;
+            int block = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int offset = blockOffsets[mid];
+                int length = readVarInt(offset);
+                offset += varIntSize(length);
+                int cmp = Arrays.compareUnsigned(data, offset, offset + length, key, 0, key.length);
+                if (cmp == 0) {
+                    return true;
+                }
+                if (cmp < 0) {
+                    block = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (block < 0) {
+                return false;
+            }
+
+            int offset = blockOffsets[block];
+            int length = readVarInt(offset);
+            offset += varIntSize(length);
+            ensureScratch(length);
+            System.arraycopy(data, offset, scratch, 0, length);
+            offset += length;
+            int entries = Math.min(BLOCK_SIZE, encodedCount - block * BLOCK_SIZE);
+            for (int i = 1; i < entries; i++) {
+                int shared = readVarInt(offset);
+                offset += varIntSize(shared);
+                int suffix = readVarInt(offset);
+                offset += varIntSize(suffix);
+                length = shared + suffix;
+                ensureScratch(length);
+                System.arraycopy(data, offset, scratch, shared, suffix);
+                offset += suffix;
+                int cmp = Arrays.compareUnsigned(scratch, 0, length, key, 0, key.length);
+                if (cmp == 0) {
+                    return true;
+                }
+                if (cmp > 0) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Rewrites the blocks with the pending URLs merged in.
+         */
+        private void merge() {
+            byte[][] added = new byte[pending.size()][];
+            int n = 0;
+            for (String url : pending) {
+                added[n++] = url.getBytes(StandardCharsets.UTF_8);
+            }
+            Arrays.sort(added, Arrays::compareUnsigned);
+
+            Encoder encoder = new Encoder(data.length + added.length * 32, encodedCount + added.length);
+            Decoder existing = new Decoder();
+            byte[] next = existing.next();
+            int a = 0;
+            while (next != null || a < added.length) {
+                if (a == added.length || (next != null && Arrays.compareUnsigned(next, added[a]) < 0)) {
+                    encoder.add(next);
+                    next = existing.next();
+                } else {
+                    encoder.add(added[a++]);
+                }
+            }
+            data = Arrays.copyOf(encoder.data, encoder.length);
+            blockOffsets = Arrays.copyOf(encoder.blockOffsets, encoder.blocks);
+            encodedCount = encoder.count;
+            pending.clear();
+        }
+
+        private void ensureScratch(int length) {
+            if (scratch.length < length) {
+                scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+            }
+        }
+
+        private int readVarInt(int offset) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[offset++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Reads the URLs in the blocks back in order.
+         */
+        private final class Decoder {
+            private int offset;
+            private int index;
+            private byte[] previous;
+
+            byte[] next() {
+                if (index == encodedCount) {
+                    return null;
+                }
+                byte[] url;
+                if (index % BLOCK_SIZE == 0) {
+                    int length = readVarInt(offset);
+                    offset += varIntSize(length);
+                    url = Arrays.copyOfRange(data, offset, offset + length);
+                    offset += length;
+                } else {
+                    int shared = readVarInt(offset);
+                    offset += varIntSize(shared);
+                    int suffix = readVarInt(offset);
+                    offset += varIntSize(suffix);
+                    url = Arrays.copyOf(previous, shared + suffix);
+                    System.arraycopy(data, offset, url, shared, suffix);
+                    offset += suffix;
+                }
+                index++;
+                previous = url;
+                return url;
+            }
+        }
+    }
+
+    /**
+     * Writes sorted URLs into front-coded blocks.
+     */
+    private static final class Encoder {
+        private byte[] data;
+        private int length;
+        private final int[] blockOffsets;
+        private int blocks;
+        private int count;
+        private byte[] previous;
+
+        Encoder(int expectedBytes, int expectedCount) {
+            data = new byte[Math.max(16, expectedBytes)];
+            blockOffsets = new int[(expectedCount + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        }
+
+        void add(byte[] url) {
+            if (count % BLOCK_SIZE == 0) {
+                blockOffsets[blocks++] = length;
+                writeVarInt(url.length);
+                write(url, 0, url.length);
+            } else {
+                int shared = Arrays.mismatch(previous, url);
+                if (shared < 0) {
+                    shared = url.length;
+                }
+                writeVarInt(shared);
+                writeVarInt(url.length - shared);
+                write(url, shared, url.length - shared);
+            }
+            previous = url;
+            count++;
+        }
+
+        private void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                data[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        private void write(byte[] bytes, int offset, int count) {
+            ensureCapacity(count);
+            System.arraycopy(bytes, offset, data, length, count);
+            length += count;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(length + extra, data.length + (data.length >> 1)));
+            }
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,252 @@
+package com.udacity.webcrawler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sits between link discovery and fetching, and makes sure no single host gets too many requests.
+ *
+ * <p>Tasks are queued per host. A task is handed to the underlying {@link Executor} only while its
+ * host has fewer than {@code maxInFlightPerHost} tasks running, and only once at least
+ * {@code minDelay} has passed since the previous task for that host was started. Hosts that are
+ * ready to start a task take turns in round-robin order, so throughput comes from the number of
+ * different hosts rather than from many requests to the same one.
+ *
+ * <p>URLs without a host, such as local files, are not requests to any server, so their tasks are
+ * handed to the executor right away. The state of a host is dropped once it has no queued or
+ * running tasks and its delay has passed, so a long crawl only keeps state for the hosts it is
+ * currently fetching from.
+ */
+final class HostScheduler {
+
+    private final Executor executor;
+    private final int maxInFlightPerHost;
+    private final long minDelayNanos;
+    private final ScheduledExecutorService timer;
+    private final Map<String, Host> hosts = new HashMap<>();
+    // Hosts that have queued tasks and may be able to start one right now. Hosts that are waiting
+    // for a running task to finish or for their delay to pass are parked outside this queue.
+    private final Deque<Host> readyHosts = new ArrayDeque<>();
+    // The number of tasks that have been submitted but not handed to the executor yet.
+    private int queuedTasks;
+    private boolean shutdown;
+
+    /**
+     * Creates a scheduler that runs tasks on the given executor.
+     *
+     * @param executor           the executor that runs the tasks.
+     * @param maxInFlightPerHost the maximum number of running tasks per host, or a value less than
+     *                           1 for no limit.
+     * @param minDelay           the minimum amount of time between the starts of two tasks for the
+     *                           same host.
+     */
+    HostScheduler(Executor executor, int maxInFlightPerHost, Duration minDelay) {
+        this.executor = executor;
+        this.maxInFlightPerHost = (maxInFlightPerHost < 1) ? Integer.MAX_VALUE : maxInFlightPerHost;
+        this.minDelayNanos = minDelay.toNanos();
+        this.timer = (minDelayNanos > 0) ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "host-scheduler-timer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Queues the given task, which downloads the given URL, behind the other tasks for its host. If
+     * the URL has no host, the task is handed to the executor right away.
+     */
+    void submit(String url, Runnable task) {
+        String name = hostOf(url);
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+            if (!name.isEmpty()) {
+                Host host = hosts.computeIfAbsent(name, Host::new);
+                host.tasks.add(task);
+                queuedTasks++;
+                makeReady(host);
+            }
+        }
+        if (name.isEmpty()) {
+            executor.execute(task);
+        } else {
+            dispatch();
+        }
+    }
+
+    /**
+     * Returns the number of hosts whose state the scheduler keeps, because they have queued or
+     * running tasks or their delay has not passed yet.
+     */
+    synchronized int hostCount() {
+        return hosts.size();
+    }
+
+    /**
+     * Returns the number of tasks that are queued behind the limits of their host, and have not
+     * been handed to the executor yet.
+     */
+    synchronized int queuedCount() {
+        return queuedTasks;
+    }
+
+    /**
+     * Drops all queued tasks and stops accepting new ones. Tasks that are already running are not
+     * affected.
+     */
+    void shutdown() {
+        synchronized (this) {
+            shutdown = true;
+            hosts.values().forEach(host -> host.tasks.clear());
+            hosts.clear();
+            readyHosts.clear();
+            queuedTasks = 0;
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Starts as many queued tasks as the per-host limits allow, going round-robin across hosts.
+     */
+    private void dispatch() {
+        List<Runnable> started = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            while (!readyHosts.isEmpty()) {
+                Host host = readyHosts.poll();
+                host.ready = false;
+                if (host.inFlight >= maxInFlightPerHost) {
+                    // Made ready again by finished().
+                    continue;
+                }
+                long wait = host.nextStartNanos - now;
+                if (wait > 0) {
+                    if (!host.waiting) {
+                        host.waiting = true;
+                        timer.schedule(() -> delayPassed(host), wait, TimeUnit.NANOSECONDS);
+                    }
+                    continue;
+                }
+                Runnable task = host.tasks.poll();
+                queuedTasks--;
+                host.inFlight++;
+                host.nextStartNanos = now + minDelayNanos;
+                started.add(() -> {
+                    try {
+                        if (minDelayNanos > 0) {
+                            // The executor may start the task a little later than it was handed
+                            // over, so count the delay from when the request really starts.
+                            starting(host);
+                        }
+                        task.run();
+                    } finally {
+                        finished(host);
+                    }
+                });
+                if (!host.tasks.isEmpty()) {
+                    makeReady(host);
+                }
+            }
+        }
+        started.forEach(executor::execute);
+    }
+
+    private synchronized void starting(Host host) {
+        host.nextStartNanos = Math.max(host.nextStartNanos, System.nanoTime() + minDelayNanos);
+    }
+
+    private void finished(Host host) {
+        synchronized (this) {
+            host.inFlight--;
+            if (!host.tasks.isEmpty()) {
+                makeReady(host);
+            } else {
+                dropIfIdle(host);
+            }
+        }
+        dispatch();
+    }
+
+    private void delayPassed(Host host) {
+        synchronized (this) {
+            host.waiting = false;
+            if (!host.tasks.isEmpty()) {
+                makeReady(host);
+            } else {
+                dropIfIdle(host);
+            }
+        }
+        dispatch();
+    }
+
+    /**
+     * Drops the state of the given host, which has no queued tasks, once nothing refers to it any
+     * more. Until its delay has passed, the host is kept, so that a new task for it still waits.
+     */
+    private void dropIfIdle(Host host) {
+        if (host.inFlight > 0 || host.waiting) {
+            return;
+        }
+        long wait = host.nextStartNanos - System.nanoTime();
+        if (wait > 0 && timer != null && !shutdown) {
+            host.waiting = true;
+            timer.schedule(() -> delayPassed(host), wait, TimeUnit.NANOSECONDS);
+        } else {
+            hosts.remove(host.name, host);
+        }
+    }
+
+    private void makeReady(Host host) {
+        if (!host.ready) {
+            host.ready = true;
+            readyHosts.add(host);
+        }
+    }
+
+    /**
+     * Returns the lower-cased authority (host and port) of the given URL, or an empty string if the
+     * URL has none, as is the case for local files. Such URLs are not subject to any per-host
+     * limits.
+     */
+    static String hostOf(String url) {
+        int start = url.indexOf("://");
+        if (start < 0) {
+            return "";
+        }
+        start += 3;
+        int end = start;
+        while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+            end++;
+        }
+        return url.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The queued tasks and scheduling state of a single host. Guarded by the scheduler's lock.
+     */
+    private static final class Host {
+        private final String name;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private int inFlight;
+        private long nextStartNanos = System.nanoTime();
+        private boolean ready;
+        private boolean waiting;
+
+        Host(String name) {
+            this.name = name;
+        }
+    }
+}
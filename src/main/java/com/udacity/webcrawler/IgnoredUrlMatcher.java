@@ -0,0 +1,265 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.RegexLiterals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether a URL matches any of the ignored URL patterns, without running every pattern on
+ * every URL.
+ *
+ * <p>{@link #matches(String)} returns the same answer as calling {@code matcher(url).matches()} on
+ * each pattern, but the patterns are sorted into groups when the matcher is created:
+ *
+ * <ul>
+ *   <li>Literal URLs, looked up in a hash set.</li>
+ *   <li>A literal followed by {@code .*}, such as {@code https://example\.com/.*}, looked up in a
+ *       trie of prefixes with a single walk along the URL.</li>
+ *   <li>{@code .*} followed by a literal, such as {@code .*\.pdf}, looked up in a trie of
+ *       reversed suffixes with a single walk back from the end of the URL.</li>
+ *   <li>A literal between two {@code .*}, such as {@code .*logout.*}, looked up in a trie from
+ *       each position of the URL.</li>
+ *   <li>All other patterns, combined into a single alternation, so that the regex engine runs once
+ *       per URL instead of once per pattern.</li>
+ * </ul>
+ *
+ * <p>So the cost of a URL depends on its length, and on the number of patterns that are not of one
+ * of the literal forms, but not on the number of literal ones.
+ */
+final class IgnoredUrlMatcher {
+
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+    private final List<Pattern> patterns;
+    private final Set<String> exact = new HashSet<>();
+    private final Trie prefixes = new Trie();
+    private final Trie reversedSuffixes = new Trie();
+    private final Trie infixes = new Trie();
+    private final Pattern union;
+    // Patterns that cannot be part of the union, because they refer to their own groups.
+    private final List<Pattern> separate = new ArrayList<>();
+
+    IgnoredUrlMatcher(List<Pattern> patterns) {
+        this.patterns = List.copyOf(patterns);
+        List<Pattern> complex = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            Literal literal = (pattern.flags() == 0) ? Literal.parse(pattern.pattern()) : null;
+            if (literal == null) {
+                complex.add(pattern);
+            } else if (literal.anyBefore && literal.anyAfter) {
+                infixes.add(literal.text, false);
+            } else if (literal.anyBefore) {
+                reversedSuffixes.add(literal.text, true);
+            } else if (literal.anyAfter) {
+                prefixes.add(literal.text, false);
+            } else {
+                exact.add(literal.text);
+            }
+        }
+        union = unionOf(complex, separate);
+    }
+
+    /**
+     * Returns true if the given URL matches any of the patterns.
+     */
+    boolean matches(String url) {
+        if (patterns.isEmpty()) {
+            return false;
+        }
+        if (RegexLiterals.hasLineTerminator(url)) {
+            // "." does not match line terminators, which the literal forms do not account for. URLs
+            // should not have any, so do not bother being fast.
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(url).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (exact.contains(url)
+                || prefixes.matchesPrefixOf(url, 0)
+                || reversedSuffixes.matchesSuffixOf(url)
+                || matchesInfix(url)) {
+            return true;
+        }
+        if (union != null && union.matcher(url).matches()) {
+            return true;
+        }
+        for (Pattern pattern : separate) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesInfix(String url) {
+        if (infixes.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i <= url.length(); i++) {
+            if (infixes.matchesPrefixOf(url, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combines the given patterns into one alternation. Patterns that could change their meaning
+     * in it are added to {@code separate} instead.
+     *
+     * @return the alternation, or null if there are no patterns to combine.
+     */
+    private static Pattern unionOf(List<Pattern> complex, List<Pattern> separate) {
+        List<Pattern> combinable = new ArrayList<>();
+        for (Pattern pattern : complex) {
+            // Back references would refer to other groups once the patterns are put together.
+            if (pattern.flags() != 0 || BACK_REFERENCE.matcher(pattern.pattern()).find()) {
+                separate.add(pattern);
+            } else {
+                combinable.add(pattern);
+            }
+        }
+        if (combinable.isEmpty()) {
+            return null;
+        }
+        if (combinable.size() == 1) {
+            return combinable.get(0);
+        }
+        try {
+            return Pattern.compile(combinable.stream()
+                    .map(pattern -> "(?:" + pattern.pattern() + ")")
+                    .collect(Collectors.joining("|")));
+        } catch (PatternSyntaxException e) {
+            // For example, two patterns with a group of the same name.
+            separate.addAll(combinable);
+            return null;
+        }
+    }
+
+    /**
+     * A pattern that is a literal string, optionally preceded and followed by {@code .*}.
+     */
+    private static final class Literal {
+        private final String text;
+        private final boolean anyBefore;
+        private final boolean anyAfter;
+
+        private Literal(String text, boolean anyBefore, boolean anyAfter) {
+            this.text = text;
+            this.anyBefore = anyBefore;
+            this.anyAfter = anyAfter;
+        }
+
+        /**
+         * Returns the literal form of the given regex, or null if it is not of that form.
+         */
+        static Literal parse(String regex) {
+            // matches() has to consume the whole URL anyway, so anchors change nothing.
+            regex = RegexLiterals.stripAnchors(regex);
+            int start = 0;
+            int end = regex.length();
+            boolean anyBefore = regex.startsWith(".*");
+            if (anyBefore) {
+                start += 2;
+            }
+            boolean anyAfter = end - start >= 2
+                    && regex.startsWith(".*", end - 2)
+                    && !RegexLiterals.isEscaped(regex, end - 2);
+            if (anyAfter) {
+                end -= 2;
+            }
+            String text = RegexLiterals.parse(regex.substring(start, end));
+            return (text == null) ? null : new Literal(text, anyBefore, anyAfter);
+        }
+    }
+
+    /**
+     * A trie of strings, with the children of each node in a sorted array.
+     */
+    private static final class Trie {
+        private final Node root = new Node();
+
+        void add(String text, boolean reversed) {
+            Node node = root;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(reversed ? text.length() - 1 - i : i);
+                node = node.child(c, true);
+            }
+            node.terminal = true;
+        }
+
+        boolean isEmpty() {
+            return root.keys.length == 0 && !root.terminal;
+        }
+
+        /**
+         * Returns true if one of the strings is a prefix of the URL from the given position.
+         */
+        boolean matchesPrefixOf(String url, int start) {
+            Node node = root;
+            for (int i = start; !node.terminal; i++) {
+                if (i == url.length() || (node = node.child(url.charAt(i), false)) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns true if the reverse of one of the strings is a suffix of the URL.
+         */
+        boolean matchesSuffixOf(String url) {
+            Node node = root;
+            for (int i = url.length() - 1; !node.terminal; i--) {
+                if (i < 0 || (node = node.child(url.charAt(i), false)) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private char[] keys = new char[0];
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+
+        Node child(char c, boolean create) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            if (!create) {
+                return null;
+            }
+            // Only while the trie is being built, so copying is fine.
+            Map<Character, Node> sorted = new TreeMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                sorted.put(keys[i], children[i]);
+            }
+            Node child = new Node();
+            sorted.put(c, child);
+            keys = new char[sorted.size()];
+            children = new Node[sorted.size()];
+            int i = 0;
+            for (Map.Entry<Character, Node> entry : sorted.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i++] = entry.getValue();
+            }
+            return child;
+        }
+    }
+}
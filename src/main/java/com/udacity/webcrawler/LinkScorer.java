@@ -0,0 +1,21 @@
+package com.udacity.webcrawler;
+
+/**
+ * Decides the order in which a best-first crawl visits the links it has found.
+ *
+ * <p>The implementation is bound in {@link WebCrawlerModule}. A different one can be plugged in by
+ * overriding that binding.
+ */
+public interface LinkScorer {
+
+  /**
+   * Returns the priority of the given link. Links with higher scores are crawled first.
+   *
+   * @param url          the URL of the link.
+   * @param depth        the number of links followed from a starting page to reach this link;
+   *                     starting pages have a depth of 0.
+   * @param inlinks      the number of links to this URL that have been found so far.
+   * @param pagesOnHost  the number of other URLs on the same host that have been queued so far.
+   */
+  double score(String url, int depth, int inlinks, int pagesOnHost);
+}
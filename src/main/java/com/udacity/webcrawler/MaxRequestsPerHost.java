@@ -0,0 +1,16 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the maximum number of requests that may be in flight to the same host.
+ *
+ * <p>The value bound to this annotation is the value of the {@code "maxRequestsPerHost"} option
+ * from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaxRequestsPerHost {
+}
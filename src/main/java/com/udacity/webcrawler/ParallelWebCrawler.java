@@ -1,75 +1,159 @@
 package com.udacity.webcrawler;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Profiler;
 import com.udacity.webcrawler.profiler.Wrapped;
 
 /**
  * Use {@link ExecutorService} for perform the web crawler with multiple thread.
+ *
+ * <p>Every page is crawled by its own task, which adds its outgoing links to the frontier and
+ * returns without waiting for them. A {@link CrawlTracker} turns pages from the frontier into tasks
+ * a bounded number at a time, and counts the pages that are still pending, so
+ * {@link #crawl(List)} returns as soon as the last page is done, or when the timeout expires,
+ * whichever comes first. The frontier is a {@link SpillingFrontier}, so the heap used by pending
+ * pages stays bounded however many links are found.
+ *
+ * <p>If adaptive parallelism is enabled, a {@link ConcurrencyController} resizes the thread pool
+ * during the crawl, and the chosen sizes are recorded with the {@link Profiler}, both as an
+ * aggregate and as a series over time.
+ *
+ * <p>If a checkpoint path is configured, every crawled page is recorded in a
+ * {@link CrawlCheckpoint}, and a later crawl can resume from it.
+ *
+ * <p>A page only counts as visited once its word counts have been merged into the totals. Merges
+ * and the cancellation at the deadline are serialized by a read-write lock, so a page whose
+ * download outlives the deadline is either merged and recorded in full before the crawl stops, or
+ * left out of the result entirely.
  * */
 @Wrapped
 final class ParallelWebCrawler implements WebCrawler {
+    private static final long ADJUST_INTERVAL_MILLIS = 200;
+    private static final int MAX_ADAPTIVE_THREADS_PER_CORE = 8;
+    // Pages waiting to be crawled that are kept on the heap; the rest are spilled to disk.
+    private static final int FRONTIER_HEAD_SIZE = 1 << 14;
+    // Pages handed to the host scheduler at a time.
+    private static final int MAX_SCHEDULED_PAGES = 1 << 12;
+
     private final Clock clock;
     private final Duration timeout;
     private final int popularWordCount;
-    private final ExecutorService threadPool;
-    private final List<Pattern> ignoredUrls;
+    private final ThreadPoolExecutor threadPool;
+    private final int threadCount;
+    private final IgnoredUrlMatcher ignoredUrls;
     private final int maxDepth;
     private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
+    private final int maxRequestsPerHost;
+    private final Duration politenessDelay;
+    private final boolean adaptiveParallelism;
+    private final Profiler profiler;
+    private final String checkpointPath;
+    private final Duration checkpointInterval;
+    private final boolean resumeFromCheckpoint;
+    private final Provider<VisitedUrlStore> visitedUrlStores;
+    private final WordDictionary dictionary;
 
     @Inject
-    ParallelWebCrawler(Clock clock, @Timeout Duration timeout, @PopularWordCount int popularWordCount, @TargetParallelism int threadCount, @IgnoredUrls List<Pattern> ignoredUrls, @MaxDepth int maxDepth, PageParserFactory parserFactory) {
+    ParallelWebCrawler(
+            Clock clock,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @TargetParallelism int threadCount,
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            @MaxDepth int maxDepth,
+            PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
+            @MaxRequestsPerHost int maxRequestsPerHost,
+            @PolitenessDelay Duration politenessDelay,
+            @AdaptiveParallelism boolean adaptiveParallelism,
+            Profiler profiler,
+            @CheckpointPath String checkpointPath,
+            @CheckpointInterval Duration checkpointInterval,
+            @ResumeFromCheckpoint boolean resumeFromCheckpoint,
+            Provider<VisitedUrlStore> visitedUrlStores,
+            WordDictionary dictionary) {
         this.clock = clock;
         this.timeout = timeout;
         this.popularWordCount = popularWordCount;
-        this.ignoredUrls = ignoredUrls;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
         this.maxDepth = maxDepth;
         this.parserFactory = parserFactory;
-        this.threadPool = Executors.newFixedThreadPool(Math.min(threadCount, getMaxParallelism()));
+        this.canonicalizer = canonicalizer;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.politenessDelay = politenessDelay;
+        this.adaptiveParallelism = adaptiveParallelism;
+        this.profiler = profiler;
+        this.checkpointPath = checkpointPath;
+        this.checkpointInterval = checkpointInterval;
+        this.resumeFromCheckpoint = resumeFromCheckpoint;
+        this.visitedUrlStores = visitedUrlStores;
+        this.dictionary = dictionary;
+        this.threadCount = Math.max(1, Math.min(threadCount, getMaxParallelism()));
+        this.threadPool = new ThreadPoolExecutor(this.threadCount, this.threadCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
     }
 
     @Override
     public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
         Instant deadline = clock.instant().plus(timeout);
-        ConcurrentMap<String, Integer> counts = new ConcurrentHashMap<>();
-        ConcurrentSkipListSet<String> visitedUrls = new ConcurrentSkipListSet<>();
+        WordTotals totals = new WordTotals(dictionary);
+        VisitedUrlStore visitedUrls = visitedUrlStores.get();
         Map<String, Boolean> report = new ConcurrentHashMap<>();
-        for (String url : startingUrls) {
-            threadPool.execute(() -> {
-                Callable<Boolean> task = new CallableCrawler(threadPool, url, deadline, maxDepth, counts, visitedUrls);
-                try {
-                    report.put(url, task.call());
-                } catch (Exception e) {
-                    System.err.println("Craw url [" + url + "] failure");
-                    e.printStackTrace();
-                    report.put(url, false);
-                }
-            });
+        List<CrawlCheckpoint.PendingPage> resumed = new ArrayList<>();
+        CrawlTracker tracker = new CrawlTracker(openCheckpoint(totals, visitedUrls, resumed), deadline, totals, visitedUrls, report);
+        int resumedVisits = visitedUrls.size();
+        for (CrawlCheckpoint.PendingPage page : resumed) {
+            report.putIfAbsent(page.getStartingUrl(), true);
+            tracker.submit(page);
+        }
+        for (String url : canonicalizer.canonicalize(startingUrls)) {
+            report.put(url, true);
+            tracker.submit(new CrawlCheckpoint.PendingPage(url, url, maxDepth));
         }
+        tracker.awaitUntil(deadline);
+        tracker.closeCheckpoint();
 
         CrawlResult.Builder resultBuilder = CrawlResult.builder();
         resultBuilder.setUrlsFailure(report.entrySet().stream().filter(target -> !target.getValue()).map(Map.Entry::getKey).toList());
-        resultBuilder.setUrlsVisited(visitedUrls.size());
+        resultBuilder.setUrlsVisited(resumedVisits + tracker.mergedPages());
 
+        Map<String, Integer> counts = totals.toMap();
         if (counts.isEmpty()) {
             resultBuilder.setWordCounts(counts);
         } else {
@@ -79,51 +163,348 @@ final class ParallelWebCrawler implements WebCrawler {
         return resultBuilder.build();
     }
 
+    /**
+     * Opens the checkpoint file, if one is configured. When resuming, the crawl state recorded in
+     * the file is first loaded into the given collections, and the pages that were still to be
+     * crawled are added to {@code resumed}.
+     *
+     * @return the checkpoint to record crawled pages in, or null if there is none.
+     */
+    private CrawlCheckpoint openCheckpoint(WordTotals totals, VisitedUrlStore visitedUrls, List<CrawlCheckpoint.PendingPage> resumed) {
+        if (checkpointPath.isEmpty()) {
+            return null;
+        }
+        Path path = Path.of(checkpointPath);
+        try {
+            CrawlCheckpoint.State state = null;
+            if (resumeFromCheckpoint && Files.exists(path)) {
+                state = CrawlCheckpoint.load(path);
+                state.getVisitedUrls().forEach(visitedUrls::addIfAbsent);
+                totals.addAll(state.getCounts());
+                resumed.addAll(state.getPending());
+            }
+            return new CrawlCheckpoint(path, checkpointInterval, state);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open checkpoint " + path, e);
+        }
+    }
+
+    /**
+     * Keeps track of the pages of a single crawl that have been submitted but have not finished.
+     *
+     * <p>Submitted pages wait in a {@link SpillingFrontier}. At most {@code MAX_SCHEDULED_PAGES} of
+     * them at a time are turned into tasks, which reach the thread pool through a
+     * {@link HostScheduler}, so that the per-host request limits are respected.
+     */
+    private final class CrawlTracker {
+        private final HostScheduler scheduler = new HostScheduler(threadPool, maxRequestsPerHost, politenessDelay);
+        // Starts at one on behalf of the thread that submits the starting URLs, so that the crawl
+        // cannot be considered done before all of them have been submitted.
+        private final AtomicInteger pendingTasks = new AtomicInteger(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final Set<FutureTask<Boolean>> inFlight = ConcurrentHashMap.newKeySet();
+        private final ConcurrencyController controller;
+        private final ScheduledExecutorService tuner;
+        private final CrawlCheckpoint checkpoint;
+        private final SpillingFrontier frontier = new SpillingFrontier(FRONTIER_HEAD_SIZE);
+        private final Instant deadline;
+        private final WordTotals totals;
+        private final VisitedUrlStore visitedUrls;
+        private final Map<String, Boolean> report;
+        // Merges and task registrations take the read lock; cancel() takes the write lock, so no
+        // merge or registration straddles it.
+        private final ReadWriteLock cancelLock = new ReentrantReadWriteLock();
+        private final AtomicInteger mergedPages = new AtomicInteger();
+        // Guarded by this.
+        private int scheduledPages;
+        private volatile boolean cancelled;
+
+        /**
+         * @param checkpoint where to record crawled pages, or null to not record them.
+         */
+        CrawlTracker(CrawlCheckpoint checkpoint, Instant deadline, WordTotals totals, VisitedUrlStore visitedUrls, Map<String, Boolean> report) {
+            this.checkpoint = checkpoint;
+            this.deadline = deadline;
+            this.totals = totals;
+            this.visitedUrls = visitedUrls;
+            this.report = report;
+            resize(threadCount);
+            if (!adaptiveParallelism) {
+                controller = null;
+                tuner = null;
+                return;
+            }
+            int maxThreads = Math.max(threadCount, Runtime.getRuntime().availableProcessors() * MAX_ADAPTIVE_THREADS_PER_CORE);
+            controller = new ConcurrencyController(1, threadCount, maxThreads);
+            tuner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "parallelism-controller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            tuner.scheduleAtFixedRate(this::adjustParallelism, ADJUST_INTERVAL_MILLIS, ADJUST_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Adds the given page to the frontier, unless the crawl has already been cancelled or the
+         * page would not be crawled.
+         */
+        void submit(CrawlCheckpoint.PendingPage page) {
+            if (cancelled || !shouldCrawl(page)) {
+                return;
+            }
+            pendingTasks.incrementAndGet();
+            try {
+                frontier.offer(page);
+            } catch (RuntimeException e) {
+                taskDone();
+                throw e;
+            }
+            schedulePages();
+        }
+
+        /**
+         * Turns pages from the frontier into tasks until {@code MAX_SCHEDULED_PAGES} are scheduled
+         * or running.
+         */
+        private void schedulePages() {
+            while (!cancelled) {
+                CrawlCheckpoint.PendingPage page;
+                synchronized (this) {
+                    if (scheduledPages >= MAX_SCHEDULED_PAGES) {
+                        return;
+                    }
+                    page = frontier.poll();
+                    if (page == null) {
+                        return;
+                    }
+                    scheduledPages++;
+                }
+                // The page may have been visited by another task while it waited in the frontier.
+                if (visitedUrls.contains(page.getUrl())) {
+                    synchronized (this) {
+                        scheduledPages--;
+                    }
+                    taskDone();
+                    continue;
+                }
+                CallableCrawler task = new CallableCrawler(this, page.getStartingUrl(), page.getUrl(), deadline, page.getDepth(), visitedUrls, report);
+                FutureTask<Boolean> future = new FutureTask<>(task) {
+                    @Override
+                    protected void done() {
+                        inFlight.remove(this);
+                        synchronized (CrawlTracker.this) {
+                            scheduledPages--;
+                        }
+                        schedulePages();
+                        taskDone();
+                    }
+                };
+                cancelLock.readLock().lock();
+                try {
+                    if (cancelled) {
+                        // Runs done(), which releases the slot and the pending count.
+                        future.cancel(false);
+                        return;
+                    }
+                    inFlight.add(future);
+                } finally {
+                    cancelLock.readLock().unlock();
+                }
+                scheduler.submit(page.getUrl(), future);
+            }
+        }
+
+        /**
+         * Waits until every submitted task has finished, or until the deadline. If the deadline is
+         * reached first, the remaining tasks are cancelled and interrupted, and this method returns
+         * right away without waiting for them to respond.
+         */
+        void awaitUntil(Instant deadline) {
+            taskDone();
+            try {
+                long remainingMillis = Math.max(0, Duration.between(clock.instant(), deadline).toMillis());
+                done.get(remainingMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                cancel();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Never completed exceptionally.
+                throw new IllegalStateException(e);
+            } finally {
+                scheduler.shutdown();
+                frontier.close();
+                if (tuner != null) {
+                    tuner.shutdownNow();
+                }
+            }
+        }
+
+        /**
+         * Returns false if the given page is too deep, ignored, or already visited, so that it
+         * never reaches the host scheduler. Tasks still claim their page in the visited store, since
+         * another task may visit it in the meantime.
+         */
+        private boolean shouldCrawl(CrawlCheckpoint.PendingPage page) {
+            return page.getDepth() > 0
+                    && !ignoredUrls.matches(page.getUrl())
+                    && !visitedUrls.contains(page.getUrl());
+        }
+
+        /**
+         * Merges the word counts of the given page into the totals and records the page in the
+         * checkpoint, unless the crawl has been cancelled.
+         *
+         * @return false if the crawl was cancelled, and the page was left out.
+         */
+        boolean merge(String url, String startingUrl, int depth, PageParser.Result result) {
+            cancelLock.readLock().lock();
+            try {
+                if (cancelled) {
+                    return false;
+                }
+                totals.add(result);
+                if (checkpoint != null) {
+                    checkpoint.pageCrawled(url, startingUrl, depth, result.getWordCounts(), result.getLinks());
+                }
+                mergedPages.incrementAndGet();
+                return true;
+            } finally {
+                cancelLock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the number of pages whose word counts have been merged into the totals.
+         */
+        int mergedPages() {
+            return mergedPages.get();
+        }
+
+        /**
+         * Writes out the rest of the checkpoint, if there is one.
+         */
+        void closeCheckpoint() {
+            if (checkpoint == null) {
+                return;
+            }
+            try {
+                checkpoint.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write checkpoint " + checkpointPath, e);
+            }
+        }
+
+        /**
+         * Records how long the given page took to download and parse.
+         */
+        void pageCrawled(long nanos) {
+            if (controller != null) {
+                controller.recordLatency(nanos);
+            }
+        }
+
+        /**
+         * Resizes the thread pool for the number of pages waiting to be crawled: the ones in the
+         * frontier, the ones held back by the host scheduler, and the ones waiting for a thread.
+         */
+        private void adjustParallelism() {
+            long backlog = frontier.size() + scheduler.queuedCount() + threadPool.getQueue().size();
+            int threads = controller.adjust((int) Math.min(backlog, Integer.MAX_VALUE), ConcurrencyController.systemCpuLoad());
+            resize(threads);
+            profiler.recordMetric("ParallelWebCrawler.parallelism", threads);
+            profiler.recordSeries("ParallelWebCrawler.parallelism", threads);
+        }
+
+        private void cancel() {
+            cancelLock.writeLock().lock();
+            try {
+                cancelled = true;
+            } finally {
+                cancelLock.writeLock().unlock();
+            }
+            scheduler.shutdown();
+            for (FutureTask<Boolean> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+
+        private void taskDone() {
+            if (pendingTasks.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+    }
+
     private class CallableCrawler implements Callable<Boolean> {
-        private final ExecutorService executor;
+        private final CrawlTracker tracker;
+        private final String startingUrl;
         private final String url;
         private final Instant deadline;
         private final int maxDepth;
-        private final ConcurrentMap<String, Integer> counts;
-        private final ConcurrentSkipListSet<String> visitedUrls;
+        private final VisitedUrlStore visitedUrls;
+        private final Map<String, Boolean> report;
 
-        CallableCrawler(ExecutorService executor, String url, Instant deadline, int maxDepth, ConcurrentMap<String, Integer> counts, ConcurrentSkipListSet<String> visitedUrls) {
-            this.executor = executor;
+        CallableCrawler(CrawlTracker tracker, String startingUrl, String url, Instant deadline, int maxDepth, VisitedUrlStore visitedUrls, Map<String, Boolean> report) {
+            this.tracker = tracker;
+            this.startingUrl = startingUrl;
             this.url = url;
             this.deadline = deadline;
             this.maxDepth = maxDepth;
-            this.counts = counts;
             this.visitedUrls = visitedUrls;
+            this.report = report;
         }
 
+        /**
+         * Crawls the page and submits its links as new tasks. Returns false if the page was not
+         * crawled, for example because it is too deep or was already visited, or if the crawl was
+         * cancelled before its word counts could be merged.
+         */
         @Override
-        public Boolean call() throws Exception {
-            if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
+        public Boolean call() {
+            try {
+                return crawlPage();
+            } catch (RuntimeException e) {
+                // Reported in the crawl result as a failure of the starting URL.
+                report.put(startingUrl, false);
                 return false;
             }
-            for (Pattern pattern : ignoredUrls) {
-                if (pattern.matcher(url).matches()) {
-                    return false;
-                }
+        }
+
+        private boolean crawlPage() {
+            // The depth and ignored URLs were checked before the page was scheduled.
+            if (clock.instant().isAfter(deadline)) {
+                return false;
             }
-            if (visitedUrls.contains(url)) {
+            // Claims the page, so that no other task downloads it. It is only counted as visited
+            // once it has been merged.
+            if (!visitedUrls.addIfAbsent(url)) {
                 return false;
             }
-            visitedUrls.add(url);
+            long start = System.nanoTime();
             PageParser.Result result = parserFactory.get(url).parse();
-            result.getWordCounts().forEach((key, value) -> counts.compute(key, (innerKey, innerValue) -> (innerValue == null) ? value : value + innerValue));
-            List<Callable<Boolean>> callTasks = new ArrayList<>();
-            result.getLinks().forEach(link -> callTasks.add(new CallableCrawler(executor, link, deadline, maxDepth - 1, counts, visitedUrls)));
-            List<Future<Boolean>> results = executor.invokeAll(callTasks);
-            AtomicBoolean finalResult = new AtomicBoolean(true);
-            results.forEach(r -> {
-                try {
-                    finalResult.set(Boolean.logicalAnd(finalResult.get(), r.get()));
-                } catch (Exception e) {
-                    finalResult.set(false);
-                }
-            });
-            return finalResult.get();
+            tracker.pageCrawled(System.nanoTime() - start);
+            if (!tracker.merge(url, startingUrl, maxDepth, result)) {
+                // The deadline passed while the page was downloading; leave the result as it was.
+                return false;
+            }
+            result.getLinks().forEach(link -> tracker.submit(new CrawlCheckpoint.PendingPage(link, startingUrl, maxDepth - 1)));
+            return true;
+        }
+    }
+
+    /**
+     * Changes the number of threads in the pool. Threads above the new size exit once they finish
+     * their current task.
+     */
+    private synchronized void resize(int threads) {
+        if (threads > threadPool.getMaximumPoolSize()) {
+            threadPool.setMaximumPoolSize(threads);
+            threadPool.setCorePoolSize(threads);
+        } else {
+            threadPool.setCorePoolSize(threads);
+            threadPool.setMaximumPoolSize(threads);
         }
     }
 
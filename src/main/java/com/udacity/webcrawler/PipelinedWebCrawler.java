@@ -0,0 +1,324 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Profiler;
+import com.udacity.webcrawler.profiler.Wrapped;
+
+import javax.inject.Inject;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WebCrawler} that splits crawling into pipeline stages, each with its own threads.
+ *
+ * <p>A single dispatcher thread filters discovered links and starts downloading them with
+ * {@link PageFetcher#fetchAsync(String)}, so downloads in progress do not hold a thread. Downloaded
+ * pages go to the parse stage, which has about one thread per core, and parse results go to a
+ * single merge thread that adds up the word counts and feeds the links back to the dispatcher.
+ *
+ * <p>The number of downloads that have been started but not yet picked up by the parse stage is
+ * bounded, as is the queue in front of the merge stage, so a slow stage makes the stages before it
+ * wait instead of letting downloaded pages pile up in memory. The queue of discovered links is the
+ * one exception: the merge stage feeds it while the dispatcher drains it, so bounding it could
+ * deadlock the pipeline. Links are small, so this is not a memory concern.
+ *
+ * <p>The depth of each queue and the time spent per item in each stage are recorded with the
+ * {@link Profiler}.
+ */
+@Wrapped
+final class PipelinedWebCrawler implements WebCrawler {
+
+    private static final int FETCHES_PER_PARSE_THREAD = 16;
+    private static final int QUEUE_CAPACITY_PER_THREAD = 2;
+
+    private final Clock clock;
+    private final PageFetcher fetcher;
+    private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
+    private final Profiler profiler;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final int parseThreads;
+    private final int maxFetches;
+    private final ExecutorService threadPool;
+    private final WordDictionary dictionary;
+
+    @Inject
+    PipelinedWebCrawler(
+            Clock clock,
+            PageFetcher fetcher,
+            PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
+            Profiler profiler,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @TargetParallelism int threadCount,
+            @MaxDepth int maxDepth,
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            WordDictionary dictionary) {
+        this.clock = clock;
+        this.fetcher = fetcher;
+        this.parserFactory = parserFactory;
+        this.canonicalizer = canonicalizer;
+        this.profiler = profiler;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
+        this.parseThreads = Math.max(1, Math.min(threadCount, getMaxParallelism()));
+        this.maxFetches = parseThreads * FETCHES_PER_PARSE_THREAD;
+        // One extra thread each for the dispatcher and the merge stage.
+        this.threadPool = Executors.newFixedThreadPool(parseThreads + 2);
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
+        Instant deadline = clock.instant().plus(timeout);
+        Crawl crawl = new Crawl();
+        for (String url : canonicalizer.canonicalize(startingUrls)) {
+            crawl.submit(url, 0);
+        }
+        crawl.start();
+        Map<String, Integer> counts = crawl.awaitUntil(deadline);
+
+        if (counts.isEmpty()) {
+            return CrawlResult.builder()
+                    .setWordCounts(counts)
+                    .setUrlsVisited(crawl.visitedUrls.size())
+                    .build();
+        }
+
+        return CrawlResult.builder()
+                .setWordCounts(WordCounts.sort(counts, popularWordCount))
+                .setUrlsVisited(crawl.visitedUrls.size())
+                .build();
+    }
+
+    @Override
+    public int getMaxParallelism() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The queues and state of a single call to {@link #crawl(List)}.
+     */
+    private final class Crawl {
+        private final BlockingQueue<Link> links = new LinkedBlockingQueue<>();
+        // A permit is taken before a download starts, and given back once the parse stage has
+        // taken the page, so the parse queue never holds more than maxFetches pages.
+        private final Semaphore fetchPermits = new Semaphore(maxFetches);
+        private final BlockingQueue<Fetched> parseQueue = new ArrayBlockingQueue<>(maxFetches);
+        private final BlockingQueue<Parsed> mergeQueue =
+                new ArrayBlockingQueue<>(parseThreads * QUEUE_CAPACITY_PER_THREAD);
+        private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+        // Only written by the merge thread, and read once the crawl has been stopped.
+        private final WordTotals totals = new WordTotals(dictionary);
+        private final List<Future<?>> stages = new ArrayList<>();
+        // Downloads that have been started and have not completed, so that they can be cancelled
+        // at the deadline.
+        private final Set<CompletableFuture<FetchedPage>> fetches = ConcurrentHashMap.newKeySet();
+        // The number of links that have been discovered but have not made it through the pipeline.
+        // Starts at one on behalf of the thread that submits the starting URLs, so that the crawl
+        // cannot be considered done before all of them have been submitted.
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private boolean stopped;
+
+        void start() {
+            stages.add(threadPool.submit(() -> runStage("dispatch", links, this::dispatch)));
+            for (int i = 0; i < parseThreads; i++) {
+                stages.add(threadPool.submit(() -> runStage("parse", parseQueue, this::parse)));
+            }
+            stages.add(threadPool.submit(() -> runStage("merge", mergeQueue, this::merge)));
+        }
+
+        /**
+         * Waits until every discovered link has gone through the pipeline, or until the deadline,
+         * then stops the stages and returns the merged word counts.
+         */
+        Map<String, Integer> awaitUntil(Instant deadline) {
+            itemDone();
+            try {
+                long remainingMillis = Math.max(0, Duration.between(clock.instant(), deadline).toMillis());
+                done.get(remainingMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Return whatever has been merged so far.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // Never completed exceptionally.
+                throw new IllegalStateException(e);
+            } finally {
+                stages.forEach(stage -> stage.cancel(true));
+                fetches.forEach(fetch -> fetch.cancel(true));
+            }
+            synchronized (this) {
+                // Keeps the merge thread from changing the counts after they are returned.
+                stopped = true;
+                return totals.toMap();
+            }
+        }
+
+        void submit(String url, int depth) {
+            pending.incrementAndGet();
+            links.add(new Link(url, depth));
+        }
+
+        private void dispatch(Link link) throws InterruptedException {
+            if (link.depth >= maxDepth || !accept(link.url) || !visitedUrls.add(link.url)) {
+                itemDone();
+                return;
+            }
+            fetchPermits.acquire();
+            profiler.recordMetric("pipeline.fetch.inFlight", maxFetches - fetchPermits.availablePermits());
+            long start = System.nanoTime();
+            CompletableFuture<FetchedPage> fetch;
+            try {
+                fetch = fetcher.fetchAsync(link.url);
+            } catch (RuntimeException e) {
+                // The fetcher could not even start the download, so the page has no words or links.
+                fetchPermits.release();
+                itemDone();
+                return;
+            }
+            // Added before the callback, which removes it, since the download may already be done.
+            fetches.add(fetch);
+            fetch.whenComplete((page, error) -> {
+                fetches.remove(fetch);
+                profiler.recordMetric(
+                        "pipeline.fetch.itemMicros",
+                        TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                if (error != null) {
+                    // The page could not be downloaded, so it has no words or links.
+                    fetchPermits.release();
+                    itemDone();
+                    return;
+                }
+                profiler.recordMetric("pipeline.fetch.bytes", page.size());
+                // Never blocks, since there is a permit for every slot in the queue.
+                parseQueue.add(new Fetched(page, link.depth));
+            });
+        }
+
+        private boolean accept(String url) {
+            return !ignoredUrls.matches(url);
+        }
+
+        private void parse(Fetched fetched) throws InterruptedException {
+            fetchPermits.release();
+            PageParser.Result result = parserFactory.get(fetched.page).parse();
+            mergeQueue.put(new Parsed(result, fetched.depth));
+        }
+
+        private void merge(Parsed parsed) {
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                totals.add(parsed.result);
+            }
+            for (String link : parsed.result.getLinks()) {
+                submit(link, parsed.depth + 1);
+            }
+            itemDone();
+        }
+
+        /**
+         * Runs one thread of a pipeline stage, taking items from the given queue until the crawl
+         * is stopped.
+         */
+        private <T> void runStage(String name, BlockingQueue<T> queue, Stage<T> stage) {
+            String queueDepthMetric = "pipeline." + name + ".queueDepth";
+            String itemMicrosMetric = "pipeline." + name + ".itemMicros";
+            try {
+                while (true) {
+                    T item = queue.take();
+                    profiler.recordMetric(queueDepthMetric, queue.size());
+                    long start = System.nanoTime();
+                    try {
+                        stage.process(item);
+                    } catch (RuntimeException e) {
+                        // Drop the item, but keep the stage running.
+                        itemDone();
+                    }
+                    profiler.recordMetric(
+                            itemMicrosMetric, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                }
+            } catch (InterruptedException e) {
+                // The crawl is over.
+            }
+        }
+
+        private void itemDone() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * The work done by one pipeline stage for a single item.
+     */
+    private interface Stage<T> {
+        void process(T item) throws InterruptedException;
+    }
+
+    private static final class Link {
+        private final String url;
+        private final int depth;
+
+        Link(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+
+    private static final class Fetched {
+        private final FetchedPage page;
+        private final int depth;
+
+        Fetched(FetchedPage page, int depth) {
+            this.page = page;
+            this.depth = depth;
+        }
+    }
+
+    private static final class Parsed {
+        private final PageParser.Result result;
+        private final int depth;
+
+        Parsed(PageParser.Result result, int depth) {
+            this.result = result;
+            this.depth = depth;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.udacity.webcrawler;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * A binding annotation for the minimum amount of time between two requests to the same host.
+ *
+ * <p>The value bound to this annotation is a Java duration based on the
+ * {@code "politenessDelayMillis"} option from the crawler configuration JSON.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PolitenessDelay {
+}
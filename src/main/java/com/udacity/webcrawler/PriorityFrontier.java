@@ -0,0 +1,110 @@
+package com.udacity.webcrawler;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe queue of URLs waiting to be crawled, ordered by a {@link LinkScorer}.
+ *
+ * <p>The queue is a {@link ConcurrentSkipListSet}, so workers can insert links and take the best
+ * one without a global lock. Offering a URL that is already queued counts as one more inlink, and
+ * moves the URL to its new position.
+ */
+final class PriorityFrontier {
+
+    private static final Comparator<Entry> BEST_FIRST =
+            Comparator.comparingDouble((Entry e) -> -e.score).thenComparingLong(e -> e.sequence);
+
+    private final LinkScorer scorer;
+    private final ConcurrentSkipListSet<Entry> queue = new ConcurrentSkipListSet<>(BEST_FIRST);
+    private final ConcurrentMap<String, Entry> queued = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> pagesPerHost = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    PriorityFrontier(LinkScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    /**
+     * Queues the given URL, or, if it is already queued, records one more inlink to it.
+     *
+     * @param depth the number of links followed from a starting page to reach the URL.
+     * @return true if the URL was not queued before, and a new entry was added for it.
+     */
+    boolean offer(String url, int depth) {
+        boolean[] added = {false};
+        queued.compute(url, (u, existing) -> {
+            if (existing == null) {
+                int pagesOnHost = pagesPerHost
+                        .computeIfAbsent(HostScheduler.hostOf(u), host -> new AtomicInteger())
+                        .getAndIncrement();
+                Entry entry = newEntry(u, depth, 1, pagesOnHost);
+                queue.add(entry);
+                added[0] = true;
+                return entry;
+            }
+            if (!queue.remove(existing)) {
+                // A worker has just taken it; poll() will remove the mapping.
+                return existing;
+            }
+            Entry entry = newEntry(
+                    u, Math.min(depth, existing.depth), existing.inlinks + 1, existing.pagesOnHost);
+            queue.add(entry);
+            return entry;
+        });
+        return added[0];
+    }
+
+    /**
+     * Removes and returns the queued URL with the highest score, or returns null if there is none.
+     */
+    Entry poll() {
+        Entry entry = queue.pollFirst();
+        if (entry != null) {
+            queued.remove(entry.url, entry);
+        }
+        return entry;
+    }
+
+    boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    private Entry newEntry(String url, int depth, int inlinks, int pagesOnHost) {
+        double score = scorer.score(url, depth, inlinks, pagesOnHost);
+        return new Entry(url, depth, inlinks, pagesOnHost, score, sequence.getAndIncrement());
+    }
+
+    /**
+     * A queued URL. Entries are immutable; a new one replaces the old one when the score changes.
+     */
+    static final class Entry {
+        private final String url;
+        private final int depth;
+        private final int inlinks;
+        private final int pagesOnHost;
+        private final double score;
+        private final long sequence;
+
+        private Entry(String url, int depth, int inlinks, int pagesOnHost, double score, long sequence) {
+            this.url = url;
+            this.depth = depth;
+            this.inlinks = inlinks;
+            this.pagesOnHost = pagesOnHost;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        String getUrl() {
+            return url;
+        }
+
+        int getDepth() {
+            return depth;
+        }
+    }
+}
@@ -3,17 +3,17 @@ package com.udacity.webcrawler;
 import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.parser.PageParser;
 import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
 import com.udacity.webcrawler.profiler.Wrapped;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -24,36 +24,48 @@ final class SequentialWebCrawler implements WebCrawler {
 
     private final Clock clock;
     private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
     private final Duration timeout;
     private final int popularWordCount;
     private final int maxDepth;
-    private final List<Pattern> ignoredUrls;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final Provider<VisitedUrlStore> visitedUrlStores;
+    private final WordDictionary dictionary;
 
     @Inject
     SequentialWebCrawler(
             Clock clock,
             PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
             @Timeout Duration timeout,
             @PopularWordCount int popularWordCount,
             @MaxDepth int maxDepth,
-            @IgnoredUrls List<Pattern> ignoredUrls) {
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            Provider<VisitedUrlStore> visitedUrlStores,
+            WordDictionary dictionary) {
         this.clock = clock;
         this.parserFactory = parserFactory;
+        this.canonicalizer = canonicalizer;
         this.timeout = timeout;
         this.popularWordCount = popularWordCount;
         this.maxDepth = maxDepth;
-        this.ignoredUrls = ignoredUrls;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
+        this.visitedUrlStores = visitedUrlStores;
+        this.dictionary = dictionary;
     }
 
     @Override
     public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
         Instant deadline = clock.instant().plus(timeout);
-        Map<String, Integer> counts = new HashMap<>();
-        Set<String> visitedUrls = new HashSet<>();
-        for (String url : startingUrls) {
-            crawlInternal(url, deadline, maxDepth, counts, visitedUrls);
+        WordTotals totals = new WordTotals(dictionary);
+        VisitedUrlStore visitedUrls = visitedUrlStores.get();
+        for (String url : canonicalizer.canonicalize(startingUrls)) {
+            crawlInternal(url, deadline, maxDepth, totals, visitedUrls);
         }
 
+        Map<String, Integer> counts = totals.toMap();
+
         if (counts.isEmpty()) {
             return CrawlResult.builder()
                     .setWordCounts(counts)
@@ -71,30 +83,21 @@ final class SequentialWebCrawler implements WebCrawler {
             String url,
             Instant deadline,
             int maxDepth,
-            Map<String, Integer> counts,
-            Set<String> visitedUrls) {
+            WordTotals totals,
+            VisitedUrlStore visitedUrls) {
         if (maxDepth == 0 || clock.instant().isAfter(deadline)) {
             return;
         }
-        for (Pattern pattern : ignoredUrls) {
-            if (pattern.matcher(url).matches()) {
-                return;
-            }
+        if (ignoredUrls.matches(url)) {
+            return;
         }
-        if (visitedUrls.contains(url)) {
+        if (!visitedUrls.addIfAbsent(url)) {
             return;
         }
-        visitedUrls.add(url);
         PageParser.Result result = parserFactory.get(url).parse();
-        for (Map.Entry<String, Integer> e : result.getWordCounts().entrySet()) {
-            if (counts.containsKey(e.getKey())) {
-                counts.put(e.getKey(), e.getValue() + counts.get(e.getKey()));
-            } else {
-                counts.put(e.getKey(), e.getValue());
-            }
-        }
+        totals.add(result);
         for (String link : result.getLinks()) {
-            crawlInternal(link, deadline, maxDepth - 1, counts, visitedUrls);
+            crawlInternal(link, deadline, maxDepth - 1, totals, visitedUrls);
         }
     }
 }
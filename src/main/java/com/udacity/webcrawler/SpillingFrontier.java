@@ -0,0 +1,236 @@
+package com.udacity.webcrawler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A thread-safe FIFO queue of pages waiting to be crawled, which keeps at most a fixed number of
+ * them on the heap and spills the rest to disk.
+ *
+ * <p>Pages are kept in an in-memory head while it has room. Once it is full, every page that is
+ * added is appended to a memory-mapped segment file instead, until the spilled pages have all been
+ * read back, so that the queue stays in FIFO order. When the head runs empty, it is refilled with a
+ * batch of pages read sequentially from the oldest segment. Segments that have been read are
+ * deleted. Both writing and reading go through the page cache in order, so spilling costs only
+ * sequential disk I/O.
+ *
+ * <p>Segment files are created in a temporary directory on the first spill, so a crawl that fits
+ * in the head never touches the disk. {@link #close()} deletes them.
+ */
+final class SpillingFrontier implements AutoCloseable {
+
+    static final int DEFAULT_SEGMENT_BYTES = 16 << 20;
+
+    private final int headCapacity;
+    private final int segmentBytes;
+    private final Path parentDirectory;
+    private final Deque<CrawlCheckpoint.PendingPage> head = new ArrayDeque<>();
+    // Oldest first. Pages are read from the first segment and written to the last one.
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Path directory;
+    private int segmentCount;
+    private long spilled;
+    private boolean closed;
+
+    /**
+     * Creates a frontier that spills to the default temporary-file directory.
+     *
+     * @param headCapacity the largest number of pages kept on the heap.
+     */
+    SpillingFrontier(int headCapacity) {
+        this(headCapacity, DEFAULT_SEGMENT_BYTES, null);
+    }
+
+    /**
+     * Creates a frontier.
+     *
+     * @param headCapacity    the largest number of pages kept on the heap.
+     * @param segmentBytes    the size of each segment file.
+     * @param parentDirectory where to create the directory for the segment files, or null for the
+     *                        default temporary-file directory.
+     */
+    SpillingFrontier(int headCapacity, int segmentBytes, Path parentDirectory) {
+        if (headCapacity <= 0 || segmentBytes <= 0) {
+            throw new IllegalArgumentException("headCapacity and segmentBytes must be positive");
+        }
+        this.headCapacity = headCapacity;
+        this.segmentBytes = segmentBytes;
+        this.parentDirectory = parentDirectory;
+    }
+
+    /**
+     * Adds the given page to the tail of the queue. Does nothing once the frontier is closed.
+     *
+     * @throws UncheckedIOException if the page had to be spilled, and could not be written.
+     */
+    synchronized void offer(CrawlCheckpoint.PendingPage page) {
+        if (closed) {
+            return;
+        }
+        if (spilled == 0 && head.size() < headCapacity) {
+            head.add(page);
+            return;
+        }
+        try {
+            spill(page);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spill the crawl frontier to disk", e);
+        }
+    }
+
+    /**
+     * Removes and returns the page at the head of the queue, or returns null if the queue is empty.
+     */
+    synchronized CrawlCheckpoint.PendingPage poll() {
+        if (head.isEmpty() && spilled > 0) {
+            readBatch();
+        }
+        return head.poll();
+    }
+
+    /**
+     * Returns the number of pages in the queue, including the spilled ones.
+     */
+    synchronized long size() {
+        return head.size() + spilled;
+    }
+
+    /**
+     * Returns the number of pages that are on disk.
+     */
+    synchronized long spilledCount() {
+        return spilled;
+    }
+
+    /**
+     * Drops all pages and deletes the segment files.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        head.clear();
+        spilled = 0;
+        try {
+            for (Segment segment : segments) {
+                Files.deleteIfExists(segment.path);
+            }
+            if (directory != null) {
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not delete crawl frontier files in " + directory + ": " + e);
+        } finally {
+            segments.clear();
+        }
+    }
+
+    private void spill(CrawlCheckpoint.PendingPage page) throws IOException {
+        byte[] url = page.getUrl().getBytes(StandardCharsets.UTF_8);
+        byte[] startingUrl = page.getStartingUrl().getBytes(StandardCharsets.UTF_8);
+        int recordBytes = 12 + url.length + startingUrl.length;
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.remaining() < recordBytes) {
+            segment = newSegment(Math.max(segmentBytes, recordBytes));
+        }
+        segment.buffer
+                .putInt(page.getDepth())
+                .putInt(url.length)
+                .put(url)
+                .putInt(startingUrl.length)
+                .put(startingUrl);
+        spilled++;
+    }
+
+    /**
+     * Moves up to a head's worth of pages from the segments to the head.
+     */
+    private void readBatch() {
+        while (spilled > 0 && head.size() < headCapacity) {
+            Segment segment = segments.peekFirst();
+            if (segment.readPosition == segment.buffer.position()) {
+                // Only a segment that is not written to anymore can run out while pages are left.
+                segments.removeFirst();
+                delete(segment);
+                continue;
+            }
+            head.add(segment.read());
+            spilled--;
+        }
+        if (spilled == 0) {
+            // All earlier segments have been deleted. Keep the last one, and write to it from the
+            // start the next time the head fills up.
+            Segment last = segments.getFirst();
+            last.buffer.clear();
+            last.readPosition = 0;
+        }
+    }
+
+    private Segment newSegment(int size) throws IOException {
+        if (directory == null) {
+            directory = (parentDirectory == null)
+                    ? Files.createTempDirectory("crawl-frontier")
+                    : Files.createTempDirectory(parentDirectory, "crawl-frontier");
+        }
+        Path path = directory.resolve("segment-" + segmentCount++);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        Segment segment = new Segment(path, buffer);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void delete(Segment segment) {
+        try {
+            // The pages stay mapped until the buffer is garbage collected, but they are backed by
+            // the file, so the OS can drop them at any time.
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            System.err.println("Could not delete crawl frontier file " + segment.path + ": " + e);
+        }
+    }
+
+    /**
+     * A memory-mapped file of spilled pages. The buffer's position is where the next page is
+     * written.
+     */
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int readPosition;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        CrawlCheckpoint.PendingPage read() {
+            int depth = buffer.getInt(readPosition);
+            String url = readString(readPosition + 4);
+            int startingUrlPosition = readPosition + 8 + buffer.getInt(readPosition + 4);
+            String startingUrl = readString(startingUrlPosition);
+            readPosition = startingUrlPosition + 4 + buffer.getInt(startingUrlPosition);
+            return new CrawlCheckpoint.PendingPage(url, startingUrl, depth);
+        }
+
+        private String readString(int position) {
+            byte[] bytes = new byte[buffer.getInt(position)];
+            buffer.get(position + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
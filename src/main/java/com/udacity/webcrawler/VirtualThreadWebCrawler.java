@@ -0,0 +1,281 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import com.udacity.webcrawler.profiler.Wrapped;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link WebCrawler} for I/O-bound crawls that runs every page on its own thread.
+ *
+ * <p>The project is built for Java 17, so virtual threads are looked up when the class is loaded.
+ * On a Java 21 or later runtime, each page gets a virtual thread, so thousands of downloads can be
+ * in flight without the cost of a platform thread each. On older runtimes the crawler falls back to
+ * a fixed pool of platform threads, one per permit; {@link #usesVirtualThreads()} tells which one
+ * is in use. Either way, a {@link Semaphore} sized from the {@code "parallelism"} option caps how
+ * many pages are downloaded at the same time, and that is the parallelism the crawler reports.
+ *
+ * <p>Pages whose task throws are reported as failed URLs in the {@link CrawlResult}, and the crawl
+ * never waits past its timeout for the pages still in flight. Those pages are left out of the
+ * results, and a page only counts as visited once its word counts have been merged.
+ *
+ * <p>Pages are handed to the executor through a {@link HostScheduler}, so that the thousands of
+ * requests in flight are spread across hosts instead of all going to the same one.
+ */
+@Wrapped
+final class VirtualThreadWebCrawler implements WebCrawler {
+
+    // Executors.newVirtualThreadPerTaskExecutor(), or null if the runtime has no virtual threads.
+    private static final Method VIRTUAL_THREAD_FACTORY = findVirtualThreadFactory();
+
+    private final Clock clock;
+    private final PageParserFactory parserFactory;
+    private final UrlCanonicalizer canonicalizer;
+    private final Duration timeout;
+    private final int popularWordCount;
+    private final int maxConcurrentFetches;
+    private final int maxDepth;
+    private final IgnoredUrlMatcher ignoredUrls;
+    private final int maxRequestsPerHost;
+    private final Duration politenessDelay;
+    private final Provider<VisitedUrlStore> visitedUrlStores;
+    private final WordDictionary dictionary;
+
+    @Inject
+    VirtualThreadWebCrawler(
+            Clock clock,
+            PageParserFactory parserFactory,
+            UrlCanonicalizer canonicalizer,
+            @Timeout Duration timeout,
+            @PopularWordCount int popularWordCount,
+            @TargetParallelism int maxConcurrentFetches,
+            @MaxDepth int maxDepth,
+            @IgnoredUrls List<Pattern> ignoredUrls,
+            @MaxRequestsPerHost int maxRequestsPerHost,
+            @PolitenessDelay Duration politenessDelay,
+            Provider<VisitedUrlStore> visitedUrlStores,
+            WordDictionary dictionary) {
+        this.clock = clock;
+        this.parserFactory = parserFactory;
+        this.canonicalizer = canonicalizer;
+        this.timeout = timeout;
+        this.popularWordCount = popularWordCount;
+        this.maxConcurrentFetches = Math.max(1, maxConcurrentFetches);
+        this.maxDepth = maxDepth;
+        this.ignoredUrls = new IgnoredUrlMatcher(ignoredUrls);
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.politenessDelay = politenessDelay;
+        this.visitedUrlStores = visitedUrlStores;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public CrawlResult crawl(List<String> startingUrls) {
+        parserFactory.startCrawl();
+        Crawl crawl = new Crawl(clock.instant().plus(timeout));
+        try {
+            for (String url : canonicalizer.canonicalize(startingUrls)) {
+                crawl.submit(url, maxDepth);
+            }
+            crawl.awaitCompletion();
+        } finally {
+            crawl.finish();
+        }
+
+        CrawlResult.Builder resultBuilder = CrawlResult.builder()
+                .setUrlsVisited(crawl.mergedPages.get())
+                .setUrlsFailure(crawl.failedUrls);
+        Map<String, Integer> counts = crawl.totals.toMap();
+        if (counts.isEmpty()) {
+            resultBuilder.setWordCounts(counts);
+        } else {
+            resultBuilder.setWordCounts(WordCounts.sort(counts, popularWordCount));
+        }
+        return resultBuilder.build();
+    }
+
+    /**
+     * Returns the number of pages that are downloaded at the same time, which is the
+     * {@code "parallelism"} option whether or not the runtime supports virtual threads.
+     */
+    @Override
+    public int getMaxParallelism() {
+        return maxConcurrentFetches;
+    }
+
+    /**
+     * Returns true if pages run on virtual threads, or false if the runtime does not support them and
+     * pages run on a fixed pool of platform threads.
+     */
+    static boolean usesVirtualThreads() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    private static Method findVirtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns an executor that starts a new virtual thread for each task, or, if virtual threads
+     * are not wanted or the runtime does not support them, a pool of the given number of platform
+     * threads.
+     */
+    static ExecutorService newThreadPerTaskExecutor(boolean virtualThreads, int platformThreads) {
+        if (virtualThreads && VIRTUAL_THREAD_FACTORY != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREAD_FACTORY.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a virtual thread executor", e);
+            }
+        }
+        return Executors.newFixedThreadPool(platformThreads);
+    }
+
+    /**
+     * The state of a single call to {@link #crawl(List)}.
+     */
+    private final class Crawl {
+        private final Instant deadline;
+        private final ExecutorService executor =
+                newThreadPerTaskExecutor(true, maxConcurrentFetches);
+        private final HostScheduler scheduler =
+                new HostScheduler(executor, maxRequestsPerHost, politenessDelay);
+        private final Semaphore fetchPermits = new Semaphore(maxConcurrentFetches);
+        private final WordTotals totals = new WordTotals(dictionary);
+        private final VisitedUrlStore visitedUrls = visitedUrlStores.get();
+        private final AtomicInteger mergedPages = new AtomicInteger();
+        private final Set<String> failedUrls = ConcurrentHashMap.newKeySet();
+        // Starts at one on behalf of the thread that submits the starting URLs, so that the crawl
+        // cannot be considered done before all of them have been submitted.
+        private final AtomicInteger pendingTasks = new AtomicInteger(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        // Merges and the submission of their links take the read lock; finish() takes the write
+        // lock, so no merge straddles it.
+        private final ReadWriteLock cancelLock = new ReentrantReadWriteLock();
+        // Set once the crawl stops waiting, so that pages still in flight leave the totals alone.
+        private volatile boolean finished;
+
+        Crawl(Instant deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * Hands the given page to the host scheduler, unless it is too deep, ignored, or already
+         * visited. The task still claims the page in the visited set, since another task may visit
+         * it in the meantime.
+         */
+        void submit(String url, int depth) {
+            if (depth <= 0 || ignoredUrls.matches(url) || visitedUrls.contains(url)) {
+                return;
+            }
+            pendingTasks.incrementAndGet();
+            scheduler.submit(url, () -> {
+                try {
+                    visit(url, depth);
+                } catch (RuntimeException e) {
+                    failedUrls.add(url);
+                } finally {
+                    taskDone();
+                }
+            });
+        }
+
+        /**
+         * Waits until every submitted page has been visited, or until the deadline has passed.
+         */
+        void awaitCompletion() {
+            taskDone();
+            long remaining = Duration.between(clock.instant(), deadline).toMillis();
+            try {
+                done.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Pages still in flight are abandoned; the results so far are returned.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        void finish() {
+            cancelLock.writeLock().lock();
+            try {
+                finished = true;
+            } finally {
+                cancelLock.writeLock().unlock();
+            }
+            scheduler.shutdown();
+            executor.shutdownNow();
+        }
+
+        private void taskDone() {
+            if (pendingTasks.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        private void visit(String url, int depth) {
+            if (finished || clock.instant().isAfter(deadline)) {
+                return;
+            }
+            // Claims the page, so that no other task downloads it. It is only counted as visited
+            // once it has been merged.
+            if (!visitedUrls.addIfAbsent(url)) {
+                return;
+            }
+            PageParser.Result result;
+            try {
+                fetchPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                result = parserFactory.get(url).parse();
+            } finally {
+                fetchPermits.release();
+            }
+            cancelLock.readLock().lock();
+            try {
+                if (finished) {
+                    return;
+                }
+                totals.add(result);
+                mergedPages.incrementAndGet();
+                for (String link : result.getLinks()) {
+                    submit(link, depth - 1);
+                }
+            } finally {
+                cancelLock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.udacity.webcrawler;
+
+/**
+ * Remembers which URLs a single crawl has already visited.
+ *
+ * <p>Implementations are safe to use from multiple threads. A new store is provided for every
+ * crawl; see {@link WebCrawlerModule}.
+ */
+interface VisitedUrlStore {
+
+    /**
+     * Marks the given URL as visited.
+     *
+     * @return true if the URL had not been visited yet, or false if it had. Of several threads
+     *     adding the same URL at the same time, only one gets true.
+     */
+    boolean addIfAbsent(String url);
+
+    /**
+     * Returns true if the given URL has been visited.
+     */
+    boolean contains(String url);
+
+    /**
+     * Returns the number of URLs that have been visited.
+     */
+    int size();
+}
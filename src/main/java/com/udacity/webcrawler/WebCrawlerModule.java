@@ -33,6 +33,9 @@ import java.util.regex.Pattern;
  */
 public final class WebCrawlerModule extends AbstractModule {
 
+  // What the visited URL store is sized for at the start of a crawl. It grows as needed.
+  private static final int INITIAL_VISITED_URLS = 1 << 16;
+
   private final CrawlerConfiguration config;
 
   /**
@@ -45,22 +48,46 @@ public final class WebCrawlerModule extends AbstractModule {
   @Override
   protected void configure() {
     // Multibinder provides a way to implement the strategy pattern through dependency injection.
+    // Implementations are bound in order of increasing max parallelism, since the first one able to
+    // handle the target parallelism is picked.
     Multibinder<WebCrawler> multibinder =
         Multibinder.newSetBinder(binder(), WebCrawler.class, Internal.class);
     multibinder.addBinding().to(SequentialWebCrawler.class);
     multibinder.addBinding().to(ParallelWebCrawler.class);
+    multibinder.addBinding().to(ForkJoinWebCrawler.class);
+    multibinder.addBinding().to(BreadthFirstWebCrawler.class);
+    multibinder.addBinding().to(BestFirstWebCrawler.class);
+    multibinder.addBinding().to(PipelinedWebCrawler.class);
+    multibinder.addBinding().to(VirtualThreadWebCrawler.class);
 
     bind(Clock.class).toInstance(Clock.systemUTC());
+    bind(LinkScorer.class).to(DefaultLinkScorer.class);
     bind(Key.get(Integer.class, MaxDepth.class)).toInstance(config.getMaxDepth());
     bind(Key.get(Integer.class, PopularWordCount.class)).toInstance(config.getPopularWordCount());
     bind(Key.get(Duration.class, Timeout.class)).toInstance(config.getTimeout());
     bind(new Key<List<Pattern>>(IgnoredUrls.class) {
     }).toInstance(config.getIgnoredUrls());
+    bind(Key.get(Integer.class, MaxRequestsPerHost.class))
+        .toInstance(config.getMaxRequestsPerHost());
+    bind(Key.get(Duration.class, PolitenessDelay.class)).toInstance(config.getPolitenessDelay());
+    bind(Key.get(Boolean.class, AdaptiveParallelism.class))
+        .toInstance(config.isAdaptiveParallelism());
+    bind(Key.get(String.class, CheckpointPath.class)).toInstance(config.getCheckpointPath());
+    bind(Key.get(Duration.class, CheckpointInterval.class))
+        .toInstance(config.getCheckpointInterval());
+    bind(Key.get(Boolean.class, ResumeFromCheckpoint.class))
+        .toInstance(config.isResumeFromCheckpoint());
 
     install(
         new ParserModule.Builder()
             .setTimeout(config.getTimeout())
             .setIgnoredWords(config.getIgnoredWords())
+            .setStrippedQueryParameters(config.getStrippedQueryParameters())
+            .setSortQueryParameters(config.isSortQueryParameters())
+            .setStreamingParser(config.getHtmlParser().equals("streaming"))
+            .setParseCacheSize(config.getParseCacheSize())
+            .setNearDuplicateDistance(config.getNearDuplicateDistance())
+            .setNearDuplicateCapacity(config.getNearDuplicateCapacity())
             .build());
   }
 
@@ -88,6 +115,25 @@ public final class WebCrawlerModule extends AbstractModule {
                     config.getParallelism() + "\"."));
   }
 
+  /**
+   * Provides a new, empty store for each crawl. {@code "exact"} is the old name of the
+   * {@code "fingerprint"} store.
+   */
+  @Provides
+  VisitedUrlStore provideVisitedUrlStore() {
+    switch (config.getVisitedUrlStore()) {
+      case "compact":
+        return new FrontCodedUrlSet();
+      case "bloom":
+        return new BloomFilterVisitedUrlStore(
+            INITIAL_VISITED_URLS, config.getVisitedUrlFalsePositiveRate());
+      case "fingerprint":
+      case "exact":
+      default:
+        return new FingerprintSet(INITIAL_VISITED_URLS);
+    }
+  }
+
   @Provides
   @Singleton
   @TargetParallelism
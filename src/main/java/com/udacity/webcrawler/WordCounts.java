@@ -1,6 +1,7 @@
 package com.udacity.webcrawler;
 
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -38,7 +39,8 @@ final class WordCounts {
                     return a.getKey().compareTo(b.getKey());
                 }))
                 .limit(Math.min(popularWordCount, wordCounts.size()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
     }
 
     private WordCounts() {
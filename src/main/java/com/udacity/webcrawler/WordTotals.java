@@ -0,0 +1,87 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.WordDictionary;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The word counts of a crawl, added up in arrays indexed by the IDs of a {@link WordDictionary}.
+ *
+ * <p>Adding the counts of a page takes one atomic add per distinct word on the page, without
+ * hashing or boxing anything, so pages can be added from many threads at once. The counts are kept
+ * in chunks that are created as the dictionary hands out IDs. Words are only turned back into
+ * strings by {@link #toMap()}, once the crawl is over.
+ */
+final class WordTotals {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final WordDictionary dictionary;
+    private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+
+    WordTotals(WordDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Adds the word counts of the given page.
+     */
+    void add(PageParser.Result result) {
+        result.forEachWord(dictionary, this::add);
+    }
+
+    /**
+     * Adds the given word counts, such as those loaded from a checkpoint.
+     */
+    void addAll(Map<String, Integer> counts) {
+        counts.forEach((word, count) -> add(dictionary.intern(word), count));
+    }
+
+    private void add(int wordId, int count) {
+        chunkFor(wordId).addAndGet(wordId & (CHUNK_SIZE - 1), count);
+    }
+
+    private AtomicIntegerArray chunkFor(int wordId) {
+        int chunk = wordId >>> CHUNK_BITS;
+        AtomicIntegerArray[] current = chunks;
+        if (chunk < current.length && current[chunk] != null) {
+            return current[chunk];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunk >= current.length) {
+                current = Arrays.copyOf(current, Math.max(chunk + 1, current.length * 2));
+            }
+            if (current[chunk] == null) {
+                current[chunk] = new AtomicIntegerArray(CHUNK_SIZE);
+            }
+            chunks = current;
+            return current[chunk];
+        }
+    }
+
+    /**
+     * Returns a new map of each word that was counted to its total count.
+     */
+    Map<String, Integer> toMap() {
+        Map<String, Integer> counts = new HashMap<>();
+        AtomicIntegerArray[] current = chunks;
+        for (int chunk = 0; chunk < current.length; chunk++) {
+            if (current[chunk] == null) {
+                continue;
+            }
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                int count = current[chunk].get(i);
+                if (count != 0) {
+                    counts.put(dictionary.word((chunk << CHUNK_BITS) | i), count);
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -27,6 +27,20 @@ public final class CrawlerConfiguration {
   private final int popularWordCount;
   private final String profileOutputPath;
   private final String resultPath;
+  private final int maxRequestsPerHost;
+  private final Duration politenessDelay;
+  private final boolean adaptiveParallelism;
+  private final String checkpointPath;
+  private final Duration checkpointInterval;
+  private final boolean resumeFromCheckpoint;
+  private final List<String> strippedQueryParameters;
+  private final boolean sortQueryParameters;
+  private final String visitedUrlStore;
+  private final double visitedUrlFalsePositiveRate;
+  private final String htmlParser;
+  private final int parseCacheSize;
+  private final int nearDuplicateDistance;
+  private final int nearDuplicateCapacity;
 
   private CrawlerConfiguration(
       List<String> startPages,
@@ -38,7 +52,21 @@ public final class CrawlerConfiguration {
       Duration timeout,
       int popularWordCount,
       String profileOutputPath,
-      String resultPath) {
+      String resultPath,
+      int maxRequestsPerHost,
+      Duration politenessDelay,
+      boolean adaptiveParallelism,
+      String checkpointPath,
+      Duration checkpointInterval,
+      boolean resumeFromCheckpoint,
+      List<String> strippedQueryParameters,
+      boolean sortQueryParameters,
+      String visitedUrlStore,
+      double visitedUrlFalsePositiveRate,
+      String htmlParser,
+      int parseCacheSize,
+      int nearDuplicateDistance,
+      int nearDuplicateCapacity) {
     this.startPages = startPages;
     this.ignoredUrls = ignoredUrls;
     this.ignoredWords = ignoredWords;
@@ -49,6 +77,20 @@ public final class CrawlerConfiguration {
     this.popularWordCount = popularWordCount;
     this.profileOutputPath = profileOutputPath;
     this.resultPath = resultPath;
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    this.politenessDelay = politenessDelay;
+    this.adaptiveParallelism = adaptiveParallelism;
+    this.checkpointPath = checkpointPath;
+    this.checkpointInterval = checkpointInterval;
+    this.resumeFromCheckpoint = resumeFromCheckpoint;
+    this.strippedQueryParameters = strippedQueryParameters;
+    this.sortQueryParameters = sortQueryParameters;
+    this.visitedUrlStore = visitedUrlStore;
+    this.visitedUrlFalsePositiveRate = visitedUrlFalsePositiveRate;
+    this.htmlParser = htmlParser;
+    this.parseCacheSize = parseCacheSize;
+    this.nearDuplicateDistance = nearDuplicateDistance;
+    this.nearDuplicateCapacity = nearDuplicateCapacity;
   }
 
   /**
@@ -82,6 +124,11 @@ public final class CrawlerConfiguration {
    * <p>If set to 1, the legacy sequential crawler will be used (unless
    * {@link #getImplementationOverride()} explicitly specifies otherwise). If set to a value less
    * than 1, the crawler will default to using the number of available CPU cores on the system.
+   *
+   * <p>If set to a value greater than the number of available CPU cores, a crawler that runs each
+   * page on its own thread is used, and this value caps the number of pages that are downloaded at
+   * the same time. Those threads are virtual threads on a Java 21 or later runtime. On older
+   * runtimes they fall back to a fixed pool of this many platform threads.
    */
   public int getParallelism() {
     return parallelism;
@@ -174,6 +221,163 @@ public final class CrawlerConfiguration {
     return resultPath;
   }
 
+  /**
+   * The maximum number of requests that may be in flight to the same host at any time. This
+   * setting is optional.
+   *
+   * <p>If set to a value less than 1, the number of requests per host is not limited.
+   */
+  public int getMaxRequestsPerHost() {
+    return maxRequestsPerHost;
+  }
+
+  /**
+   * The minimum amount of time between the starts of two requests to the same host. This setting is
+   * optional, and defaults to zero.
+   */
+  public Duration getPolitenessDelay() {
+    return politenessDelay;
+  }
+
+  /**
+   * Whether the number of crawler threads should be adjusted during the crawl. This setting is
+   * optional, and defaults to false.
+   *
+   * <p>If true, {@link #getParallelism()} is only the starting number of threads. The crawler then
+   * adds threads while work is waiting and the CPU has capacity to spare, and removes threads when
+   * the CPU is saturated or downloads get slower.
+   */
+  public boolean isAdaptiveParallelism() {
+    return adaptiveParallelism;
+  }
+
+  /**
+   * Path to the file where the progress of the crawl is saved, so that a crawl that dies can be
+   * resumed. This setting is optional.
+   *
+   * <p>If this value is empty, no checkpoint is written.
+   */
+  public String getCheckpointPath() {
+    return checkpointPath;
+  }
+
+  /**
+   * How often the progress of the crawl is written to the checkpoint file. This setting is optional,
+   * and defaults to 10 seconds.
+   */
+  public Duration getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  /**
+   * Whether the crawl should continue from the checkpoint file, if there is one, instead of
+   * starting over. This setting is optional, and defaults to false.
+   *
+   * <p>When resuming, the pages recorded in the checkpoint are not crawled again, their word counts
+   * are included in the result, and the crawl carries on with the pages they link to.
+   */
+  public boolean isResumeFromCheckpoint() {
+    return resumeFromCheckpoint;
+  }
+
+  /**
+   * An unmodifiable {@link List} of names of query parameters, such as tracking parameters, that
+   * are removed from links before they are crawled. A name that ends with {@code *} matches every
+   * parameter that starts with the rest of the name, for example {@code "utm_*"}.
+   *
+   * <p>Links are always put in a canonical form before they are crawled, so that the same page is
+   * not crawled twice under different spellings of its URL. See
+   * {@link com.udacity.webcrawler.parser.UrlCanonicalizer}.
+   */
+  public List<String> getStrippedQueryParameters() {
+    return strippedQueryParameters;
+  }
+
+  /**
+   * Whether the query parameters of links are sorted by name before they are crawled. This setting
+   * is optional, and defaults to false.
+   */
+  public boolean isSortQueryParameters() {
+    return sortQueryParameters;
+  }
+
+  /**
+   * How the crawler remembers which URLs it has visited: {@code "fingerprint"}, {@code "compact"}
+   * or {@code "bloom"}. This setting is optional, and defaults to {@code "fingerprint"}.
+   * {@code "exact"}, the old name of the fingerprint store, is still accepted.
+   *
+   * <p>The fingerprint store keeps a 64-bit fingerprint of every URL on the heap. Two URLs share a
+   * fingerprint with a probability of about 2<sup>-64</sup>, so a crawl of {@code n} URLs skips a
+   * page it has never visited with a probability of about n<sup>2</sup>/2<sup>65</sup>: roughly 1
+   * in 3,700 for 100 million URLs. The compact store keeps the URLs themselves, with the prefixes
+   * they share stored once, so it never mistakes one URL for another. The bloom store keeps a Bloom
+   * filter off the heap, which takes a fraction of the memory for crawls of many millions of URLs,
+   * but skips a small share of pages it has never visited; see
+   * {@link #getVisitedUrlFalsePositiveRate()}.
+   */
+  public String getVisitedUrlStore() {
+    return visitedUrlStore;
+  }
+
+  /**
+   * The highest acceptable chance that the bloom visited URL store takes a URL that was never
+   * visited to have been visited, so that its page is not crawled. This setting is optional, and
+   * defaults to 0.01. It has no effect on the other stores.
+   */
+  public double getVisitedUrlFalsePositiveRate() {
+    return visitedUrlFalsePositiveRate;
+  }
+
+  /**
+   * How pages are parsed: {@code "jsoup"} or {@code "streaming"}. This setting is optional, and
+   * defaults to {@code "jsoup"}.
+   *
+   * <p>The jsoup parser builds a document tree for each page. The streaming parser reads the text
+   * and links straight out of the page, which is several times cheaper, and finds the same words
+   * and links on all but unusually malformed pages.
+   */
+  public String getHtmlParser() {
+    return htmlParser;
+  }
+
+  /**
+   * The number of parse results to keep, so that a page whose body has already been parsed is not
+   * parsed again. This setting is optional, and defaults to 1024. Zero disables the cache.
+   *
+   * <p>Remote pages are matched by their content, which catches the same page downloaded under
+   * different URLs. Local files are matched by URL, for as long as they are not modified.
+   */
+  public int getParseCacheSize() {
+    return parseCacheSize;
+  }
+
+  /**
+   * The most bits in which the 64-bit SimHashes of two pages may differ for the later page to be
+   * skipped as a near-duplicate of the earlier one: its words are not counted and its links are
+   * not followed. This setting is optional, and defaults to -1, which disables the check. It can
+   * be at most 15; 3 is a good choice for pages that differ only by a date or a session token.
+   *
+   * <p>The SimHash of a page is built from its words and their frequencies, so pages that share
+   * most of their words get SimHashes that differ in few bits. Pages with fewer than 8 distinct
+   * words are never skipped.
+   */
+  public int getNearDuplicateDistance() {
+    return nearDuplicateDistance;
+  }
+
+  /**
+   * The most page fingerprints kept to find near-duplicates. This setting is optional, and
+   * defaults to 1048576. Once that many pages have been fingerprinted, later pages are still
+   * checked against them but are not remembered themselves.
+   *
+   * <p>The fingerprints are kept in arrays allocated up front, which take
+   * {@code 8 * (nearDuplicateDistance + 2)} bytes per fingerprint. See
+   * {@link #getNearDuplicateDistance()}.
+   */
+  public int getNearDuplicateCapacity() {
+    return nearDuplicateCapacity;
+  }
+
   /**
    * A builder class to create {@link CrawlerConfiguration} instances.
    */
@@ -188,6 +392,20 @@ public final class CrawlerConfiguration {
     private int popularWordCount = 0;
     private String profileOutputPath = "";
     private String resultPath = "";
+    private int maxRequestsPerHost = 0;
+    private int politenessDelayMillis = 0;
+    private boolean adaptiveParallelism = false;
+    private String checkpointPath = "";
+    private int checkpointIntervalSeconds = 10;
+    private boolean resumeFromCheckpoint = false;
+    private final Set<String> strippedQueryParameters = new LinkedHashSet<>();
+    private boolean sortQueryParameters = false;
+    private String visitedUrlStore = "fingerprint";
+    private double visitedUrlFalsePositiveRate = 0.01;
+    private String htmlParser = "jsoup";
+    private int parseCacheSize = 1024;
+    private int nearDuplicateDistance = -1;
+    private int nearDuplicateCapacity = 1 << 20;
 
     /**
      * Adds a start page URL.
@@ -314,6 +532,162 @@ public final class CrawlerConfiguration {
       return this;
     }
 
+    /**
+     * Sets the maximum number of requests that may be in flight to the same host.
+     *
+     * <p>See {@link #getMaxRequestsPerHost()}.
+     */
+    @JsonProperty("maxRequestsPerHost")
+    public Builder setMaxRequestsPerHost(int maxRequestsPerHost) {
+      this.maxRequestsPerHost = maxRequestsPerHost;
+      return this;
+    }
+
+    /**
+     * Sets the minimum time between two requests to the same host, specified in milliseconds.
+     *
+     * <p>See {@link #getPolitenessDelay()}.
+     */
+    @JsonProperty("politenessDelayMillis")
+    public Builder setPolitenessDelayMillis(int millis) {
+      this.politenessDelayMillis = millis;
+      return this;
+    }
+
+    /**
+     * Sets whether the number of crawler threads should be adjusted during the crawl.
+     *
+     * <p>See {@link #isAdaptiveParallelism()}.
+     */
+    @JsonProperty("adaptiveParallelism")
+    public Builder setAdaptiveParallelism(boolean adaptiveParallelism) {
+      this.adaptiveParallelism = adaptiveParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the path to the file where the progress of the crawl should be saved.
+     *
+     * <p>See {@link #getCheckpointPath()}.
+     */
+    @JsonProperty("checkpointPath")
+    public Builder setCheckpointPath(String checkpointPath) {
+      this.checkpointPath = Objects.requireNonNull(checkpointPath);
+      return this;
+    }
+
+    /**
+     * Sets how often the progress of the crawl should be saved, specified in seconds.
+     *
+     * <p>See {@link #getCheckpointInterval()}.
+     */
+    @JsonProperty("checkpointIntervalSeconds")
+    public Builder setCheckpointIntervalSeconds(int seconds) {
+      this.checkpointIntervalSeconds = seconds;
+      return this;
+    }
+
+    /**
+     * Sets whether the crawl should continue from the checkpoint file.
+     *
+     * <p>See {@link #isResumeFromCheckpoint()}.
+     */
+    @JsonProperty("resumeFromCheckpoint")
+    public Builder setResumeFromCheckpoint(boolean resumeFromCheckpoint) {
+      this.resumeFromCheckpoint = resumeFromCheckpoint;
+      return this;
+    }
+
+    /**
+     * Adds names of query parameters that should be removed from links.
+     *
+     * <p>See {@link #getStrippedQueryParameters()}.
+     */
+    @JsonProperty("strippedQueryParameters")
+    public Builder addStrippedQueryParameters(String... names) {
+      for (String name : names) {
+        strippedQueryParameters.add(Objects.requireNonNull(name));
+      }
+      return this;
+    }
+
+    /**
+     * Sets whether the query parameters of links should be sorted.
+     *
+     * <p>See {@link #isSortQueryParameters()}.
+     */
+    @JsonProperty("sortQueryParameters")
+    public Builder setSortQueryParameters(boolean sortQueryParameters) {
+      this.sortQueryParameters = sortQueryParameters;
+      return this;
+    }
+
+    /**
+     * Sets how the crawler remembers which URLs it has visited.
+     *
+     * <p>See {@link #getVisitedUrlStore()}.
+     */
+    @JsonProperty("visitedUrlStore")
+    public Builder setVisitedUrlStore(String visitedUrlStore) {
+      this.visitedUrlStore = Objects.requireNonNull(visitedUrlStore);
+      return this;
+    }
+
+    /**
+     * Sets the false positive rate of the bloom visited URL store.
+     *
+     * <p>See {@link #getVisitedUrlFalsePositiveRate()}.
+     */
+    @JsonProperty("visitedUrlFalsePositiveRate")
+    public Builder setVisitedUrlFalsePositiveRate(double visitedUrlFalsePositiveRate) {
+      this.visitedUrlFalsePositiveRate = visitedUrlFalsePositiveRate;
+      return this;
+    }
+
+    /**
+     * Sets how pages are parsed.
+     *
+     * <p>See {@link #getHtmlParser()}.
+     */
+    @JsonProperty("htmlParser")
+    public Builder setHtmlParser(String htmlParser) {
+      this.htmlParser = Objects.requireNonNull(htmlParser);
+      return this;
+    }
+
+    /**
+     * Sets the number of parse results to keep.
+     *
+     * <p>See {@link #getParseCacheSize()}.
+     */
+    @JsonProperty("parseCacheSize")
+    public Builder setParseCacheSize(int parseCacheSize) {
+      this.parseCacheSize = parseCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets the most bits in which the SimHashes of near-duplicate pages differ.
+     *
+     * <p>See {@link #getNearDuplicateDistance()}.
+     */
+    @JsonProperty("nearDuplicateDistance")
+    public Builder setNearDuplicateDistance(int nearDuplicateDistance) {
+      this.nearDuplicateDistance = nearDuplicateDistance;
+      return this;
+    }
+
+    /**
+     * Sets the most page fingerprints kept to find near-duplicates.
+     *
+     * <p>See {@link #getNearDuplicateCapacity()}.
+     */
+    @JsonProperty("nearDuplicateCapacity")
+    public Builder setNearDuplicateCapacity(int nearDuplicateCapacity) {
+      this.nearDuplicateCapacity = nearDuplicateCapacity;
+      return this;
+    }
+
     /**
      * Constructs a {@link CrawlerConfiguration} from this builder.
      */
@@ -327,6 +701,31 @@ public final class CrawlerConfiguration {
       if (popularWordCount < 0) {
         throw new IllegalArgumentException("popularWordCount cannot be negative");
       }
+      if (politenessDelayMillis < 0) {
+        throw new IllegalArgumentException("politenessDelayMillis cannot be negative");
+      }
+      if (checkpointIntervalSeconds <= 0) {
+        throw new IllegalArgumentException("checkpointIntervalSeconds must be positive");
+      }
+      if (!Set.of("fingerprint", "exact", "compact", "bloom").contains(visitedUrlStore)) {
+        throw new IllegalArgumentException(
+            "visitedUrlStore must be \"fingerprint\", \"compact\" or \"bloom\"");
+      }
+      if (!(visitedUrlFalsePositiveRate > 0 && visitedUrlFalsePositiveRate < 1)) {
+        throw new IllegalArgumentException("visitedUrlFalsePositiveRate must be between 0 and 1");
+      }
+      if (!Set.of("jsoup", "streaming").contains(htmlParser)) {
+        throw new IllegalArgumentException("htmlParser must be \"jsoup\" or \"streaming\"");
+      }
+      if (parseCacheSize < 0) {
+        throw new IllegalArgumentException("parseCacheSize cannot be negative");
+      }
+      if (nearDuplicateDistance < -1 || nearDuplicateDistance > 15) {
+        throw new IllegalArgumentException("nearDuplicateDistance must be between -1 and 15");
+      }
+      if (nearDuplicateCapacity < 0 || nearDuplicateCapacity > 1 << 28) {
+        throw new IllegalArgumentException("nearDuplicateCapacity must be between 0 and 2^28");
+      }
 
       return new CrawlerConfiguration(
           startPages.stream().collect(Collectors.toUnmodifiableList()),
@@ -338,7 +737,21 @@ public final class CrawlerConfiguration {
           Duration.ofSeconds(timeoutSeconds),
           popularWordCount,
           profileOutputPath,
-          resultPath);
+          resultPath,
+          maxRequestsPerHost,
+          Duration.ofMillis(politenessDelayMillis),
+          adaptiveParallelism,
+          checkpointPath,
+          Duration.ofSeconds(checkpointIntervalSeconds),
+          resumeFromCheckpoint,
+          List.copyOf(strippedQueryParameters),
+          sortQueryParameters,
+          visitedUrlStore,
+          visitedUrlFalsePositiveRate,
+          htmlParser,
+          parseCacheSize,
+          nearDuplicateDistance,
+          nearDuplicateCapacity);
     }
   }
 }
@@ -0,0 +1,55 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Objects;
+
+/**
+ * The raw body of a page that has been downloaded but not parsed yet.
+ */
+public final class FetchedPage {
+  private final String url;
+  private final String baseUri;
+  private final byte[] body;
+  private final String charset;
+
+  /**
+   * Creates a fetched page.
+   *
+   * @param url     the URL that was requested.
+   * @param baseUri the URI that relative links in the page are resolved against, which differs
+   *                from the requested URL after a redirect. Empty for local files.
+   * @param body    the raw bytes of the page.
+   * @param charset the character set of the body, or null to detect it from the page.
+   */
+  FetchedPage(String url, String baseUri, byte[] body, String charset) {
+    this.url = Objects.requireNonNull(url);
+    this.baseUri = Objects.requireNonNull(baseUri);
+    this.body = Objects.requireNonNull(body);
+    this.charset = charset;
+  }
+
+  /**
+   * Returns the URL that was requested.
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  String getBaseUri() {
+    return baseUri;
+  }
+
+  byte[] getBody() {
+    return body;
+  }
+
+  String getCharset() {
+    return charset;
+  }
+
+  /**
+   * Returns the size of the body in bytes.
+   */
+  public int size() {
+    return body.length;
+  }
+}
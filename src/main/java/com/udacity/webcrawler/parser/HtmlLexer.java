@@ -0,0 +1,550 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.nodes.Entities;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * A minimal HTML lexer that reports the text of a page and the few tags the crawler cares about,
+ * without building a document tree.
+ *
+ * <p>The lexer follows the tokenization rules of the HTML standard closely enough for the text and
+ * links it reports to be the same as those of a Jsoup {@link org.jsoup.nodes.Document}, on the
+ * pages that a crawler will meet in practice: comments, doctypes and processing instructions are
+ * skipped, quoted attribute values may contain {@code >}, the contents of {@code script} and
+ * {@code style} elements are skipped, and the contents of {@code title}, {@code textarea} and the
+ * other raw text elements are reported as text even if they look like markup. Tree construction
+ * is left out. It only changes the text and links of a page in rare cases, such as links inside a
+ * {@code <select>} element, which Jsoup drops.
+ *
+ * <p>Text is reported in place, as a range of the page, so lexing a page allocates little more
+ * than the attribute values it reports.
+ */
+final class HtmlLexer {
+
+  /**
+   * Receives the parts of a page, in document order.
+   */
+  interface Handler {
+
+    /**
+     * Called for each run of text between two tags, with its character references, such as
+     * {@code &amp;}, decoded. The characters are only valid until this method returns.
+     *
+     * @param text  the page, or a buffer that holds the decoded text.
+     * @param start the index of the first character of the text.
+     * @param end   the index after the last character of the text.
+     */
+    void text(CharSequence text, int start, int end);
+
+    /**
+     * Called for each {@code <a>} start tag that has an {@code href} attribute, with the decoded
+     * value of the attribute.
+     */
+    void anchor(String href);
+
+    /**
+     * Called for each {@code <base>} start tag that has an {@code href} attribute, with the decoded
+     * value of the attribute.
+     */
+    void base(String href);
+
+    /**
+     * Called for each {@code <meta>} start tag, with the decoded values of its
+     * {@code http-equiv}, {@code content} and {@code charset} attributes, which are null when
+     * missing.
+     */
+    void meta(String httpEquiv, String content, String charset);
+  }
+
+  // Elements whose contents are not markup: skipped ones, and ones whose contents are text, with
+  // or without character references.
+  private static final String[] SKIPPED_ELEMENTS = {"script", "style"};
+  private static final String[] RAW_TEXT_ELEMENTS = {"xmp", "iframe", "noembed", "noframes"};
+  private static final String[] ESCAPABLE_RAW_TEXT_ELEMENTS = {"title", "textarea"};
+
+  // The attributes of the current tag that a handler is interested in.
+  private static final int HREF = 0;
+  private static final int HTTP_EQUIV = 1;
+  private static final int CONTENT = 2;
+  private static final int CHARSET = 3;
+  private static final String[] ATTRIBUTES = {"href", "http-equiv", "content", "charset"};
+
+  // What numeric references to 0x80 through 0x9f stand for.
+  private static final char[] WINDOWS_1252 = {
+      '\u20ac', '\u0081', '\u201a', '\u0192', '\u201e', '\u2026', '\u2020', '\u2021',
+      '\u02c6', '\u2030', '\u0160', '\u2039', '\u0152', '\u008d', '\u017d', '\u008f',
+      '\u0090', '\u2018', '\u2019', '\u201c', '\u201d', '\u2022', '\u2013', '\u2014',
+      '\u02dc', '\u2122', '\u0161', '\u203a', '\u0153', '\u009d', '\u017e', '\u0178'};
+
+  private final char[] html;
+  private final int length;
+  private final CharSequence page;
+  private final Handler handler;
+  private final String[] attributes = new String[ATTRIBUTES.length];
+  // The decoded text of the current run of text, if it has character references or "</>"s, which
+  // are dropped without ending the run.
+  private final StringBuilder decoded = new StringBuilder();
+
+  private HtmlLexer(char[] html, int length, Handler handler) {
+    this.html = html;
+    this.length = length;
+    this.page = CharBuffer.wrap(html, 0, length);
+    this.handler = handler;
+  }
+
+  /**
+   * Lexes the first {@code length} characters of {@code html}, passing the parts of the page to the
+   * given handler.
+   */
+  static void lex(char[] html, int length, Handler handler) {
+    new HtmlLexer(html, length, handler).lex();
+  }
+
+  private void lex() {
+    // A byte order mark that was decoded along with the page is not part of it.
+    int textStart = (length > 0 && html[0] == '\ufeff') ? 1 : 0;
+    int i = textStart;
+    while ((i = indexOf('<', i, length)) >= 0 && i + 1 < length) {
+      char next = html[i + 1];
+      int end;
+      if (isAsciiLetter(next)) {
+        text(textStart, i, true);
+        end = startTag(i + 1);
+      } else if (next == '/' && i + 2 < length && html[i + 2] == '>') {
+        // Character references do not reach across the dropped tag.
+        decode(html, textStart, i, false, decoded);
+        i += 3;
+        textStart = i;
+        continue;
+      } else if (next == '/' && i + 2 < length) {
+        text(textStart, i, true);
+        end = endTag(i + 2);
+      } else if (next == '!') {
+        text(textStart, i, true);
+        end = startsWith(i + 2, "--") ? comment(i + 4) : bogusComment(i + 2);
+      } else if (next == '?') {
+        text(textStart, i, true);
+        end = bogusComment(i + 1);
+      } else {
+        // A "<" that does not start a tag is text.
+        i++;
+        continue;
+      }
+      if (end < 0) {
+        // The page ends inside a tag, which is dropped.
+        return;
+      }
+      i = end;
+      textStart = end;
+    }
+    text(textStart, length, true);
+  }
+
+  private void text(int start, int end, boolean characterReferences) {
+    if (decoded.length() == 0 && (!characterReferences || indexOf('&', start, end) < 0)) {
+      if (start < end) {
+        handler.text(page, start, end);
+      }
+      return;
+    }
+    if (characterReferences) {
+      decode(html, start, end, false, decoded);
+    } else {
+      decoded.append(html, start, end - start);
+    }
+    handler.text(decoded, 0, decoded.length());
+    decoded.setLength(0);
+  }
+
+  /**
+   * Lexes the start tag whose name begins at {@code nameStart}, along with the contents of the
+   * element if they are not markup.
+   *
+   * @return the index after the tag, or after the contents if they were consumed, or -1 if the
+   *     page ends inside the tag.
+   */
+  private int startTag(int nameStart) {
+    int nameEnd = tagNameEnd(nameStart);
+    boolean anchor = isName(nameStart, nameEnd, "a");
+    boolean base = !anchor && isName(nameStart, nameEnd, "base");
+    boolean meta = !anchor && !base && isName(nameStart, nameEnd, "meta");
+    int end = attributes(nameEnd, anchor || base || meta);
+    if (end < 0) {
+      return -1;
+    }
+    if (anchor && attributes[HREF] != null) {
+      handler.anchor(attributes[HREF]);
+    } else if (base && attributes[HREF] != null) {
+      handler.base(attributes[HREF]);
+    } else if (meta) {
+      handler.meta(attributes[HTTP_EQUIV], attributes[CONTENT], attributes[CHARSET]);
+    }
+
+    if (isAnyName(nameStart, nameEnd, SKIPPED_ELEMENTS)) {
+      return endOfContents(end, nameStart, nameEnd);
+    }
+    boolean rawText = isAnyName(nameStart, nameEnd, RAW_TEXT_ELEMENTS);
+    if (rawText || isAnyName(nameStart, nameEnd, ESCAPABLE_RAW_TEXT_ELEMENTS)) {
+      int contentsEnd = endOfContents(end, nameStart, nameEnd);
+      text(end, contentsEnd, !rawText);
+      return contentsEnd;
+    }
+    if (isName(nameStart, nameEnd, "plaintext")) {
+      // Nothing after a <plaintext> tag is markup, not even its end tag.
+      text(end, length, false);
+      return length;
+    }
+    return end;
+  }
+
+  /**
+   * Lexes the end tag whose name begins at {@code nameStart}.
+   *
+   * @return the index after the tag, or -1 if the page ends inside the tag.
+   */
+  private int endTag(int nameStart) {
+    if (!isAsciiLetter(html[nameStart])) {
+      return bogusComment(nameStart);
+    }
+    // End tags may have attributes, which are ignored.
+    return attributes(tagNameEnd(nameStart), false);
+  }
+
+  /**
+   * Returns the index where the contents of the element that starts at {@code contentsStart} end,
+   * which is where its end tag begins, or the end of the page.
+   */
+  private int endOfContents(int contentsStart, int nameStart, int nameEnd) {
+    int nameLength = nameEnd - nameStart;
+    int i = contentsStart;
+    while ((i = indexOf('<', i, length)) >= 0) {
+      int after = i + 2 + nameLength;
+      if (after < length
+          && html[i + 1] == '/'
+          && equalsIgnoreCase(i + 2, nameStart, nameLength)
+          && (isSpace(html[after]) || html[after] == '/' || html[after] == '>')) {
+        return i;
+      }
+      i++;
+    }
+    return length;
+  }
+
+  /**
+   * Skips a comment whose text begins at {@code start}.
+   *
+   * @return the index after the comment.
+   */
+  private int comment(int start) {
+    // "<!-->" and "<!--->" are empty comments.
+    if (startsWith(start, ">")) {
+      return start + 1;
+    }
+    if (startsWith(start, "->")) {
+      return start + 2;
+    }
+    for (int i = indexOf('-', start, length); i >= 0; i = indexOf('-', i + 1, length)) {
+      if (startsWith(i, "-->")) {
+        return i + 3;
+      }
+      if (startsWith(i, "--!>")) {
+        return i + 4;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Skips a doctype, processing instruction or other markup that is lexed as a comment that ends
+   * at the next {@code >}.
+   *
+   * @return the index after the comment.
+   */
+  private int bogusComment(int start) {
+    int end = indexOf('>', start, length);
+    return (end < 0) ? length : end + 1;
+  }
+
+  private int tagNameEnd(int nameStart) {
+    int i = nameStart;
+    while (i < length) {
+      char c = html[i];
+      if (isSpace(c) || c == '/' || c == '>' || c == '<') {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Lexes the attributes of a tag, up to and including the {@code >} that ends it. If
+   * {@code record} is true, the first value of each of the {@link #ATTRIBUTES} is decoded and kept
+   * in {@link #attributes}.
+   *
+   * @return the index after the tag, or -1 if the page ends inside the tag.
+   */
+  private int attributes(int start, boolean record) {
+    if (record) {
+      Arrays.fill(attributes, null);
+    }
+    int i = start;
+    while (true) {
+      while (i < length && (isSpace(html[i]) || html[i] == '/')) {
+        i++;
+      }
+      if (i >= length) {
+        return -1;
+      }
+      if (html[i] == '>') {
+        return i + 1;
+      }
+      if (html[i] == '<') {
+        // Like Jsoup, which ends the tag before a "<" that is not part of an attribute.
+        return i;
+      }
+
+      // An attribute name may start with "=".
+      int nameStart = i++;
+      while (i < length) {
+        char c = html[i];
+        if (isSpace(c) || c == '/' || c == '>' || c == '=') {
+          break;
+        }
+        i++;
+      }
+      int nameEnd = i;
+      while (i < length && isSpace(html[i])) {
+        i++;
+      }
+
+      int valueStart = i;
+      int valueEnd = i;
+      if (i < length && html[i] == '=') {
+        i++;
+        while (i < length && isSpace(html[i])) {
+          i++;
+        }
+        if (i >= length) {
+          return -1;
+        }
+        char quote = html[i];
+        if (quote == '"' || quote == '\'') {
+          int close = indexOf(quote, i + 1, length);
+          if (close < 0) {
+            return -1;
+          }
+          valueStart = i + 1;
+          valueEnd = close;
+          i = close + 1;
+        } else {
+          valueStart = i;
+          while (i < length && !isSpace(html[i]) && html[i] != '>') {
+            i++;
+          }
+          valueEnd = i;
+        }
+      }
+
+      if (record) {
+        for (int a = 0; a < ATTRIBUTES.length; a++) {
+          // Like Jsoup, keep the first of duplicate attributes.
+          if (attributes[a] == null && isName(nameStart, nameEnd, ATTRIBUTES[a])) {
+            attributes[a] = attributeValue(valueStart, valueEnd);
+          }
+        }
+      }
+    }
+  }
+
+  private String attributeValue(int start, int end) {
+    if (indexOf('&', start, end) < 0) {
+      return new String(html, start, end - start);
+    }
+    StringBuilder value = new StringBuilder(end - start);
+    decode(html, start, end, true, value);
+    return value.toString();
+  }
+
+  /**
+   * Appends the characters of {@code html} between {@code start} and {@code end} to {@code out},
+   * with their character references decoded.
+   *
+   * <p>This follows {@code Tokeniser.consumeCharacterReference()} of Jsoup, which does not match
+   * named references by their longest prefix like the HTML standard does. Jsoup's own
+   * {@link org.jsoup.parser.Parser#unescapeEntities(String, boolean)} gives the same result, but
+   * allocates a whole tokenizer and its buffers for each call.
+   *
+   * @param inAttribute whether the text is an attribute value, where a named reference without a
+   *                    semicolon is not decoded if it is followed by a letter, digit, {@code =},
+   *                    {@code -} or {@code _}.
+   */
+  static void decode(char[] html, int start, int end, boolean inAttribute, StringBuilder out) {
+    int i = start;
+    while (i < end) {
+      int amp = i;
+      while (amp < end && html[amp] != '&') {
+        amp++;
+      }
+      out.append(html, i, amp - i);
+      if (amp == end) {
+        return;
+      }
+      int referenceEnd = decodeReference(html, amp + 1, end, inAttribute, out);
+      if (referenceEnd < 0) {
+        out.append('&');
+        i = amp + 1;
+      } else {
+        i = referenceEnd;
+      }
+    }
+  }
+
+  /**
+   * Decodes the character reference that follows an {@code &} at {@code start - 1}.
+   *
+   * @return the index after the reference, or -1 if there is none, in which case nothing is
+   *     appended.
+   */
+  private static int decodeReference(
+      char[] html, int start, int end, boolean inAttribute, StringBuilder out) {
+    if (start >= end || "\t\n\r\f <&".indexOf(html[start]) >= 0) {
+      return -1;
+    }
+    int i = start;
+    if (html[i] == '#') {
+      i++;
+      int radix = 10;
+      if (i < end && (html[i] == 'x' || html[i] == 'X')) {
+        i++;
+        radix = 16;
+      }
+      int digitsStart = i;
+      long value = 0;
+      while (i < end && html[i] < 128 && Character.digit(html[i], radix) >= 0) {
+        // Saturate, since any value that does not fit is replaced anyway.
+        value = Math.min(value * radix + Character.digit(html[i], radix), Integer.MAX_VALUE + 1L);
+        i++;
+      }
+      if (i == digitsStart) {
+        return -1;
+      }
+      if (i < end && html[i] == ';') {
+        i++;
+      }
+      if (value > Character.MAX_CODE_POINT || (value >= 0xd800 && value <= 0xdfff)) {
+        out.append('\ufffd');
+      } else if (value >= 0x80 && value < 0x80 + WINDOWS_1252.length) {
+        // Like browsers, which read these as Windows-1252 rather than as control characters.
+        out.append(WINDOWS_1252[(int) value - 0x80]);
+      } else {
+        out.appendCodePoint((int) value);
+      }
+      return i;
+    }
+
+    while (i < end && isLetter(html[i])) {
+      i++;
+    }
+    while (i < end && isDigit(html[i])) {
+      i++;
+    }
+    String name = new String(html, start, i - start);
+    boolean semicolon = i < end && html[i] == ';';
+    if (!Entities.isBaseNamedEntity(name) && !(semicolon && Entities.isNamedEntity(name))) {
+      return -1;
+    }
+    if (inAttribute && !semicolon && i < end) {
+      char next = html[i];
+      if (isLetter(next) || isDigit(next) || next == '=' || next == '-' || next == '_') {
+        return -1;
+      }
+    }
+    out.append(Entities.getByName(name));
+    return semicolon ? i + 1 : i;
+  }
+
+  private int indexOf(char c, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (html[i] == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean startsWith(int start, String prefix) {
+    if (start + prefix.length() > length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length(); i++) {
+      if (html[start + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isAnyName(int start, int end, String[] names) {
+    for (String name : names) {
+      if (isName(start, end, name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the characters between {@code start} and {@code end} are the given lower-case
+   * ASCII name, ignoring case.
+   */
+  private boolean isName(int start, int end, String name) {
+    if (end - start != name.length()) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (toLowerCase(html[start + i]) != name.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean equalsIgnoreCase(int start, int otherStart, int length) {
+    for (int i = 0; i < length; i++) {
+      if (toLowerCase(html[start + i]) != toLowerCase(html[otherStart + i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Lower-cases ASCII letters only. The names that matter are ASCII, and Jsoup lower-cases names
+   * with {@link java.util.Locale#ENGLISH}, which maps no other character to one of their letters.
+   */
+  private static char toLowerCase(char c) {
+    return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  /**
+   * Returns true for the characters that are whitespace in HTML.
+   */
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || Character.isLetter(c);
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
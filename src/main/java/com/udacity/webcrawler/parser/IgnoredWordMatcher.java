@@ -0,0 +1,280 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a token matches any of the ignored word patterns, using direct checks for the
+ * pattern shapes that are common in crawler configurations.
+ *
+ * <p>{@link #matches(CharSequence, int, int)} gives the same answer as running
+ * {@code matcher(token).matches()} for each pattern, but patterns are recognized when the matcher is
+ * created:
+ *
+ * <ul>
+ *   <li>Dots with quantifiers, such as {@code ^.{1,3}$} or {@code ...}, become a check of the
+ *       token's length.</li>
+ *   <li>Literal words become entries in a hash table, which is sized so that each word has a slot
+ *       of its own, so a lookup looks at a single slot.</li>
+ *   <li>A literal followed by {@code .*}, or {@code .*} followed by a literal, becomes a prefix or
+ *       suffix check.</li>
+ * </ul>
+ *
+ * <p>Only the remaining patterns are run as regexes. They run on the token in place, through
+ * reused {@link Matcher}s, so instances must not be shared between threads.
+ */
+final class IgnoredWordMatcher {
+
+  private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+  private final List<Pattern> patterns;
+  // Pairs of minimum and maximum lengths, in code points.
+  private final int[] lengthRanges;
+  private final StopWords stopWords;
+  private final String[] prefixes;
+  private final String[] suffixes;
+  private final Matcher[] regexes;
+  private final Matcher[] all;
+
+  IgnoredWordMatcher(List<Pattern> patterns) {
+    this.patterns = List.copyOf(patterns);
+    List<int[]> lengths = new ArrayList<>();
+    Set<String> words = new LinkedHashSet<>();
+    List<String> prefixList = new ArrayList<>();
+    List<String> suffixList = new ArrayList<>();
+    List<Matcher> regexList = new ArrayList<>();
+    for (Pattern pattern : patterns) {
+      if (pattern.flags() != 0) {
+        regexList.add(pattern.matcher(""));
+        continue;
+      }
+      String regex = RegexLiterals.stripAnchors(pattern.pattern());
+      int[] length = parseLength(regex);
+      String literal = RegexLiterals.parse(regex);
+      String suffix = regex.startsWith(".*") ? RegexLiterals.parse(regex.substring(2)) : null;
+      String prefix = (regex.endsWith(".*") && !RegexLiterals.isEscaped(regex, regex.length() - 2))
+          ? RegexLiterals.parse(regex.substring(0, regex.length() - 2))
+          : null;
+      if (length != null) {
+        lengths.add(length);
+      } else if (literal != null) {
+        words.add(literal);
+      } else if (suffix != null) {
+        suffixList.add(suffix);
+      } else if (prefix != null) {
+        prefixList.add(prefix);
+      } else {
+        regexList.add(pattern.matcher(""));
+      }
+    }
+    this.lengthRanges = lengths.stream().flatMapToInt(Arrays::stream).toArray();
+    this.stopWords = new StopWords(words);
+    this.prefixes = prefixList.toArray(String[]::new);
+    this.suffixes = suffixList.toArray(String[]::new);
+    this.regexes = regexList.toArray(Matcher[]::new);
+    this.all = patterns.stream().map(p -> p.matcher("")).toArray(Matcher[]::new);
+  }
+
+  /**
+   * Returns true if the characters of {@code text} between {@code start} and {@code end} match any
+   * of the patterns.
+   */
+  boolean matches(CharSequence text, int start, int end) {
+    if (patterns.isEmpty()) {
+      return false;
+    }
+    int codePoints = 0;
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (RegexLiterals.isLineTerminator(c)) {
+        // "." does not match line terminators, which the direct checks do not account for.
+        return anyMatches(all, text, start, end);
+      }
+      boolean secondHalf = Character.isLowSurrogate(c)
+          && i > start
+          && Character.isHighSurrogate(text.charAt(i - 1));
+      if (!secondHalf) {
+        codePoints++;
+      }
+    }
+    for (int i = 0; i < lengthRanges.length; i += 2) {
+      if (codePoints >= lengthRanges[i] && codePoints <= lengthRanges[i + 1]) {
+        return true;
+      }
+    }
+    if (stopWords.contains(text, start, end)) {
+      return true;
+    }
+    for (String prefix : prefixes) {
+      if (regionStartsWith(text, start, end, prefix, start)) {
+        return true;
+      }
+    }
+    for (String suffix : suffixes) {
+      if (regionStartsWith(text, start, end, suffix, end - suffix.length())) {
+        return true;
+      }
+    }
+    return anyMatches(regexes, text, start, end);
+  }
+
+  private static boolean anyMatches(Matcher[] matchers, CharSequence text, int start, int end) {
+    for (Matcher matcher : matchers) {
+      // With the default anchoring and opaque bounds, matching a region is the same as matching
+      // the substring.
+      if (matcher.reset(text).region(start, end).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean regionStartsWith(
+      CharSequence text, int start, int end, String literal, int at) {
+    if (at < start || at + literal.length() > end) {
+      return false;
+    }
+    for (int i = 0; i < literal.length(); i++) {
+      if (text.charAt(at + i) != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parses a sequence of dots, each optionally followed by a greedy quantifier.
+   *
+   * @return the minimum and maximum number of code points it matches, or null if the regex is not
+   *     of that form.
+   */
+  private static int[] parseLength(String regex) {
+    if (regex.isEmpty()) {
+      return null;
+    }
+    long min = 0;
+    long max = 0;
+    int i = 0;
+    while (i < regex.length()) {
+      if (regex.charAt(i++) != '.') {
+        return null;
+      }
+      int low = 1;
+      int high = 1;
+      if (i < regex.length()) {
+        char c = regex.charAt(i);
+        if (c == '?' || c == '*' || c == '+') {
+          low = (c == '+') ? 1 : 0;
+          high = (c == '?') ? 1 : UNBOUNDED;
+          i++;
+        } else if (c == '{') {
+          int close = regex.indexOf('}', i);
+          if (close < 0) {
+            return null;
+          }
+          String[] bounds = regex.substring(i + 1, close).split(",", -1);
+          try {
+            low = Integer.parseInt(bounds[0]);
+            high = (bounds.length == 1) ? low
+                : bounds[1].isEmpty() ? UNBOUNDED : Integer.parseInt(bounds[1]);
+          } catch (NumberFormatException e) {
+            return null;
+          }
+          if (bounds.length > 2 || low < 0 || high < low) {
+            return null;
+          }
+          i = close + 1;
+        }
+        if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) {
+          // Lazy or possessive.
+          return null;
+        }
+      }
+      min += low;
+      max = (max == UNBOUNDED || high == UNBOUNDED) ? UNBOUNDED : max + high;
+    }
+    return new int[] {(int) Math.min(min, UNBOUNDED), (int) Math.min(max, UNBOUNDED)};
+  }
+
+  /**
+   * A read-only hash set of words that can be probed with a slice of a longer string.
+   *
+   * <p>The table is made large enough, and its hash function is seeded, so that no two words share
+   * a slot where possible. Otherwise words that collide are placed by linear probing.
+   */
+  private static final class StopWords {
+    private static final int MAX_SEEDS = 64;
+
+    private final String[] slots;
+    private final int seed;
+
+    StopWords(Set<String> words) {
+      if (words.isEmpty()) {
+        slots = new String[0];
+        seed = 0;
+        return;
+      }
+      int size = Integer.highestOneBit(Math.max(1, words.size() * 2 - 1)) << 1;
+      for (int attempt = 0; attempt < 3; attempt++, size <<= 1) {
+        for (int s = 1; s <= MAX_SEEDS; s++) {
+          String[] table = placeWithoutCollisions(words, size, s);
+          if (table != null) {
+            slots = table;
+            seed = s;
+            return;
+          }
+        }
+      }
+      slots = new String[size];
+      seed = 1;
+      for (String word : words) {
+        int slot = slot(word, 0, word.length(), seed, slots.length);
+        while (slots[slot] != null) {
+          slot = (slot + 1) & (slots.length - 1);
+        }
+        slots[slot] = word;
+      }
+    }
+
+    private static String[] placeWithoutCollisions(Set<String> words, int size, int seed) {
+      String[] table = new String[size];
+      for (String word : words) {
+        int slot = slot(word, 0, word.length(), seed, size);
+        if (table[slot] != null) {
+          return null;
+        }
+        table[slot] = word;
+      }
+      return table;
+    }
+
+    boolean contains(CharSequence text, int start, int end) {
+      if (slots.length == 0) {
+        return false;
+      }
+      int slot = slot(text, start, end, seed, slots.length);
+      while (slots[slot] != null) {
+        String word = slots[slot];
+        if (word.length() == end - start && regionStartsWith(text, start, end, word, start)) {
+          return true;
+        }
+        slot = (slot + 1) & (slots.length - 1);
+      }
+      return false;
+    }
+
+    private static int slot(CharSequence text, int start, int end, int seed, int size) {
+      int hash = seed;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + text.charAt(i);
+      }
+      hash *= 0x9e3779b9;
+      return (hash ^ (hash >>> 16)) & (size - 1);
+    }
+  }
+}
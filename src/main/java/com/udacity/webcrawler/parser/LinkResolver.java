@@ -0,0 +1,121 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.internal.StringUtil;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Turns the {@code href} attributes of the links on one page into canonical absolute URLs.
+ *
+ * <p>Links on remote pages are resolved against the base URI of the page, the same way as the
+ * {@code "abs:"} attribute prefix of Jsoup. Links in local files are resolved against the directory
+ * of the file, since Jsoup cannot resolve links against a {@code file:} base URI: the result is the
+ * URI of {@code Path.of(directory, href)}, built from strings instead of paths whenever the link
+ * only has characters that {@link Path#toUri()} leaves as they are. Building them from strings does
+ * not look at the file system the way {@link Path#toUri()} does, so a link to a directory gets no
+ * trailing slash; there is nothing to parse at either URL.
+ *
+ * <p>The base is worked out once per page, and the resolved link of each distinct {@code href} is
+ * remembered, so the links of navigation bars and footers that repeat across a page are only
+ * resolved and canonicalized once.
+ *
+ * <p>Instances are not thread-safe.
+ */
+final class LinkResolver {
+
+  // The characters that Path.toUri() does not percent-encode, besides letters and digits.
+  private static final String PLAIN_CHARACTERS = "!$&'()*+,-./:;=@_~";
+
+  private final UrlCanonicalizer canonicalizer;
+  // Either the base URI of a remote page, or the path of the directory of a local file.
+  private final String base;
+  private final boolean local;
+  private final Map<String, String> links = new HashMap<>();
+  // The URI of the directory of a local file, without a trailing slash. Computed when it is first
+  // needed, since it takes a look at the file system.
+  private String directoryUri;
+
+  private LinkResolver(String base, boolean local, UrlCanonicalizer canonicalizer) {
+    this.base = Objects.requireNonNull(base);
+    this.local = local;
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+  }
+
+  /**
+   * Creates a resolver for the links of a remote page with the given base URI.
+   */
+  static LinkResolver forBaseUri(String baseUri, UrlCanonicalizer canonicalizer) {
+    return new LinkResolver(baseUri, false, canonicalizer);
+  }
+
+  /**
+   * Creates a resolver for the links of the local file with the given {@code file:} URI.
+   */
+  static LinkResolver forLocalFile(URI fileUri, UrlCanonicalizer canonicalizer) {
+    return new LinkResolver(Path.of(fileUri).getParent().toString(), true, canonicalizer);
+  }
+
+  /**
+   * Returns the canonical absolute URL of the given link.
+   */
+  String resolve(String href) {
+    String link = links.get(href);
+    if (link == null) {
+      String absolute = local ? resolveLocal(href) : StringUtil.resolve(base, href);
+      link = canonicalizer.canonicalize(absolute);
+      links.put(href, link);
+    }
+    return link;
+  }
+
+  private String resolveLocal(String href) {
+    if (!isPlain(href)) {
+      return Path.of(base, href).toUri().toString();
+    }
+    if (directoryUri == null) {
+      String uri = Path.of(base).toUri().toString();
+      directoryUri = uri.endsWith("/") ? uri.substring(0, uri.length() - 1) : uri;
+    }
+    // Like Path.of(), join the segments of the link to the directory with single slashes, and drop
+    // any trailing slash.
+    StringBuilder link = new StringBuilder(directoryUri.length() + href.length() + 1);
+    link.append(directoryUri);
+    int start = 0;
+    while (start < href.length()) {
+      int end = href.indexOf('/', start);
+      if (end < 0) {
+        end = href.length();
+      }
+      if (end > start) {
+        link.append('/').append(href, start, end);
+      }
+      start = end + 1;
+    }
+    if (link.length() == directoryUri.length()) {
+      // A link to the directory itself, which Path.toUri() gives a trailing slash.
+      return Path.of(base, href).toUri().toString();
+    }
+    return link.toString();
+  }
+
+  /**
+   * Returns true if the given link only has characters that {@link Path#toUri()} does not encode.
+   */
+  private static boolean isPlain(String href) {
+    for (int i = 0; i < href.length(); i++) {
+      char c = href.charAt(i);
+      boolean plain = (c >= 'a' && c <= 'z')
+          || (c >= 'A' && c <= 'Z')
+          || (c >= '0' && c <= '9')
+          || PLAIN_CHARACTERS.indexOf(c) >= 0;
+      if (!plain) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
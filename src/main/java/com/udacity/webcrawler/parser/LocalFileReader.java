@@ -0,0 +1,132 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads local pages straight into characters, for parsers that are given a {@code file:} URL.
+ *
+ * <p>Local pages are read as UTF-8, unless they start with a byte order mark, the same as the
+ * {@link PageFetcherImpl} and Jsoup read them. The file is read through a {@link FileChannel} into
+ * a byte array kept by each thread, and decoded into a character array kept by each thread, so
+ * reading a page allocates neither a copy of the file nor a stream. Both arrays are decoded with
+ * the array loop of the JDK decoder, whose ASCII fast path copies runs of ASCII in bulk.
+ *
+ * <p>Files are not memory-mapped: decoding straight from a mapped buffer takes the much slower
+ * buffer loop of the decoder, copying a mapped file is no faster than reading it, and each mapping
+ * lasts until its buffer is garbage collected, so a crawl of many files can run out of mappings.
+ *
+ * <p>The characters returned by {@link #read(Path)} are overwritten by the next call on the same
+ * thread.
+ */
+final class LocalFileReader {
+
+  // Files and their characters are read into arrays that are kept by each thread, unless they are
+  // larger than this.
+  private static final int MAX_BUFFER_SIZE = 1 << 20;
+  private static final ThreadLocal<byte[]> BYTES = ThreadLocal.withInitial(() -> new byte[1 << 16]);
+  private static final ThreadLocal<char[]> CHARS = ThreadLocal.withInitial(() -> new char[1 << 16]);
+
+  private LocalFileReader() {
+  }
+
+  /**
+   * Returns the characters of the file at the given path, from the start to the limit of the
+   * returned buffer, which wraps an array.
+   *
+   * @throws IOException if the file cannot be read.
+   */
+  static CharBuffer read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE - 8) {
+        throw new IOException("File too large: " + path);
+      }
+      ByteBuffer bytes = ByteBuffer.wrap(byteArray((int) size), 0, (int) size);
+      while (bytes.hasRemaining()) {
+        if (channel.read(bytes) < 0) {
+          break;
+        }
+      }
+      return decode(bytes.flip());
+    }
+  }
+
+  /**
+   * Decodes the given bytes, from their position to their limit, into the characters of the
+   * current thread.
+   */
+  static CharBuffer decode(ByteBuffer bytes) {
+    Charset charset = charsetFromByteOrderMark(bytes);
+    // No character set takes more characters than bytes, including the replacement characters
+    // for malformed input.
+    CharBuffer out = CharBuffer.wrap(charArray(bytes.remaining()));
+    // Malformed input is replaced, like it is by the InputStreamReader that Jsoup reads with.
+    CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    decoder.decode(bytes, out, true);
+    decoder.flush(out);
+    return out.flip();
+  }
+
+  /**
+   * Returns the character set given by the byte order mark at the position of the given bytes, or
+   * UTF-8 if there is none, and moves the position past a UTF-8 byte order mark.
+   */
+  private static Charset charsetFromByteOrderMark(ByteBuffer bytes) {
+    int p = bytes.position();
+    int remaining = bytes.remaining();
+    int b0 = (remaining >= 1) ? bytes.get(p) & 0xff : -1;
+    int b1 = (remaining >= 2) ? bytes.get(p + 1) & 0xff : -1;
+    int b2 = (remaining >= 3) ? bytes.get(p + 2) & 0xff : -1;
+    int b3 = (remaining >= 4) ? bytes.get(p + 3) & 0xff : -1;
+    if (b0 == 0 && b1 == 0 && b2 == 0xfe && b3 == 0xff) {
+      return Charset.forName("UTF-32BE");
+    }
+    if (b0 == 0xff && b1 == 0xfe && b2 == 0 && b3 == 0) {
+      return Charset.forName("UTF-32LE");
+    }
+    if (b0 == 0xfe && b1 == 0xff) {
+      return StandardCharsets.UTF_16BE;
+    }
+    if (b0 == 0xff && b1 == 0xfe) {
+      return StandardCharsets.UTF_16LE;
+    }
+    if (b0 == 0xef && b1 == 0xbb && b2 == 0xbf) {
+      // Jsoup skips a UTF-8 byte order mark, but keeps the others as a character of the text.
+      bytes.position(p + 3);
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  private static byte[] byteArray(int size) {
+    byte[] bytes = BYTES.get();
+    if (bytes.length < size) {
+      bytes = new byte[size];
+      if (size <= MAX_BUFFER_SIZE) {
+        BYTES.set(bytes);
+      }
+    }
+    return bytes;
+  }
+
+  private static char[] charArray(int size) {
+    char[] chars = CHARS.get();
+    if (chars.length < size) {
+      chars = new char[size];
+      if (size <= MAX_BUFFER_SIZE) {
+        CHARS.set(chars);
+      }
+    }
+    return chars;
+  }
+}
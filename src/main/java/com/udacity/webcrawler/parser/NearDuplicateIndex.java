@@ -0,0 +1,161 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Remembers the SimHash of every page parsed during a crawl, so that pages that differ from an
+ * earlier page only in a few words, such as a date or a session token, can be left out of the
+ * results.
+ *
+ * <p>Two pages are near-duplicates when their {@link PageParser.Result#getSimHash() SimHashes}
+ * differ in at most {@code maxDistance} bits. The 64 bits are split into {@code maxDistance + 1}
+ * bands, so two near-duplicates agree on every bit of at least one band. Each band has its own
+ * open-addressing hash table with linear probing, keyed by the bits of the band, so a page is only
+ * compared with the pages that share one of its bands instead of with every page seen so far.
+ *
+ * <p>All the tables are plain arrays, sized up front for a fixed number of fingerprints, so the
+ * index takes {@code 8 + 8 * (maxDistance + 1)} bytes per fingerprint and never has to grow. Once
+ * it is full, pages are still checked against the fingerprints it holds, but no more are added.
+ *
+ * <p>Pages with fewer than {@value #MIN_DISTINCT_WORDS} distinct words are never treated as
+ * near-duplicates, since their SimHashes say too little about them. Every page that is checked is
+ * recorded with the {@link Profiler}, as a sample of 100 for a near-duplicate or 0 otherwise in the
+ * {@code "nearDuplicate.percent"} metric.
+ *
+ * <p>The index lasts for a single crawl; it is {@linkplain #clear() cleared} when the next one
+ * starts.
+ */
+final class NearDuplicateIndex {
+
+  static final int MIN_DISTINCT_WORDS = 8;
+  // Beyond this, bands are so narrow that most pages share one, and every page is compared with
+  // most of the others.
+  static final int MAX_DISTANCE = 15;
+  static final int MAX_CAPACITY = 1 << 28;
+
+  private final int maxDistance;
+  private final int capacity;
+  private final Profiler profiler;
+  // The first bit of each band, and one past the last bit of the last band.
+  private final int[] bandStarts;
+  // The fingerprints added so far, in order.
+  private final long[] fingerprints;
+  // For each band, slots hold the index of a fingerprint plus one, or zero when they are empty.
+  private final int[][] tables;
+  private int size;
+
+  /**
+   * Creates an empty index.
+   *
+   * @param maxDistance the most bits in which near-duplicates differ, or -1 to disable the index.
+   * @param capacity    the most fingerprints the index holds.
+   */
+  NearDuplicateIndex(int maxDistance, int capacity, Profiler profiler) {
+    if (maxDistance < -1 || maxDistance > MAX_DISTANCE) {
+      throw new IllegalArgumentException("maxDistance must be between -1 and " + MAX_DISTANCE);
+    }
+    if (capacity < 0 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("capacity must be between 0 and " + MAX_CAPACITY);
+    }
+    this.maxDistance = maxDistance;
+    this.profiler = Objects.requireNonNull(profiler);
+    int bands = maxDistance + 1;
+    this.capacity = (bands == 0) ? 0 : capacity;
+    this.bandStarts = new int[bands + 1];
+    for (int band = 0; band <= bands; band++) {
+      bandStarts[band] = band * Long.SIZE / Math.max(bands, 1);
+    }
+    // Tables are kept at most half full, so that probe sequences stay short.
+    int tableSize = Integer.highestOneBit(Math.max(this.capacity, 1) * 2 - 1) << 1;
+    this.fingerprints = new long[this.capacity];
+    this.tables = new int[bands][this.capacity == 0 ? 0 : tableSize];
+  }
+
+  /**
+   * Returns false if the index never finds near-duplicates.
+   */
+  boolean isEnabled() {
+    return capacity > 0;
+  }
+
+  /**
+   * Returns true if a near-duplicate of the given page has already been seen. Otherwise, adds the
+   * page to the index and returns false.
+   */
+  boolean isNearDuplicate(PageParser.Result result) {
+    if (!isEnabled() || result.distinctWords() < MIN_DISTINCT_WORDS) {
+      return false;
+    }
+    boolean nearDuplicate = !addIfNew(result.getSimHash());
+    profiler.recordMetric("nearDuplicate.percent", nearDuplicate ? 100 : 0);
+    return nearDuplicate;
+  }
+
+  /**
+   * Removes all the fingerprints, for a new crawl.
+   */
+  synchronized void clear() {
+    for (int[] table : tables) {
+      Arrays.fill(table, 0);
+    }
+    size = 0;
+  }
+
+  /**
+   * Adds the given fingerprint and returns true, unless the index already holds one within
+   * {@code maxDistance} bits of it.
+   */
+  synchronized boolean addIfNew(long fingerprint) {
+    for (int band = 0; band < tables.length; band++) {
+      int[] table = tables[band];
+      int mask = table.length - 1;
+      long key = bandOf(fingerprint, band);
+      for (int slot = slotOf(key, band, mask); table[slot] != 0; slot = (slot + 1) & mask) {
+        long other = fingerprints[table[slot] - 1];
+        if (bandOf(other, band) == key && Long.bitCount(other ^ fingerprint) <= maxDistance) {
+          return false;
+        }
+      }
+    }
+    if (size == capacity) {
+      return true;
+    }
+    fingerprints[size] = fingerprint;
+    size++;
+    for (int band = 0; band < tables.length; band++) {
+      int[] table = tables[band];
+      int mask = table.length - 1;
+      int slot = slotOf(bandOf(fingerprint, band), band, mask);
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = size;
+    }
+    return true;
+  }
+
+  private long bandOf(long fingerprint, int band) {
+    int width = bandStarts[band + 1] - bandStarts[band];
+    if (width == Long.SIZE) {
+      return fingerprint;
+    }
+    return (fingerprint >>> bandStarts[band]) & ((1L << width) - 1);
+  }
+
+  /**
+   * Returns the first slot to probe for the given band bits, mixed by the finalization step of
+   * MurmurHash3 so that nearby values are spread over the whole table.
+   */
+  private static int slotOf(long key, int band, int mask) {
+    long k = key * 31 + band;
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return (int) k & mask;
+  }
+}
@@ -0,0 +1,26 @@
+package com.udacity.webcrawler.parser;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Downloads remote and local HTML pages without parsing them.
+ */
+public interface PageFetcher {
+
+  /**
+   * Downloads the page at the given URL.
+   *
+   * @throws IOException if the page could not be downloaded, or is not an HTML page.
+   */
+  FetchedPage fetch(String url) throws IOException;
+
+  /**
+   * Starts downloading the page at the given URL, without blocking the calling thread while the
+   * download is in progress.
+   *
+   * @return a future that completes with the page, or completes exceptionally with an
+   *     {@link IOException} if the page could not be downloaded, or is not an HTML page.
+   */
+  CompletableFuture<FetchedPage> fetchAsync(String url);
+}
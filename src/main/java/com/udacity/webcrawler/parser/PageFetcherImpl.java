@@ -0,0 +1,163 @@
+package com.udacity.webcrawler.parser;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link PageFetcher} that works for both local and remote files.
+ *
+ * <p>Remote pages are downloaded with a shared {@link HttpClient}, which keeps connections open
+ * between requests and multiplexes requests to HTTP/2 servers over a single connection. Like the
+ * JSoup downloader it replaces, it rejects error responses and responses that are not HTML or XML.
+ */
+final class PageFetcherImpl implements PageFetcher {
+
+  /**
+   * Matches the charset parameter of a Content-Type header.
+   */
+  private static final Pattern CHARSET = Pattern.compile("(?i)\\bcharset=\"?([^\\s;\"]+)");
+
+  private final HttpClient client;
+  private final Duration timeout;
+
+  @Inject
+  PageFetcherImpl(HttpClient client, @ParseDeadline Duration timeout) {
+    this.client = Objects.requireNonNull(client);
+    this.timeout = Objects.requireNonNull(timeout);
+  }
+
+  /**
+   * Creates a fetcher that uses a default {@link HttpClient} shared by all fetchers created this
+   * way.
+   */
+  PageFetcherImpl(Duration timeout) {
+    this(DefaultClient.INSTANCE, timeout);
+  }
+
+  /**
+   * Creates an {@link HttpClient} suitable for downloading pages: it prefers HTTP/2 and follows
+   * redirects, except from HTTPS to HTTP.
+   *
+   * @param connectTimeout the timeout for opening a connection, or zero for no timeout.
+   */
+  static HttpClient newHttpClient(Duration connectTimeout) {
+    HttpClient.Builder builder = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NORMAL);
+    if (!connectTimeout.isZero() && !connectTimeout.isNegative()) {
+      builder.connectTimeout(connectTimeout);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public FetchedPage fetch(String url) throws IOException {
+    try {
+      return fetchAsync(url).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while downloading " + url);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  @Override
+  public CompletableFuture<FetchedPage> fetchAsync(String url) {
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      return CompletableFuture.failedFuture(new IOException("Invalid URL: " + url, e));
+    }
+    if (PageParserImpl.isLocalFile(uri)) {
+      try {
+        // Jsoup cannot resolve links against "file://" base URIs, so local pages have an empty
+        // base URI and PageParserImpl adds the base path back in manually.
+        return CompletableFuture.completedFuture(new FetchedPage(
+            url, "", Files.readAllBytes(Path.of(uri)), StandardCharsets.UTF_8.name()));
+      } catch (IOException | RuntimeException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+
+    HttpRequest request;
+    try {
+      HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+          .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+          .GET();
+      if (!timeout.isZero() && !timeout.isNegative()) {
+        builder.timeout(timeout);
+      }
+      request = builder.build();
+    } catch (IllegalArgumentException e) {
+      // For example, a URI with a scheme other than http or https.
+      return CompletableFuture.failedFuture(new IOException("Cannot download " + url, e));
+    }
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .thenApply(response -> toPage(url, response));
+  }
+
+  /**
+   * Checks the given response and turns it into a {@link FetchedPage}.
+   *
+   * @throws CompletionException wrapping an {@link IOException} if the response is an error or is
+   *                             not a document that can be parsed.
+   */
+  private static FetchedPage toPage(String url, HttpResponse<byte[]> response) {
+    if (response.statusCode() >= 400) {
+      throw new CompletionException(
+          new IOException("HTTP error " + response.statusCode() + " fetching " + url));
+    }
+    String contentType = response.headers().firstValue("Content-Type").orElse("");
+    if (!isParseable(contentType)) {
+      throw new CompletionException(
+          new IOException("Unsupported content type " + contentType + " for " + url));
+    }
+    Matcher charset = CHARSET.matcher(contentType);
+    return new FetchedPage(
+        url,
+        response.uri().toString(),
+        response.body(),
+        charset.find() ? charset.group(1) : null);
+  }
+
+  /**
+   * Returns true if a body of the given content type can be parsed. A missing content type is
+   * accepted, the same as JSoup does.
+   */
+  private static boolean isParseable(String contentType) {
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.isEmpty()
+        || type.startsWith("text/")
+        || type.startsWith("application/xml")
+        || type.matches("application/\\w+\\+xml.*");
+  }
+
+  /**
+   * Holds the client used by fetchers that were not given one, so it is only created if needed.
+   */
+  private static final class DefaultClient {
+    private static final HttpClient INSTANCE = newHttpClient(Duration.ZERO);
+  }
+}
@@ -24,22 +24,70 @@ public interface PageParser {
 
   /**
    * A data class that represents the outcome of processing an HTML page.
+   *
+   * <p>Words are stored as IDs from the {@link WordDictionary} the result was built with, next to
+   * their counts, so that crawlers can add them up without hashing or boxing the words.
    */
   final class Result {
-    private final Map<String, Integer> wordCounts;
+    // Has no words, so its dictionary is never looked at.
+    private static final Result EMPTY =
+        new Result(new WordDictionary(), new int[0], new int[0], List.of());
+
+    private final WordDictionary dictionary;
+    private final int[] wordIds;
+    private final int[] counts;
     private final List<String> links;
+    private volatile Map<String, Integer> wordCounts;
 
-    private Result(Map<String, Integer> wordCounts, List<String> links) {
-      this.wordCounts = Objects.requireNonNull(wordCounts);
+    private Result(WordDictionary dictionary, int[] wordIds, int[] counts, List<String> links) {
+      this.dictionary = Objects.requireNonNull(dictionary);
+      this.wordIds = Objects.requireNonNull(wordIds);
+      this.counts = Objects.requireNonNull(counts);
       this.links = Objects.requireNonNull(links);
     }
 
+    /**
+     * Returns a result with no words and no links, for pages that could not be parsed.
+     */
+    static Result empty() {
+      return EMPTY;
+    }
+
     /**
      * Returns an unmodifiable {@link Map} containing the words and word frequencies encountered
      * when parsing the web page.
+     *
+     * <p>The map is built the first time this is called. Crawlers should prefer
+     * {@link #forEachWord(WordDictionary, WordCountConsumer)}.
      */
     public Map<String, Integer> getWordCounts() {
-      return wordCounts;
+      Map<String, Integer> map = wordCounts;
+      if (map == null) {
+        Map<String, Integer> words = new HashMap<>();
+        for (int i = 0; i < wordIds.length; i++) {
+          words.put(dictionary.word(wordIds[i]), counts[i]);
+        }
+        map = Collections.unmodifiableMap(words);
+        wordCounts = map;
+      }
+      return map;
+    }
+
+    /**
+     * Passes the ID of each word encountered when parsing the web page in the given
+     * {@link WordDictionary}, together with its frequency, to {@code action}.
+     *
+     * <p>If the result was built with the same dictionary, which is the case for all the parsers
+     * made by a {@link PageParserFactory}, the IDs are passed on as they are. Otherwise each word
+     * is looked up in the given dictionary.
+     */
+    public void forEachWord(WordDictionary dictionary, WordCountConsumer action) {
+      for (int i = 0; i < wordIds.length; i++) {
+        int id = (dictionary == this.dictionary)
+            ? wordIds[i]
+            : dictionary.intern(this.dictionary.word(wordIds[i]));
+        action.accept(id, counts[i]);
+      }
     }
 
     /**
@@ -49,20 +97,92 @@ public interface PageParser {
       return links;
     }
 
+    /**
+     * Returns a 64-bit SimHash of the words encountered when parsing the web page, which differs
+     * in few bits between pages that share most of their words.
+     *
+     * <p>Each bit is the sign of a sum over the words of the page: a word adds its frequency if the
+     * bit is set in the 64-bit hash of the word, and subtracts it otherwise. This is the same as
+     * summing over every word as it occurs in the page, but takes one step per distinct word.
+     */
+    public long getSimHash() {
+      int[] sums = new int[Long.SIZE];
+      for (int i = 0; i < wordIds.length; i++) {
+        long hash = hash64(dictionary.word(wordIds[i]));
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+          sums[bit] += ((hash >>> bit) & 1) != 0 ? counts[i] : -counts[i];
+        }
+      }
+      long simHash = 0;
+      for (int bit = 0; bit < Long.SIZE; bit++) {
+        if (sums[bit] > 0) {
+          simHash |= 1L << bit;
+        }
+      }
+      return simHash;
+    }
+
+    /**
+     * Returns the number of distinct words encountered when parsing the web page.
+     */
+    int distinctWords() {
+      return wordIds.length;
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of the given word, with its bits mixed by the finalization step
+     * of MurmurHash3 so that similar words get unrelated hashes.
+     */
+    private static long hash64(String word) {
+      long hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < word.length(); i++) {
+        hash = (hash ^ word.charAt(i)) * 0x100000001b3L;
+      }
+      hash ^= hash >>> 33;
+      hash *= 0xff51afd7ed558ccdL;
+      hash ^= hash >>> 33;
+      hash *= 0xc4ceb9fe1a85ec53L;
+      return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Receives the words of a {@link Result}, by ID.
+     */
+    @FunctionalInterface
+    public interface WordCountConsumer {
+      void accept(int wordId, int count);
+    }
+
     /**
      * A builder class for the parse {@link Result}. This builder keeps track of word counts and
      * hyperlinks encountered while parsing a web page.
      */
     static final class Builder {
-      private final Map<String, Integer> wordCounts = new HashMap<>();
+      private final WordDictionary dictionary;
+      private final WordCountMap wordCounts;
       private final Set<String> links = new HashSet<>();
 
       /**
-       * Increments the frequency counter for the given word.
+       * Creates a builder whose words get their IDs from a dictionary of their own.
+       */
+      Builder() {
+        this(new WordDictionary());
+      }
+
+      /**
+       * Creates a builder whose words get their IDs from the given dictionary.
+       */
+      Builder(WordDictionary dictionary) {
+        this.dictionary = Objects.requireNonNull(dictionary);
+        this.wordCounts = new WordCountMap(dictionary);
+      }
+
+      /**
+       * Increments the frequency counter for the given word. The word may be a buffer that is
+       * changed after this method returns.
        */
-      void addWord(String word) {
-        Objects.requireNonNull(word);
-        wordCounts.compute(word, (k, v) -> (v == null) ? 1 : v + 1);
+      void addWord(CharSequence word) {
+        wordCounts.increment(Objects.requireNonNull(word));
       }
 
       /**
@@ -76,8 +196,13 @@ public interface PageParser {
        * Constructs a {@link Result} from this builder.
        */
       Result build() {
+        int[] wordIds = new int[wordCounts.size()];
+        int[] counts = new int[wordCounts.size()];
+        wordCounts.copyTo(wordIds, counts);
         return new Result(
-            Collections.unmodifiableMap(wordCounts),
+            dictionary,
+            wordIds,
+            counts,
             links.stream().collect(Collectors.toUnmodifiableList()));
       }
     }
@@ -10,4 +10,24 @@ public interface PageParserFactory {
    * Returns a {@link PageParser} that parses the given {@link url}.
    */
   PageParser get(String url);
+
+  /**
+   * Returns a {@link PageParser} that parses the given page, which has already been downloaded.
+   *
+   * <p>The default implementation ignores the downloaded body and returns {@link #get(String)} for
+   * the page's URL, so factories that cannot parse pre-fetched pages still work, at the cost of a
+   * second download.
+   */
+  default PageParser get(FetchedPage page) {
+    return get(page.getUrl());
+  }
+
+  /**
+   * Called by crawlers at the start of each crawl, so that state that only lasts for a crawl, such
+   * as the pages seen by the near-duplicate check, starts out empty.
+   *
+   * <p>The default implementation does nothing.
+   */
+  default void startCrawl() {
+  }
 }
@@ -1,34 +1,124 @@
 package com.udacity.webcrawler.parser;
 
-import com.udacity.webcrawler.Timeout;
 import com.udacity.webcrawler.profiler.Profiler;
 
 import javax.inject.Inject;
-import java.time.Duration;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
 import java.util.regex.Pattern;
 
 /**
  * A {@link PageParserFactory} that wraps its returned instances using a {@link Profiler}.
+ *
+ * <p>If the {@link ParseCache} is enabled, the parsers it returns look pages up in the cache
+ * before parsing them. If the {@link NearDuplicateIndex} is enabled, they return an empty result
+ * for a page that is a near-duplicate of one parsed earlier in the same crawl, so that neither its
+ * words nor its links are crawled again.
  */
 final class PageParserFactoryImpl implements PageParserFactory {
   private final Profiler profiler;
   private final List<Pattern> ignoredWords;
-  private final Duration timeout;
+  private final PageFetcher fetcher;
+  private final UrlCanonicalizer canonicalizer;
+  private final boolean streaming;
+  private final WordDictionary dictionary;
+  private final ParseCache cache;
+  private final NearDuplicateIndex nearDuplicates;
 
   @Inject
   PageParserFactoryImpl(
-      Profiler profiler, @IgnoredWords List<Pattern> ignoredWords, @Timeout Duration timeout) {
+      Profiler profiler,
+      @IgnoredWords List<Pattern> ignoredWords,
+      PageFetcher fetcher,
+      UrlCanonicalizer canonicalizer,
+      @StreamingParser boolean streaming,
+      WordDictionary dictionary,
+      ParseCache cache,
+      NearDuplicateIndex nearDuplicates) {
     this.profiler = profiler;
     this.ignoredWords = ignoredWords;
-    this.timeout = timeout;
+    this.fetcher = fetcher;
+    this.canonicalizer = canonicalizer;
+    this.streaming = streaming;
+    this.dictionary = dictionary;
+    this.cache = cache;
+    this.nearDuplicates = nearDuplicates;
+  }
+
+  /**
+   * Forgets the pages seen by the near-duplicate check during earlier crawls.
+   */
+  @Override
+  public void startCrawl() {
+    nearDuplicates.clear();
   }
 
   @Override
   public PageParser get(String url) {
     // Here, parse the page with the initial timeout (instead of just the time remaining), to make
     // the download less likely to fail. Deadline enforcement should happen at a higher level.
-    PageParser delegate = new PageParserImpl(url, timeout, ignoredWords);
-    return profiler.wrap(PageParser.class, delegate);
+    PageParser delegate = cache.isEnabled() ? () -> parseCached(url) : newParser(url);
+    return profiler.wrap(PageParser.class, skippingNearDuplicates(delegate));
+  }
+
+  @Override
+  public PageParser get(FetchedPage page) {
+    PageParser delegate =
+        cache.isEnabled() ? () -> cache.parse(page, newParser(page)) : newParser(page);
+    return profiler.wrap(PageParser.class, skippingNearDuplicates(delegate));
+  }
+
+  private PageParser skippingNearDuplicates(PageParser parser) {
+    if (!nearDuplicates.isEnabled()) {
+      return parser;
+    }
+    return () -> {
+      PageParser.Result result = parser.parse();
+      return nearDuplicates.isNearDuplicate(result) ? PageParser.Result.empty() : result;
+    };
+  }
+
+  private PageParser newParser(String url) {
+    return streaming
+        ? new StreamingPageParser(url, fetcher, ignoredWords, canonicalizer, dictionary)
+        : new PageParserImpl(url, fetcher, ignoredWords, canonicalizer, dictionary);
+  }
+
+  private PageParser newParser(FetchedPage page) {
+    return streaming
+        ? new StreamingPageParser(page, ignoredWords, canonicalizer, dictionary)
+        : new PageParserImpl(page, ignoredWords, canonicalizer, dictionary);
+  }
+
+  /**
+   * Parses the page at the given URL through the cache. Local files are looked up by URL before
+   * they are read, and remote pages by content once they are downloaded.
+   */
+  private PageParser.Result parseCached(String url) {
+    try {
+      URI uri = new URI(url);
+      if (PageParserImpl.isLocalFile(uri)) {
+        BasicFileAttributes attributes =
+            Files.readAttributes(Path.of(uri), BasicFileAttributes.class);
+        return cache.parseLocal(url, attributes, newParser(url));
+      }
+    } catch (URISyntaxException | IOException | RuntimeException e) {
+      // Let the parser deal with the URL as if there was no cache.
+      return newParser(url).parse();
+    }
+
+    FetchedPage page;
+    try {
+      page = fetcher.fetch(url);
+    } catch (Exception e) {
+      // Same as the parsers, which give an empty result for pages that cannot be downloaded.
+      return PageParser.Result.empty();
+    }
+    return cache.parse(page, newParser(page));
   }
 }
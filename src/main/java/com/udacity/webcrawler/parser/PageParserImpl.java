@@ -8,17 +8,16 @@ import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Evaluator.Tag;
 import org.jsoup.select.NodeVisitor;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -27,22 +26,20 @@ import java.util.regex.Pattern;
  * <p>HTML parsing is done using the JSoup library. This class is a thin adapter around JSoup's API,
  * since JSoup does not know how to correctly resolve relative hyperlinks when parsing HTML from
  * local files.
+ *
+ * <p>The page is downloaded with a {@link PageFetcher} when {@link #parse()} is called, unless it
+ * was already downloaded by an earlier stage of the crawl and handed to the constructor. Local
+ * files are read with the {@link LocalFileReader} instead, which decodes them without taking a
+ * copy of their bytes.
  */
 final class PageParserImpl implements PageParser {
 
-  /**
-   * Matches whitespace characters.
-   */
-  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
-
-  /**
-   * Matches non-word characters.
-   */
-  private static final Pattern NON_WORD_CHARACTERS = Pattern.compile("\\W");
-
   private final String uri;
-  private final Duration timeout;
+  private final PageFetcher fetcher;
+  private final FetchedPage page;
   private final List<Pattern> ignoredWords;
+  private final UrlCanonicalizer canonicalizer;
+  private final WordDictionary dictionary;
 
   /**
    * Constructs a page parser with the given parameters.
@@ -52,9 +49,45 @@ final class PageParserImpl implements PageParser {
    * @param ignoredWords patterns of which words should be ignored by the {@link #parse()} method.
    */
   PageParserImpl(String uri, Duration timeout, List<Pattern> ignoredWords) {
+    this(
+        uri,
+        new PageFetcherImpl(timeout),
+        ignoredWords,
+        new UrlCanonicalizer(List.of(), false),
+        new WordDictionary());
+  }
+
+  /**
+   * Constructs a page parser that downloads the page with the given {@link PageFetcher}.
+   */
+  PageParserImpl(
+      String uri,
+      PageFetcher fetcher,
+      List<Pattern> ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      WordDictionary dictionary) {
     this.uri = Objects.requireNonNull(uri);
-    this.timeout = Objects.requireNonNull(timeout);
+    this.fetcher = Objects.requireNonNull(fetcher);
+    this.page = null;
+    this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+    this.dictionary = Objects.requireNonNull(dictionary);
+  }
+
+  /**
+   * Constructs a page parser for a page that has already been downloaded.
+   */
+  PageParserImpl(
+      FetchedPage page,
+      List<Pattern> ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      WordDictionary dictionary) {
+    this.uri = page.getUrl();
+    this.fetcher = null;
+    this.page = page;
     this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+    this.dictionary = Objects.requireNonNull(dictionary);
   }
 
   @Override
@@ -64,31 +97,40 @@ final class PageParserImpl implements PageParser {
       parsedUri = new URI(uri);
     } catch (URISyntaxException e) {
       // Invalid link; ignore
-      return new Result.Builder().build();
+      return Result.empty();
     }
 
     Document document;
     try {
-      document = parseDocument(parsedUri);
+      if (page == null && isLocalFile(parsedUri)) {
+        // Local pages have an empty base URI, the same as the fetcher gives them.
+        document = Jsoup.parse(LocalFileReader.read(Path.of(parsedUri)).toString(), "");
+      } else {
+        document = parseDocument((page != null) ? page : fetcher.fetch(uri));
+      }
     } catch (Exception e) {
       // There are multiple exceptions that can be encountered due to invalid URIs or Mimetypes that
       // Jsoup does not handle. There is not much we can do here.
-      return new Result.Builder().build();
+      return Result.empty();
     }
 
-    Result.Builder builder = new Result.Builder();
+    Result.Builder builder = new Result.Builder(dictionary);
+    WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    // If this is a local file, resolve links against its directory, since Jsoup only knows how to
+    // resolve relative hrefs if the base URI is a "real" remote URI. Otherwise, resolve them the
+    // same way as Jsoup's "abs:href", against the base URI of the document, which Jsoup sets from
+    // the first <base> element.
+    LinkResolver links = isLocalFile(parsedUri)
+        ? LinkResolver.forLocalFile(parsedUri, canonicalizer)
+        : LinkResolver.forBaseUri(document.baseUri(), canonicalizer);
+    Consumer<CharSequence> addWord = builder::addWord;
     // Do a single pass over the document to gather all hyperlinks and text.
     document.traverse(new NodeVisitor() {
       @Override
       public void head(Node node, int depth) {
         if (node instanceof TextNode) {
-          String text = ((TextNode) node).text().strip();
-          Arrays.stream(WHITESPACE.split(text))
-              .filter(s -> !s.isBlank())
-              .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
-              .map(s -> NON_WORD_CHARACTERS.matcher(s).replaceAll(""))
-              .map(String::toLowerCase)
-              .forEach(builder::addWord);
+          String text = ((TextNode) node).text();
+          tokenizer.tokenize(text, 0, text.length(), addWord);
           return;
         }
         if (!(node instanceof Element)) {
@@ -98,15 +140,7 @@ final class PageParserImpl implements PageParser {
         if (!element.is(new Tag("a")) || !element.hasAttr("href")) {
           return;
         }
-        if (isLocalFile(parsedUri)) {
-          // If this is a local file, add the base path back in manually, since Jsoup only knows how
-          // to resolve relative hrefs if the base URI is a "real" remote URI.
-          String basePath = Path.of(parsedUri).getParent().toString();
-          builder.addLink(Path.of(basePath, element.attr("href")).toUri().toString());
-        } else {
-          // Otherwise, let Jsoup resolve the absolute URL for us.
-          builder.addLink(element.attr("abs:href"));
-        }
+        builder.addLink(links.resolve(element.attr("href")));
       }
 
       @Override
@@ -117,27 +151,23 @@ final class PageParserImpl implements PageParser {
   }
 
   /**
-   * Returns a Jsoup {@link Document} representation of the file at the given {@link URI}, which may
-   * refer to a local document or a remote web page.
+   * Returns a Jsoup {@link Document} representation of the given downloaded page, which may be a
+   * local document or a remote web page.
    */
-  private Document parseDocument(URI uri) throws IOException {
-    if (!isLocalFile(uri)) {
-      return Jsoup.parse(uri.toURL(), (int) timeout.toMillis());
-    }
-
+  private static Document parseDocument(FetchedPage page) throws IOException {
     // Unfortunately, Jsoup.parse() has a baseUri parameter that does not work with local
     // "file://" URIs. If we want the parser to support those URIs, which are very useful for
-    // testing, the work-around is to pass in an empty baseUri and manually add the base back to
-    // href attributes.
-    try (InputStream in = Files.newInputStream(Path.of(uri))) {
-      return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+    // testing, the work-around is that the fetcher gives local pages an empty baseUri, and parse()
+    // manually adds the base back to href attributes.
+    try (InputStream in = new ByteArrayInputStream(page.getBody())) {
+      return Jsoup.parse(in, page.getCharset(), page.getBaseUri());
     }
   }
 
   /**
    * Returns true if and only if the given {@link URI} represents a local file.
    */
-  private static boolean isLocalFile(URI uri) {
+  static boolean isLocalFile(URI uri) {
     return uri.getScheme() != null && uri.getScheme().equals("file");
   }
 }
\ No newline at end of file
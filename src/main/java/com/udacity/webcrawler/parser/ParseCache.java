@@ -0,0 +1,178 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A size-bounded cache of parse results, so that a page whose body has already been parsed is not
+ * parsed again.
+ *
+ * <p>Results are found by the content of the page: a 64-bit hash of the body, together with its
+ * length, its character set and the base that its links are resolved against. The same body
+ * downloaded from different URLs, for example through redirects, is parsed once. Local files are
+ * found by URL instead, as long as their modification time and size have not changed, so that they
+ * are not even read again.
+ *
+ * <p>When the cache is full, the least recently used result is evicted. Results are immutable, so
+ * they are shared as they are by every page they are returned for. Every lookup is recorded with
+ * the {@link Profiler}, as a sample of 100 for a hit or 0 for a miss in the
+ * {@code "parseCache.hitPercent"} metric, so the mean of the metric is the hit rate.
+ */
+final class ParseCache {
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final int maxEntries;
+  private final Profiler profiler;
+  // Keys are either ContentKeys, or the URLs of local files. Guarded by this.
+  private final Map<Object, Entry> entries;
+
+  /**
+   * Creates a cache that holds at most the given number of results, or none if it is zero.
+   */
+  ParseCache(int maxEntries, Profiler profiler) {
+    if (maxEntries < 0) {
+      throw new IllegalArgumentException("maxEntries cannot be negative");
+    }
+    this.maxEntries = maxEntries;
+    this.profiler = Objects.requireNonNull(profiler);
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+        return size() > ParseCache.this.maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns false if the cache cannot hold any results.
+   */
+  boolean isEnabled() {
+    return maxEntries > 0;
+  }
+
+  /**
+   * Returns the cached result of a page with the same content as the given page, or parses the
+   * page with the given parser and caches its result.
+   */
+  PageParser.Result parse(FetchedPage page, PageParser parser) {
+    return parse(new ContentKey(page), null, -1, parser);
+  }
+
+  /**
+   * Returns the cached result of the local file with the given URL, unless the file has been
+   * modified since, or parses the file with the given parser and caches its result.
+   *
+   * @param attributes the current attributes of the file.
+   */
+  PageParser.Result parseLocal(String url, BasicFileAttributes attributes, PageParser parser) {
+    return parse(url, attributes.lastModifiedTime(), attributes.size(), parser);
+  }
+
+  private PageParser.Result parse(Object key, FileTime modified, long size, PageParser parser) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+    }
+    if (entry != null && Objects.equals(entry.modified, modified) && entry.size == size) {
+      profiler.recordMetric("parseCache.hitPercent", 100);
+      return entry.result;
+    }
+    profiler.recordMetric("parseCache.hitPercent", 0);
+    // Parsed without holding the lock. Two threads may parse the same page at once, and then both
+    // store the same result.
+    PageParser.Result result = parser.parse();
+    synchronized (this) {
+      entries.put(key, new Entry(result, modified, size));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a 64-bit hash of the given bytes, reading them eight at a time.
+   */
+  static long hash(byte[] bytes) {
+    long hash = 0x9e3779b97f4a7c15L ^ bytes.length;
+    int i = 0;
+    for (; i + Long.BYTES <= bytes.length; i += Long.BYTES) {
+      hash = Long.rotateLeft(hash ^ mix((long) LONGS.get(bytes, i)), 27) * 5 + 0x52dce729;
+    }
+    long tail = 0;
+    for (int shift = 0; i < bytes.length; i++, shift += 8) {
+      tail |= (bytes[i] & 0xffL) << shift;
+    }
+    return mix(hash ^ mix(tail));
+  }
+
+  /**
+   * The finalization step of MurmurHash3, which spreads every input bit over the whole output.
+   */
+  private static long mix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  /**
+   * What the result of parsing a page depends on.
+   */
+  private static final class ContentKey {
+    private final long hash;
+    private final int length;
+    private final String charset;
+    private final String linkBase;
+
+    ContentKey(FetchedPage page) {
+      this.hash = hash(page.getBody());
+      this.length = page.size();
+      this.charset = page.getCharset();
+      // Links in local files are resolved against the directory of the file, see PageParserImpl.
+      String url = page.getUrl();
+      this.linkBase = page.getBaseUri().isEmpty()
+          ? url.substring(0, url.lastIndexOf('/') + 1)
+          : page.getBaseUri();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof ContentKey)) {
+        return false;
+      }
+      ContentKey other = (ContentKey) o;
+      return hash == other.hash
+          && length == other.length
+          && Objects.equals(charset, other.charset)
+          && linkBase.equals(other.linkBase);
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(hash);
+    }
+  }
+
+  private static final class Entry {
+    private final PageParser.Result result;
+    // The modification time and size of a local file, or null and -1.
+    private final FileTime modified;
+    private final long size;
+
+    Entry(PageParser.Result result, FileTime modified, long size) {
+      this.result = result;
+      this.modified = modified;
+      this.size = size;
+    }
+  }
+}
@@ -2,7 +2,11 @@ package com.udacity.webcrawler.parser;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Key;
+import com.google.inject.Provides;
+import com.udacity.webcrawler.profiler.Profiler;
 
+import javax.inject.Singleton;
+import java.net.http.HttpClient;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
@@ -10,18 +14,37 @@ import java.util.regex.Pattern;
 
 /**
  * Guice dependency injection module that installs a {@link PageParserFactory} that can be used to
- * create page parsers.
+ * create page parsers, the {@link PageFetcher} they download pages with, and the
+ * {@link WordDictionary} they all share.
  */
 public final class ParserModule extends AbstractModule {
   private final Duration timeout;
   private final List<Pattern> ignoredWords;
+  private final UrlCanonicalizer canonicalizer;
+  private final boolean streamingParser;
+  private final int parseCacheSize;
+  private final int nearDuplicateDistance;
+  private final int nearDuplicateCapacity;
 
   /**
-   * Creates a {@link ParserModule} from the given timeout and ignored word patterns.
+   * Creates a {@link ParserModule} from the given timeout, ignored word patterns, link
+   * canonicalizer, choice of parser, parse cache size and near-duplicate settings.
    */
-  private ParserModule(Duration timeout, List<Pattern> ignoredWords) {
+  private ParserModule(
+      Duration timeout,
+      List<Pattern> ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      boolean streamingParser,
+      int parseCacheSize,
+      int nearDuplicateDistance,
+      int nearDuplicateCapacity) {
     this.timeout = timeout;
     this.ignoredWords = ignoredWords;
+    this.canonicalizer = canonicalizer;
+    this.streamingParser = streamingParser;
+    this.parseCacheSize = parseCacheSize;
+    this.nearDuplicateDistance = nearDuplicateDistance;
+    this.nearDuplicateCapacity = nearDuplicateCapacity;
   }
 
   @Override
@@ -29,6 +52,39 @@ public final class ParserModule extends AbstractModule {
     bind(Key.get(Duration.class, ParseDeadline.class)).toInstance(timeout);
     bind(new Key<List<Pattern>>(IgnoredWords.class) {}).toInstance(ignoredWords);
     bind(PageParserFactory.class).to(PageParserFactoryImpl.class);
+    bind(PageFetcher.class).to(PageFetcherImpl.class);
+    bind(UrlCanonicalizer.class).toInstance(canonicalizer);
+    bind(Key.get(Boolean.class, StreamingParser.class)).toInstance(streamingParser);
+    bind(WordDictionary.class).in(Singleton.class);
+  }
+
+  /**
+   * Provides the {@link HttpClient} shared by all downloads, so that connections to a host are
+   * reused across pages.
+   */
+  @Provides
+  @Singleton
+  HttpClient provideHttpClient() {
+    return PageFetcherImpl.newHttpClient(timeout);
+  }
+
+  /**
+   * Provides the {@link ParseCache} shared by all parsers.
+   */
+  @Provides
+  @Singleton
+  ParseCache provideParseCache(Profiler profiler) {
+    return new ParseCache(parseCacheSize, profiler);
+  }
+
+  /**
+   * Provides the {@link NearDuplicateIndex} shared by all parsers. The factory clears it at the
+   * start of each crawl; see {@link PageParserFactory#startCrawl()}.
+   */
+  @Provides
+  @Singleton
+  NearDuplicateIndex provideNearDuplicateIndex(Profiler profiler) {
+    return new NearDuplicateIndex(nearDuplicateDistance, nearDuplicateCapacity, profiler);
   }
 
   /**
@@ -37,6 +93,12 @@ public final class ParserModule extends AbstractModule {
   public static final class Builder {
     private Duration timeout;
     private List<Pattern> ignoredWords;
+    private List<String> strippedQueryParameters = List.of();
+    private boolean sortQueryParameters;
+    private boolean streamingParser;
+    private int parseCacheSize;
+    private int nearDuplicateDistance = -1;
+    private int nearDuplicateCapacity;
 
     /**
      * Sets the timeout that will be used by the page parser.
@@ -54,11 +116,80 @@ public final class ParserModule extends AbstractModule {
       return this;
     }
 
+    /**
+     * Sets the names of the query parameters that are removed from links. Defaults to none.
+     *
+     * <p>See {@link UrlCanonicalizer#UrlCanonicalizer(java.util.Collection, boolean)}.
+     */
+    public Builder setStrippedQueryParameters(List<String> strippedQueryParameters) {
+      this.strippedQueryParameters = Objects.requireNonNull(strippedQueryParameters);
+      return this;
+    }
+
+    /**
+     * Sets whether the query parameters of links are sorted. Defaults to false.
+     */
+    public Builder setSortQueryParameters(boolean sortQueryParameters) {
+      this.sortQueryParameters = sortQueryParameters;
+      return this;
+    }
+
+    /**
+     * Sets whether pages are parsed by streaming them through a lexer, instead of building a Jsoup
+     * document tree for each one. Defaults to false.
+     *
+     * <p>See {@link com.udacity.webcrawler.json.CrawlerConfiguration#getHtmlParser()}.
+     */
+    public Builder setStreamingParser(boolean streamingParser) {
+      this.streamingParser = streamingParser;
+      return this;
+    }
+
+    /**
+     * Sets the number of parse results that are kept, so that pages with the same content are
+     * only parsed once. Defaults to zero, which disables the cache.
+     *
+     * <p>See {@link com.udacity.webcrawler.json.CrawlerConfiguration#getParseCacheSize()}.
+     */
+    public Builder setParseCacheSize(int parseCacheSize) {
+      this.parseCacheSize = parseCacheSize;
+      return this;
+    }
+
+    /**
+     * Sets the most bits in which the SimHashes of two pages may differ for the later page to be
+     * skipped as a near-duplicate of the earlier one. Defaults to -1, which disables the check.
+     *
+     * <p>See {@link com.udacity.webcrawler.json.CrawlerConfiguration#getNearDuplicateDistance()}.
+     */
+    public Builder setNearDuplicateDistance(int nearDuplicateDistance) {
+      this.nearDuplicateDistance = nearDuplicateDistance;
+      return this;
+    }
+
+    /**
+     * Sets the most page fingerprints that are kept to find near-duplicates. Defaults to zero,
+     * which disables the check.
+     *
+     * <p>See {@link com.udacity.webcrawler.json.CrawlerConfiguration#getNearDuplicateCapacity()}.
+     */
+    public Builder setNearDuplicateCapacity(int nearDuplicateCapacity) {
+      this.nearDuplicateCapacity = nearDuplicateCapacity;
+      return this;
+    }
+
     /**
      * Builds a {@link ParserModule} from this {@link Builder}.
      */
     public ParserModule build() {
-      return new ParserModule(timeout, ignoredWords);
+      return new ParserModule(
+          timeout,
+          ignoredWords,
+          new UrlCanonicalizer(strippedQueryParameters, sortQueryParameters),
+          streamingParser,
+          parseCacheSize,
+          nearDuplicateDistance,
+          nearDuplicateCapacity);
     }
   }
 }
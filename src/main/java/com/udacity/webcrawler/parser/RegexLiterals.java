@@ -0,0 +1,98 @@
+package com.udacity.webcrawler.parser;
+
+/**
+ * Recognizes the ignored word and URL patterns that stand for a literal string, so that the
+ * matchers can check them without running the regex engine.
+ *
+ * <p>All the methods assume the pattern is used with {@link java.util.regex.Matcher#matches()} and
+ * without flags.
+ */
+public final class RegexLiterals {
+
+  private static final String META_CHARS = "\\^$.|?*+()[]{}";
+
+  private RegexLiterals() {
+  }
+
+  /**
+   * Removes a leading {@code ^} and a trailing {@code $}, which change nothing for a pattern that
+   * has to match the whole input.
+   */
+  public static String stripAnchors(String regex) {
+    int start = regex.startsWith("^") ? 1 : 0;
+    int end = regex.length();
+    if (end > start && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+      end--;
+    }
+    return regex.substring(start, end);
+  }
+
+  /**
+   * Returns the string the given regex stands for, or null if it is not a literal.
+   */
+  public static String parse(String regex) {
+    StringBuilder literal = new StringBuilder();
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c != '\\') {
+        if (META_CHARS.indexOf(c) >= 0) {
+          return null;
+        }
+        literal.append(c);
+        i++;
+        continue;
+      }
+      if (i + 1 >= regex.length()) {
+        return null;
+      }
+      char escaped = regex.charAt(i + 1);
+      if (escaped == 'Q') {
+        int quoteEnd = regex.indexOf("\\E", i + 2);
+        if (quoteEnd < 0) {
+          return null;
+        }
+        literal.append(regex, i + 2, quoteEnd);
+        i = quoteEnd + 2;
+      } else if (escaped < 128 && !Character.isLetterOrDigit(escaped)) {
+        // A backslash in front of a non-alphabetic character always stands for it.
+        literal.append(escaped);
+        i += 2;
+      } else {
+        return null;
+      }
+    }
+    return literal.toString();
+  }
+
+  /**
+   * Returns true if the character at the given index of the regex is escaped by a backslash.
+   */
+  public static boolean isEscaped(String regex, int index) {
+    int backslashes = 0;
+    for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  /**
+   * Returns true if the given character is a line terminator, which {@code "."} does not match, so
+   * literal forms with {@code .*} do not account for it.
+   */
+  public static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /**
+   * Returns true if the given text has a {@linkplain #isLineTerminator(char) line terminator}.
+   */
+  public static boolean hasLineTerminator(CharSequence text) {
+    for (int i = 0; i < text.length(); i++) {
+      if (isLineTerminator(text.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
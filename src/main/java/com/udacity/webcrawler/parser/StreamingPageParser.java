@@ -0,0 +1,323 @@
+package com.udacity.webcrawler.parser;
+
+import org.jsoup.internal.StringUtil;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An implementation of {@link PageParser} that streams the page through an {@link HtmlLexer}
+ * instead of building a Jsoup {@link org.jsoup.nodes.Document}.
+ *
+ * <p>It finds the same words and links as {@link PageParserImpl} on real pages: the page is decoded
+ * with the same character set, text gets the same whitespace normalization as
+ * {@link org.jsoup.nodes.TextNode#text()}, and links are resolved the same way, including against a
+ * {@code <base>} element. Only the text and links themselves are allocated, so parsing a page takes
+ * much less time and memory.
+ */
+final class StreamingPageParser implements PageParser {
+
+  /**
+   * Matches the charset parameter of a {@code <meta http-equiv="Content-Type">} tag, like Jsoup.
+   */
+  private static final Pattern CHARSET =
+      Pattern.compile("(?i)\\bcharset=\\s*(?:[\"'])?([^\\s,;\"']*)");
+
+  // Pages are decoded into a buffer that is kept by each thread, unless they are larger than this
+  // many characters.
+  private static final int MAX_BUFFER_SIZE = 1 << 20;
+  private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[1 << 16]);
+
+  private final String uri;
+  private final PageFetcher fetcher;
+  private final FetchedPage page;
+  private final List<Pattern> ignoredWords;
+  private final UrlCanonicalizer canonicalizer;
+  private final WordDictionary dictionary;
+
+  /**
+   * Constructs a page parser that downloads the page with the given {@link PageFetcher}.
+   */
+  StreamingPageParser(
+      String uri,
+      PageFetcher fetcher,
+      List<Pattern> ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      WordDictionary dictionary) {
+    this.uri = Objects.requireNonNull(uri);
+    this.fetcher = Objects.requireNonNull(fetcher);
+    this.page = null;
+    this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+    this.dictionary = Objects.requireNonNull(dictionary);
+  }
+
+  /**
+   * Constructs a page parser for a page that has already been downloaded.
+   */
+  StreamingPageParser(
+      FetchedPage page,
+      List<Pattern> ignoredWords,
+      UrlCanonicalizer canonicalizer,
+      WordDictionary dictionary) {
+    this.uri = page.getUrl();
+    this.fetcher = null;
+    this.page = page;
+    this.ignoredWords = Objects.requireNonNull(ignoredWords);
+    this.canonicalizer = Objects.requireNonNull(canonicalizer);
+    this.dictionary = Objects.requireNonNull(dictionary);
+  }
+
+  @Override
+  public Result parse() {
+    URI parsedUri;
+    try {
+      parsedUri = new URI(uri);
+    } catch (URISyntaxException e) {
+      // Invalid link; ignore
+      return Result.empty();
+    }
+
+    if (page == null && PageParserImpl.isLocalFile(parsedUri)) {
+      return parseLocalFile(parsedUri);
+    }
+
+    FetchedPage fetched;
+    Charset charset;
+    try {
+      fetched = (page != null) ? page : fetcher.fetch(uri);
+      charset = (fetched.getCharset() != null) ? Charset.forName(fetched.getCharset()) : null;
+    } catch (Exception e) {
+      // Same as PageParserImpl, which gets the same exceptions from Jsoup.
+      return Result.empty();
+    }
+
+    byte[] body = fetched.getBody();
+    Charset bom = charsetFromByteOrderMark(body);
+    if (bom != null) {
+      charset = bom;
+    }
+    Collector collector = new Collector(parsedUri, fetched.getBaseUri(), charset == null);
+    lex(body, (charset != null) ? charset : StandardCharsets.UTF_8, collector);
+    Charset declared = collector.declaredCharset;
+    if (declared != null && !declared.equals(StandardCharsets.UTF_8)) {
+      // Like Jsoup, read the page again when it declares a character set of its own.
+      collector = new Collector(parsedUri, fetched.getBaseUri(), false);
+      lex(body, declared, collector);
+    }
+    return collector.build();
+  }
+
+  /**
+   * Reads the local file at the given URI with the {@link LocalFileReader} and lexes it, without
+   * going through the {@link PageFetcher}.
+   */
+  private Result parseLocalFile(URI parsedUri) {
+    CharBuffer chars;
+    try {
+      chars = LocalFileReader.read(Path.of(parsedUri));
+    } catch (IOException | RuntimeException e) {
+      // Same as when the fetcher cannot read the file.
+      return Result.empty();
+    }
+    // Local files are always read as UTF-8, so the page cannot declare a character set.
+    Collector collector = new Collector(parsedUri, "", false);
+    HtmlLexer.lex(chars.array(), chars.limit(), collector);
+    return collector.build();
+  }
+
+  /**
+   * Decodes the page into the buffer of the current thread and lexes it.
+   */
+  private static void lex(byte[] body, Charset charset, HtmlLexer.Handler handler) {
+    // Malformed input is replaced, like it is by the InputStreamReader that Jsoup reads with.
+    CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    int maxChars = (int) Math.min(
+        Integer.MAX_VALUE - 8, (long) Math.ceil(body.length * (double) decoder.maxCharsPerByte()));
+    char[] chars = BUFFER.get();
+    if (chars.length < maxChars) {
+      chars = new char[maxChars];
+      if (maxChars <= MAX_BUFFER_SIZE) {
+        BUFFER.set(chars);
+      }
+    }
+    CharBuffer out = CharBuffer.wrap(chars);
+    decoder.decode(ByteBuffer.wrap(body), out, true);
+    decoder.flush(out);
+    HtmlLexer.lex(chars, out.position(), handler);
+  }
+
+  /**
+   * Returns the character set given by the byte order mark at the start of the page, if any.
+   */
+  private static Charset charsetFromByteOrderMark(byte[] body) {
+    if (body.length >= 4 && body[0] == 0 && body[1] == 0 && body[2] == (byte) 0xfe
+        && body[3] == (byte) 0xff) {
+      return Charset.forName("UTF-32BE");
+    }
+    if (body.length >= 4 && body[0] == (byte) 0xff && body[1] == (byte) 0xfe && body[2] == 0
+        && body[3] == 0) {
+      return Charset.forName("UTF-32LE");
+    }
+    if (body.length >= 2 && body[0] == (byte) 0xfe && body[1] == (byte) 0xff) {
+      return StandardCharsets.UTF_16BE;
+    }
+    if (body.length >= 2 && body[0] == (byte) 0xff && body[1] == (byte) 0xfe) {
+      return StandardCharsets.UTF_16LE;
+    }
+    if (body.length >= 3 && body[0] == (byte) 0xef && body[1] == (byte) 0xbb
+        && body[2] == (byte) 0xbf) {
+      return StandardCharsets.UTF_8;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the supported character set named by the given {@code Content-Type} value, or null.
+   */
+  private static Charset charsetFromContentType(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    Matcher matcher = CHARSET.matcher(contentType);
+    return matcher.find() ? supportedCharset(matcher.group(1).replace("charset=", "")) : null;
+  }
+
+  /**
+   * Returns the supported character set with the given name, or null.
+   */
+  private static Charset supportedCharset(String name) {
+    if (name == null) {
+      return null;
+    }
+    name = name.trim().replaceAll("[\"']", "");
+    try {
+      if (Charset.isSupported(name)) {
+        return Charset.forName(name);
+      }
+      name = name.toUpperCase(Locale.ENGLISH);
+      return Charset.isSupported(name) ? Charset.forName(name) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Gathers the words and links of a page from the {@link HtmlLexer}.
+   */
+  private final class Collector implements HtmlLexer.Handler {
+    private final Result.Builder builder = new Result.Builder(dictionary);
+    private final WordTokenizer tokenizer = new WordTokenizer(ignoredWords);
+    private final Consumer<CharSequence> addWord = builder::addWord;
+    private final StringBuilder normalized = new StringBuilder();
+    private final boolean detectCharset;
+    private final URI parsedUri;
+    private String baseUri;
+    private boolean baseSet;
+    // Links are resolved at the end, since a <base> element applies to the whole page.
+    private final List<String> hrefs = new ArrayList<>();
+    private Charset declaredCharset;
+    private boolean charsetDeclared;
+
+    Collector(URI parsedUri, String baseUri, boolean detectCharset) {
+      this.parsedUri = parsedUri;
+      this.baseUri = baseUri;
+      this.detectCharset = detectCharset;
+    }
+
+    @Override
+    public void text(CharSequence text, int start, int end) {
+      // Like TextNode.text(), which turns no-break spaces into spaces and drops invisible
+      // characters. Other whitespace is split on by the tokenizer either way.
+      if (hasInvisibleOrNoBreakSpace(text, start, end)) {
+        normalized.setLength(0);
+        for (int i = start; i < end; i++) {
+          char c = text.charAt(i);
+          if (c == '\u00a0') {
+            normalized.append(' ');
+          } else if (c != '\u200b' && c != '\u00ad') {
+            normalized.append(c);
+          }
+        }
+        text = normalized;
+        start = 0;
+        end = normalized.length();
+      }
+      tokenizer.tokenize(text, start, end, addWord);
+    }
+
+    @Override
+    public void anchor(String href) {
+      hrefs.add(href);
+    }
+
+    @Override
+    public void base(String href) {
+      // Like Jsoup, only the first <base> with a link counts.
+      if (!baseSet) {
+        String resolved = StringUtil.resolve(baseUri, href);
+        if (!resolved.isEmpty()) {
+          baseUri = resolved;
+          baseSet = true;
+        }
+      }
+    }
+
+    @Override
+    public void meta(String httpEquiv, String content, String charset) {
+      // Like Jsoup, which uses the first <meta http-equiv="Content-Type"> or <meta charset> tag
+      // that names a character set, even one that is not supported.
+      if (!detectCharset
+          || charsetDeclared
+          || (!"content-type".equalsIgnoreCase(httpEquiv) && charset == null)) {
+        return;
+      }
+      Charset fromContentType = (httpEquiv != null) ? charsetFromContentType(content) : null;
+      if (fromContentType != null || charset != null) {
+        charsetDeclared = true;
+        declaredCharset = (fromContentType != null) ? fromContentType : supportedCharset(charset);
+      }
+    }
+
+    Result build() {
+      if (hrefs.isEmpty()) {
+        return builder.build();
+      }
+      // The same resolution as PageParserImpl, including for local files.
+      LinkResolver links = PageParserImpl.isLocalFile(parsedUri)
+          ? LinkResolver.forLocalFile(parsedUri, canonicalizer)
+          : LinkResolver.forBaseUri(baseUri, canonicalizer);
+      for (String href : hrefs) {
+        builder.addLink(links.resolve(href));
+      }
+      return builder.build();
+    }
+  }
+
+  private static boolean hasInvisibleOrNoBreakSpace(CharSequence text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      if (c == '\u00a0' || c == '\u200b' || c == '\u00ad') {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,302 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Rewrites URLs into a canonical form, so that different spellings of the same URL are crawled only
+ * once.
+ *
+ * <p>The canonical form has a lower-case scheme and host, no default port, no fragment, and a path
+ * without "." and ".." segments. Query parameters whose names are configured to be stripped are
+ * removed, and the remaining parameters can optionally be sorted by name.
+ *
+ * <p>This runs on every link that is found, so it works in a single pass over the URL with
+ * per-thread buffers, and returns the given string itself when it is already canonical. Crawlers
+ * also run the starting URLs through it, so that a starting page is recognized when a link leads
+ * back to it.
+ */
+public final class UrlCanonicalizer {
+
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(256));
+  // Start and end index of each query parameter that is kept. Grown, and kept, as needed.
+  private static final ThreadLocal<int[]> KEPT_PARAMETERS =
+      ThreadLocal.withInitial(() -> new int[16]);
+
+  private final List<String> strippedNames = new ArrayList<>();
+  private final List<String> strippedPrefixes = new ArrayList<>();
+  private final boolean sortQueryParameters;
+
+  /**
+   * Creates a canonicalizer.
+   *
+   * @param strippedQueryParameters names of query parameters to remove. A name that ends with
+   *                                {@code *} removes all parameters that start with the rest of
+   *                                the name, for example {@code utm_*}.
+   * @param sortQueryParameters     whether the remaining query parameters should be sorted.
+   */
+  public UrlCanonicalizer(Collection<String> strippedQueryParameters, boolean sortQueryParameters) {
+    for (String name : strippedQueryParameters) {
+      if (name.endsWith("*")) {
+        strippedPrefixes.add(name.substring(0, name.length() - 1));
+      } else {
+        strippedNames.add(Objects.requireNonNull(name));
+      }
+    }
+    this.sortQueryParameters = sortQueryParameters;
+  }
+
+  /**
+   * Returns the canonical forms of the given absolute URLs, in the same order.
+   */
+  public List<String> canonicalize(List<String> urls) {
+    List<String> canonical = new ArrayList<>(urls.size());
+    for (String url : urls) {
+      canonical.add(canonicalize(url));
+    }
+    return canonical;
+  }
+
+  /**
+   * Returns the canonical form of the given absolute URL. Strings that do not start with a scheme
+   * are returned unchanged.
+   */
+  public String canonicalize(String url) {
+    int schemeEnd = schemeEnd(url);
+    if (schemeEnd < 0) {
+      return url;
+    }
+    StringBuilder out = BUFFER.get();
+    out.setLength(0);
+    for (int i = 0; i < schemeEnd; i++) {
+      out.append(toLowerAscii(url.charAt(i)));
+    }
+    out.append(':');
+
+    int end = url.indexOf('#', schemeEnd);
+    if (end < 0) {
+      end = url.length();
+    }
+    int pos = schemeEnd + 1;
+    boolean hierarchical = url.startsWith("//", pos);
+    boolean http = isScheme(url, schemeEnd, "http") || isScheme(url, schemeEnd, "https");
+    if (hierarchical) {
+      out.append("//");
+      pos += 2;
+      int authorityEnd = pos;
+      while (authorityEnd < end
+          && url.charAt(authorityEnd) != '/'
+          && url.charAt(authorityEnd) != '?') {
+        authorityEnd++;
+      }
+      appendAuthority(url, pos, authorityEnd, defaultPort(url, schemeEnd), out);
+      pos = authorityEnd;
+    }
+
+    int queryStart = url.indexOf('?', pos);
+    if (queryStart < 0 || queryStart > end) {
+      queryStart = end;
+    }
+    if (hierarchical && http && pos == queryStart) {
+      out.append('/');
+    } else {
+      appendPath(url, pos, queryStart, out);
+    }
+    if (queryStart < end) {
+      appendQuery(url, queryStart + 1, end, out);
+    }
+
+    if (out.length() == url.length() && url.contentEquals(out)) {
+      return url;
+    }
+    return out.toString();
+  }
+
+  private static void appendAuthority(
+      String url, int start, int end, String defaultPort, StringBuilder out) {
+    // Keep the user info as it is; only the host is case-insensitive.
+    int hostStart = url.lastIndexOf('@', end - 1) + 1;
+    if (hostStart > start) {
+      out.append(url, start, hostStart);
+    } else {
+      hostStart = start;
+    }
+    int hostEnd = hostStart;
+    if (hostEnd < end && url.charAt(hostEnd) == '[') {
+      // IPv6 literal, which contains colons.
+      while (hostEnd < end && url.charAt(hostEnd) != ']') {
+        hostEnd++;
+      }
+    }
+    while (hostEnd < end && url.charAt(hostEnd) != ':') {
+      hostEnd++;
+    }
+    for (int i = hostStart; i < hostEnd; i++) {
+      out.append(toLowerAscii(url.charAt(i)));
+    }
+    int portStart = hostEnd + 1;
+    if (portStart >= end) {
+      // No port, or an empty one.
+      return;
+    }
+    boolean isDefault = !defaultPort.isEmpty()
+        && end - portStart == defaultPort.length()
+        && url.startsWith(defaultPort, portStart);
+    if (!isDefault) {
+      out.append(url, hostEnd, end);
+    }
+  }
+
+  /**
+   * Appends the given path, without "." and ".." segments.
+   */
+  private static void appendPath(String url, int start, int end, StringBuilder out) {
+    if (start == end || url.charAt(start) != '/') {
+      out.append(url, start, end);
+      return;
+    }
+    int base = out.length();
+    int i = start;
+    while (i < end) {
+      // url.charAt(i) is the slash in front of the segment.
+      int segmentEnd = url.indexOf('/', i + 1);
+      if (segmentEnd < 0 || segmentEnd > end) {
+        segmentEnd = end;
+      }
+      int length = segmentEnd - i - 1;
+      boolean last = segmentEnd == end;
+      if (length == 1 && url.charAt(i + 1) == '.') {
+        if (last) {
+          out.append('/');
+        }
+      } else if (length == 2 && url.charAt(i + 1) == '.' && url.charAt(i + 2) == '.') {
+        int slash = out.lastIndexOf("/");
+        out.setLength(Math.max(base, slash));
+        if (last) {
+          out.append('/');
+        }
+      } else {
+        out.append(url, i, segmentEnd);
+      }
+      i = segmentEnd;
+    }
+  }
+
+  /**
+   * Appends the query that starts after the "?", without stripped or empty parameters.
+   */
+  private void appendQuery(String url, int start, int end, StringBuilder out) {
+    if (strippedNames.isEmpty() && strippedPrefixes.isEmpty() && !sortQueryParameters) {
+      if (start < end) {
+        out.append('?').append(url, start, end);
+      }
+      return;
+    }
+    int[] kept = KEPT_PARAMETERS.get();
+    int count = 0;
+    int i = start;
+    while (i < end) {
+      int paramEnd = url.indexOf('&', i);
+      if (paramEnd < 0 || paramEnd > end) {
+        paramEnd = end;
+      }
+      if (paramEnd > i && !isStripped(url, i, paramEnd)) {
+        if (count * 2 == kept.length) {
+          kept = Arrays.copyOf(kept, kept.length * 2);
+          KEPT_PARAMETERS.set(kept);
+        }
+        kept[count * 2] = i;
+        kept[count * 2 + 1] = paramEnd;
+        count++;
+      }
+      i = paramEnd + 1;
+    }
+    if (sortQueryParameters) {
+      // Insertion sort; queries have few parameters.
+      for (int a = 1; a < count; a++) {
+        int s = kept[a * 2];
+        int e = kept[a * 2 + 1];
+        int b = a - 1;
+        while (b >= 0 && compare(url, kept[b * 2], kept[b * 2 + 1], s, e) > 0) {
+          kept[b * 2 + 2] = kept[b * 2];
+          kept[b * 2 + 3] = kept[b * 2 + 1];
+          b--;
+        }
+        kept[b * 2 + 2] = s;
+        kept[b * 2 + 3] = e;
+      }
+    }
+    for (int p = 0; p < count; p++) {
+      out.append(p == 0 ? '?' : '&').append(url, kept[p * 2], kept[p * 2 + 1]);
+    }
+  }
+
+  private boolean isStripped(String url, int start, int end) {
+    int nameEnd = url.indexOf('=', start);
+    if (nameEnd < 0 || nameEnd > end) {
+      nameEnd = end;
+    }
+    int length = nameEnd - start;
+    for (String name : strippedNames) {
+      if (name.length() == length && url.regionMatches(start, name, 0, length)) {
+        return true;
+      }
+    }
+    for (String prefix : strippedPrefixes) {
+      if (prefix.length() <= length && url.regionMatches(start, prefix, 0, prefix.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int compare(String url, int aStart, int aEnd, int bStart, int bEnd) {
+    int length = Math.min(aEnd - aStart, bEnd - bStart);
+    for (int i = 0; i < length; i++) {
+      int diff = url.charAt(aStart + i) - url.charAt(bStart + i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return (aEnd - aStart) - (bEnd - bStart);
+  }
+
+  /**
+   * Returns the index of the colon that ends the scheme of the given URL, or -1 if it has none.
+   */
+  private static int schemeEnd(String url) {
+    for (int i = 0; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == ':') {
+        return (i > 0) ? i : -1;
+      }
+      boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+      if (!letter && (i == 0 || !((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'))) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isScheme(String url, int schemeEnd, String scheme) {
+    return schemeEnd == scheme.length() && url.regionMatches(true, 0, scheme, 0, schemeEnd);
+  }
+
+  private static String defaultPort(String url, int schemeEnd) {
+    if (isScheme(url, schemeEnd, "http")) {
+      return "80";
+    }
+    if (isScheme(url, schemeEnd, "https")) {
+      return "443";
+    }
+    return "";
+  }
+
+  private static char toLowerAscii(char c) {
+    return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+  }
+}
@@ -0,0 +1,138 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A map from words to {@code int} counts, for counting the words of a single page.
+ *
+ * <p>Counts are kept in an open-addressing hash table with linear probing, in plain arrays, so
+ * counting a word neither boxes an {@link Integer} nor allocates a map entry. Words are looked up
+ * by their characters, so the tokenizer can count a word straight from its reused buffer. The
+ * first time a word is counted, it is interned in a {@link WordDictionary}, and both its ID and the
+ * dictionary's copy of it are kept next to its count, so a word that has been seen on an earlier
+ * page costs no allocation, and each distinct word is only interned once.
+ *
+ * <p>Instances are not thread-safe.
+ */
+final class WordCountMap {
+
+  private static final int MIN_TABLE_SIZE = 16;
+
+  private final WordDictionary dictionary;
+  private String[] keys = new String[MIN_TABLE_SIZE];
+  private int[] hashes = new int[MIN_TABLE_SIZE];
+  private int[] ids = new int[MIN_TABLE_SIZE];
+  private int[] counts = new int[MIN_TABLE_SIZE];
+  private int size;
+
+  /**
+   * Creates an empty map whose words get their IDs from the given dictionary.
+   */
+  WordCountMap(WordDictionary dictionary) {
+    this.dictionary = Objects.requireNonNull(dictionary);
+  }
+
+  /**
+   * Adds one to the count of the given word. The word may be a buffer that is changed after this
+   * method returns.
+   */
+  void increment(CharSequence word) {
+    int hash = hash(word);
+    int mask = keys.length - 1;
+    int slot = spread(hash) & mask;
+    while (keys[slot] != null) {
+      if (hashes[slot] == hash && keys[slot].contentEquals(word)) {
+        counts[slot]++;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int id = dictionary.intern(word);
+    keys[slot] = dictionary.word(id);
+    hashes[slot] = hash;
+    ids[slot] = id;
+    counts[slot] = 1;
+    if (++size * 2 > keys.length) {
+      grow();
+    }
+  }
+
+  /**
+   * Returns the number of distinct words in the map.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Passes each word in the map to {@code action}, together with its count, in no particular
+   * order.
+   */
+  void forEach(ObjIntConsumer<String> action) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != null) {
+        action.accept(keys[slot], counts[slot]);
+      }
+    }
+  }
+
+  /**
+   * Copies the ID and the count of each word in the map into the given arrays, at the same index,
+   * in no particular order. Both arrays must have room for {@link #size()} words.
+   */
+  void copyTo(int[] wordIds, int[] wordCounts) {
+    int next = 0;
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != null) {
+        wordIds[next] = ids[slot];
+        wordCounts[next] = counts[slot];
+        next++;
+      }
+    }
+  }
+
+  private void grow() {
+    String[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    int[] oldIds = ids;
+    int[] oldCounts = counts;
+    keys = new String[oldKeys.length * 2];
+    hashes = new int[keys.length];
+    ids = new int[keys.length];
+    counts = new int[keys.length];
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] == null) {
+        continue;
+      }
+      int slot = spread(oldHashes[i]) & mask;
+      while (keys[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = oldKeys[i];
+      hashes[slot] = oldHashes[i];
+      ids[slot] = oldIds[i];
+      counts[slot] = oldCounts[i];
+    }
+  }
+
+  /**
+   * Returns the same hash as {@link String#hashCode()}.
+   */
+  private static int hash(CharSequence word) {
+    if (word instanceof String) {
+      return word.hashCode();
+    }
+    int hash = 0;
+    for (int i = 0; i < word.length(); i++) {
+      hash = 31 * hash + word.charAt(i);
+    }
+    return hash;
+  }
+
+  private static int spread(int hash) {
+    hash *= 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+}
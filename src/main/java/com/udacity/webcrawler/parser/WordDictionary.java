@@ -0,0 +1,139 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Gives each distinct word seen during a crawl an {@code int} ID, so that word counts can be added
+ * up in arrays indexed by ID instead of in maps keyed by strings.
+ *
+ * <p>IDs are handed out from zero, in the order the words are first seen, and a word keeps its ID
+ * for as long as the dictionary lives. Each word is stored once, however many pages it is found on.
+ *
+ * <p>Words are found through an open-addressing hash table of IDs with linear probing, backed by an
+ * {@link AtomicIntegerArray}. Slots only ever change from empty to an ID, so looking up a word that
+ * is already known neither locks nor allocates. Adding a new word takes a lock; when the table gets
+ * half full, the thread that holds it builds a bigger one and swaps it in. A lookup that misses a
+ * word because it raced with the swap retries under the lock.
+ */
+public final class WordDictionary {
+
+  private static final int CHUNK_BITS = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int MIN_TABLE_SIZE = 64;
+
+  // Slots hold an ID plus one, or zero when they are empty.
+  private volatile AtomicIntegerArray table = new AtomicIntegerArray(MIN_TABLE_SIZE);
+  // Words by ID, in chunks, so that adding words never copies the ones already stored.
+  private volatile String[][] words = new String[1][];
+  private volatile int size;
+
+  /**
+   * Returns the ID of the given word, giving it the next free ID if it has not been seen before.
+   */
+  public int intern(CharSequence word) {
+    int hash = hash(word);
+    int id = find(table, word, hash);
+    return (id >= 0) ? id : add(word, hash);
+  }
+
+  /**
+   * Returns the word with the given ID.
+   *
+   * @throws IndexOutOfBoundsException if no word has that ID.
+   */
+  public String word(int id) {
+    Objects.checkIndex(id, size);
+    return wordAt(id);
+  }
+
+  /**
+   * Returns the number of distinct words in the dictionary, which is one more than the highest ID.
+   */
+  public int size() {
+    return size;
+  }
+
+  private String wordAt(int id) {
+    return words[id >>> CHUNK_BITS][id & (CHUNK_SIZE - 1)];
+  }
+
+  private int find(AtomicIntegerArray table, CharSequence word, int hash) {
+    int mask = table.length() - 1;
+    for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+      int entry = table.get(slot);
+      if (entry == 0) {
+        return -1;
+      }
+      String candidate = wordAt(entry - 1);
+      if (candidate.hashCode() == hash && candidate.contentEquals(word)) {
+        return entry - 1;
+      }
+    }
+  }
+
+  private synchronized int add(CharSequence word, int hash) {
+    AtomicIntegerArray current = table;
+    int id = find(current, word, hash);
+    if (id >= 0) {
+      return id;
+    }
+    id = size;
+    String[][] chunks = words;
+    int chunk = id >>> CHUNK_BITS;
+    if (chunk == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunks.length * 2);
+    }
+    if (chunks[chunk] == null) {
+      chunks[chunk] = new String[CHUNK_SIZE];
+    }
+    // The word is stored before its ID is put in a slot, so that a thread that finds the ID also
+    // finds the word.
+    chunks[chunk][id & (CHUNK_SIZE - 1)] = word.toString();
+    words = chunks;
+    size = id + 1;
+    if ((id + 1) * 2 > current.length()) {
+      table = rebuild(current.length() * 2, id + 1);
+    } else {
+      insert(current, hash, id);
+    }
+    return id;
+  }
+
+  private AtomicIntegerArray rebuild(int tableSize, int count) {
+    AtomicIntegerArray bigger = new AtomicIntegerArray(tableSize);
+    for (int id = 0; id < count; id++) {
+      insert(bigger, wordAt(id).hashCode(), id);
+    }
+    return bigger;
+  }
+
+  private static void insert(AtomicIntegerArray table, int hash, int id) {
+    int mask = table.length() - 1;
+    int slot = spread(hash) & mask;
+    while (table.get(slot) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table.set(slot, id + 1);
+  }
+
+  /**
+   * Returns the same hash as {@link String#hashCode()}, which strings cache.
+   */
+  private static int hash(CharSequence word) {
+    if (word instanceof String) {
+      return word.hashCode();
+    }
+    int hash = 0;
+    for (int i = 0; i < word.length(); i++) {
+      hash = 31 * hash + word.charAt(i);
+    }
+    return hash;
+  }
+
+  private static int spread(int hash) {
+    hash *= 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,97 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Splits text into the words that are counted by the crawler.
+ *
+ * <p>The text is stripped and split at whitespace, tokens that match an ignored word pattern are
+ * dropped, and every other token has its non-word characters removed and is lower-cased. This is
+ * the same as running {@code \s+} split, {@code \W} removal and {@link String#toLowerCase()} one
+ * after the other, but done in a single scan over the text, into a per-thread buffer. Words can be
+ * taken straight from that buffer, so that splitting text allocates nothing at all.
+ *
+ * <p>Tokens are checked against the ignored word patterns in place, with an
+ * {@link IgnoredWordMatcher}, so instances must not be shared between threads.
+ */
+final class WordTokenizer {
+
+  private static final ThreadLocal<StringBuilder> BUFFER =
+      ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+  private final IgnoredWordMatcher ignoredWords;
+
+  /**
+   * Creates a tokenizer that drops the tokens that match any of the given patterns.
+   */
+  WordTokenizer(List<Pattern> ignoredWords) {
+    this.ignoredWords = new IgnoredWordMatcher(ignoredWords);
+  }
+
+  /**
+   * Passes the words of the given text to {@code words}, in order.
+   */
+  void tokenize(String text, Consumer<String> words) {
+    tokenize(text, 0, text.length(), word -> words.accept(word.toString()));
+  }
+
+  /**
+   * Passes the words of the characters of {@code text} between {@code start} and {@code end} to
+   * {@code words}, in order, as if they were a string of their own.
+   *
+   * <p>Each word is passed as a buffer that is reused for the next word, so it is only valid
+   * during the call.
+   */
+  void tokenize(CharSequence text, int start, int end, Consumer<? super CharSequence> words) {
+    // Like String.strip().
+    while (start < end && Character.isWhitespace(Character.codePointAt(text, start))) {
+      start += Character.charCount(Character.codePointAt(text, start));
+    }
+    while (end > start && Character.isWhitespace(Character.codePointBefore(text, end))) {
+      end -= Character.charCount(Character.codePointBefore(text, end));
+    }
+
+    StringBuilder word = BUFFER.get();
+    int i = start;
+    while (i < end) {
+      while (i < end && isSpace(text.charAt(i))) {
+        i++;
+      }
+      int tokenStart = i;
+      boolean blank = true;
+      word.setLength(0);
+      for (; i < end; i++) {
+        char c = text.charAt(i);
+        if (isSpace(c)) {
+          break;
+        }
+        if (c < 128 && isWordChar(c)) {
+          word.append((c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c);
+          blank = false;
+        } else if (blank && !Character.isWhitespace(c)) {
+          // Like String.isBlank(). Surrogates are never whitespace.
+          blank = false;
+        }
+      }
+      if (i > tokenStart && !blank && !ignoredWords.matches(text, tokenStart, i)) {
+        words.accept(word);
+      }
+    }
+  }
+
+  /**
+   * Returns true for the characters of the {@code \s} regex class.
+   */
+  private static boolean isSpace(char c) {
+    return c == ' ' || (c >= '\t' && c <= '\r');
+  }
+
+  /**
+   * Returns true for the ASCII characters of the {@code \w} regex class.
+   */
+  private static boolean isWordChar(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+}
@@ -26,6 +26,30 @@ public interface Profiler {
    */
   <T> T wrap(Class<T> klass, T delegate);
 
+  /**
+   * Records one sample of a named metric that is not a method timing, such as the depth of a queue
+   * or the time an item spent in a stage of the crawl.
+   *
+   * <p>Samples are aggregated per name, and the aggregates are written out together with the
+   * method timings by {@link #writeData(Writer) writeData}.
+   *
+   * @param name  the name of the metric.
+   * @param value the value of the sample.
+   */
+  void recordMetric(String name, long value);
+
+  /**
+   * Records one sample of a named value that changes over time, such as the size of a thread pool,
+   * together with the time since profiling started.
+   *
+   * <p>Unlike {@link #recordMetric(String, long) metrics}, samples are not aggregated: the whole
+   * series is written out in the order it was recorded, one timestamped sample after another.
+   *
+   * @param name  the name of the series.
+   * @param value the value of the sample.
+   */
+  void recordSeries(String name, long value);
+
   /**
    * Formats the profile data as a string and writes it to the given {@link Path}.
    *
@@ -13,6 +13,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.*;
 
@@ -64,6 +65,16 @@ final class ProfilerImpl implements Profiler {
         return (T) proxy;
     }
 
+    @Override
+    public void recordMetric(String name, long value) {
+        state.recordMetric(name, value);
+    }
+
+    @Override
+    public void recordSeries(String name, long value) {
+        state.recordSeries(name, Duration.between(startTime, ZonedDateTime.now(clock)), value);
+    }
+
     @Override
     public void writeData(Path path) {
         Objects.requireNonNull(path);
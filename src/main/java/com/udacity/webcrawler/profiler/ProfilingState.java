@@ -4,7 +4,10 @@ import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,6 +18,9 @@ import java.util.stream.Collectors;
  */
 final class ProfilingState {
   private final Map<String, Duration> data = new ConcurrentHashMap<>();
+  private final Map<String, LongSummaryStatistics> metrics = new ConcurrentHashMap<>();
+  // Each series alternates the milliseconds since profiling started with the value at that time.
+  private final Map<String, List<Long>> series = new ConcurrentHashMap<>();
 
   /**
    * Records the given method invocation data.
@@ -34,6 +40,37 @@ final class ProfilingState {
     data.compute(key, (k, v) -> (v == null) ? elapsed : v.plus(elapsed));
   }
 
+  /**
+   * Records one sample of the named metric.
+   *
+   * @param name  the name of the metric.
+   * @param value the value of the sample.
+   */
+  void recordMetric(String name, long value) {
+    Objects.requireNonNull(name);
+    LongSummaryStatistics stats = metrics.computeIfAbsent(name, k -> new LongSummaryStatistics());
+    synchronized (stats) {
+      stats.accept(value);
+    }
+  }
+
+  /**
+   * Records one sample of the named series.
+   *
+   * @param name    the name of the series.
+   * @param elapsed the time since profiling started.
+   * @param value   the value of the sample.
+   */
+  void recordSeries(String name, Duration elapsed, long value) {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(elapsed);
+    List<Long> samples = series.computeIfAbsent(name, k -> new ArrayList<>());
+    synchronized (samples) {
+      samples.add(elapsed.toMillis());
+      samples.add(value);
+    }
+  }
+
   /**
    * Writes the method invocation data to the given {@link Writer}.
    *
@@ -41,6 +78,10 @@ final class ProfilingState {
    * {@link #record(Class, Method, Duration) record} is called three times for the same method
    * {@code M()}, with each invocation taking 1 second. The total {@link Duration} reported by
    * this {@code write()} method for {@code M()} should be 3 seconds.
+   *
+   * <p>The method timings are followed by one line per recorded metric, giving the number of
+   * samples and their mean and maximum, and then by one line per recorded series, listing every
+   * sample as the milliseconds since profiling started and the value at that time.
    */
   void write(Writer writer) throws IOException {
     List<String> entries =
@@ -49,6 +90,16 @@ final class ProfilingState {
             .sorted(Map.Entry.comparingByKey())
             .map(e -> e.getKey() + " took " + formatDuration(e.getValue()) + System.lineSeparator())
             .collect(Collectors.toList());
+    metrics.entrySet()
+        .stream()
+        .sorted(Map.Entry.comparingByKey())
+        .map(e -> formatMetric(e.getKey(), e.getValue()) + System.lineSeparator())
+        .forEach(entries::add);
+    series.entrySet()
+        .stream()
+        .sorted(Map.Entry.comparingByKey())
+        .map(e -> formatSeries(e.getKey(), e.getValue()) + System.lineSeparator())
+        .forEach(entries::add);
 
     // We have to use a for-loop here instead of a Stream API method because Writer#write() can
     // throw an IOException, and lambdas are not allowed to throw checked exceptions.
@@ -68,6 +119,32 @@ final class ProfilingState {
     return String.format("%s#%s", callingClass.getName(), method.getName());
   }
 
+  /**
+   * Formats the aggregated samples of the given metric for writing to a text file.
+   */
+  private static String formatMetric(String name, LongSummaryStatistics stats) {
+    synchronized (stats) {
+      return String.format(
+          Locale.ROOT,
+          "%s: %d samples, mean %.1f, max %d",
+          name, stats.getCount(), stats.getAverage(), stats.getMax());
+    }
+  }
+
+  /**
+   * Formats the samples of the given series for writing to a text file, for example
+   * {@code "pool.size over time: 200ms=4 400ms=6"}.
+   */
+  private static String formatSeries(String name, List<Long> samples) {
+    StringBuilder line = new StringBuilder(name).append(" over time:");
+    synchronized (samples) {
+      for (int i = 0; i < samples.size(); i += 2) {
+        line.append(' ').append(samples.get(i)).append("ms=").append(samples.get(i + 1));
+      }
+    }
+    return line.toString();
+  }
+
   /**
    * Formats the given {@link Duration} for writing to a text file.
    */
@@ -0,0 +1,55 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageParserResults;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class BestFirstWebCrawlerTest {
+
+  @Test
+  public void visitsEveryReachablePage() {
+    // Each page links to its three children, up to four levels, and back to the root, so workers
+    // often find the frontier empty while the others are still crawling.
+    PageParserFactory parserFactory = url -> () -> {
+      LockSupport.parkNanos(Duration.ofMillis(url.length() % 3).toNanos());
+      List<String> links = new ArrayList<>();
+      if (url.length() < 4) {
+        for (int child = 0; child < 3; child++) {
+          links.add(url + child);
+        }
+      }
+      links.add("r");
+      return PageParserResults.of(Map.of("word", 1), links);
+    };
+    BestFirstWebCrawler crawler = new BestFirstWebCrawler(
+        Clock.systemUTC(),
+        parserFactory,
+        new UrlCanonicalizer(List.of(), false),
+        new DefaultLinkScorer(),
+        Duration.ofSeconds(30),
+        5,
+        4,
+        4,
+        List.of(),
+        new WordDictionary());
+
+    for (int run = 0; run < 10; run++) {
+      CrawlResult result = crawler.crawl(List.of("r"));
+
+      assertThat(result.getUrlsVisited()).isEqualTo(1 + 3 + 9 + 27);
+      assertThat(result.getWordCounts()).containsExactly("word", 40);
+    }
+  }
+}
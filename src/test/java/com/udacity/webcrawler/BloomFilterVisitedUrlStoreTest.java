@@ -0,0 +1,77 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.testing.ConcurrentTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BloomFilterVisitedUrlStoreTest {
+  @Test
+  public void addsEachUrlOnce() {
+    BloomFilterVisitedUrlStore store = new BloomFilterVisitedUrlStore(16, 0.01);
+    assertThat(store.addIfAbsent("http://example.com/a")).isTrue();
+    assertThat(store.addIfAbsent("http://example.com/b")).isTrue();
+    assertThat(store.addIfAbsent("http://example.com/a")).isFalse();
+
+    assertThat(store.contains("http://example.com/a")).isTrue();
+    assertThat(store.contains("http://example.com/b")).isTrue();
+    assertThat(store.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void staysWithinFalsePositiveRateWhileGrowing() {
+    BloomFilterVisitedUrlStore store = new BloomFilterVisitedUrlStore(16, 0.01);
+    int urls = 100_000;
+    int falsePositives = 0;
+    for (int i = 0; i < urls; i++) {
+      if (!store.addIfAbsent("http://example.com/visited/" + i)) {
+        falsePositives++;
+      }
+    }
+    for (int i = 0; i < urls; i++) {
+      // A Bloom filter never forgets a URL.
+      assertThat(store.contains("http://example.com/visited/" + i)).isTrue();
+      if (store.contains("http://example.com/unvisited/" + i)) {
+        falsePositives++;
+      }
+    }
+
+    // 1% of the 200,000 lookups, with some slack for randomness.
+    assertThat(falsePositives).isLessThan(urls * 2 / 100 * 3 / 2);
+    assertThat(store.size()).isAtLeast(urls * 98 / 100);
+    assertThat(store.offHeapBytes()).isGreaterThan(0L);
+  }
+
+  @Test
+  public void concurrentAddsSucceedAtMostOncePerUrl() throws Exception {
+    BloomFilterVisitedUrlStore store = new BloomFilterVisitedUrlStore(16, 0.01);
+    int threads = 4;
+    int urls = 50_000;
+    AtomicIntegerArray added = new AtomicIntegerArray(urls);
+    ConcurrentTesting.runConcurrently(threads, () -> {
+      for (int i = 0; i < urls; i++) {
+        if (store.addIfAbsent("http://example.com/" + i)) {
+          added.incrementAndGet(i);
+        }
+      }
+      return null;
+    });
+
+    int total = 0;
+    for (int i = 0; i < urls; i++) {
+      assertThat(added.get(i)).isAtMost(1);
+      total += added.get(i);
+    }
+    assertThat(store.size()).isEqualTo(total);
+    assertThat(total).isAtLeast(urls * 98 / 100);
+  }
+
+  @Test
+  public void rejectsInvalidFalsePositiveRate() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilterVisitedUrlStore(16, 0));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilterVisitedUrlStore(16, 1));
+  }
+}
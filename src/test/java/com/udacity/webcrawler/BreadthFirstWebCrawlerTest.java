@@ -0,0 +1,96 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageParserResults;
+import com.udacity.webcrawler.parser.UrlCanonicalizer;
+import com.udacity.webcrawler.parser.WordDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class BreadthFirstWebCrawlerTest {
+
+  @Test
+  public void crawlsEveryLevelOnce() {
+    Map<String, List<String>> links = Map.of(
+        "a", List.of("b", "c"),
+        "b", List.of("a", "d"),
+        "c", List.of("d", "e"),
+        "d", List.of("f"),
+        "e", List.of(),
+        "f", List.of("g"),
+        "g", List.of());
+    PageParserFactory parserFactory =
+        url -> () -> PageParserResults.of(Map.of("word", 1), links.get(url));
+
+    CrawlResult result = newCrawler(parserFactory, 4).crawl(List.of("a"));
+
+    // "g" is five links away from "a", one past the maximum depth.
+    assertThat(result.getUrlsVisited()).isEqualTo(6);
+    assertThat(result.getWordCounts()).containsExactly("word", 6);
+  }
+
+  @Test
+  public void rethrowsPageFailures() {
+    PageParser failingPage = () -> {
+      throw new IllegalStateException("broken page");
+    };
+    PageParserFactory parserFactory = url -> url.equals("b")
+        ? failingPage
+        : () -> PageParserResults.of(Map.of("word", 1), List.of("b"));
+
+    IllegalStateException e =
+        assertThrows(IllegalStateException.class, () -> newCrawler(parserFactory, 3).crawl(List.of("a")));
+
+    assertThat(e).hasMessageThat().isEqualTo("broken page");
+  }
+
+  @Test
+  public void leavesOutPagesInFlightAtDeadline() {
+    // Ignores the interrupt at the deadline, and returns well after it.
+    PageParser slowPage = () -> {
+      long end = System.nanoTime() + Duration.ofMillis(1500).toNanos();
+      for (long left = end - System.nanoTime(); left > 0; left = end - System.nanoTime()) {
+        LockSupport.parkNanos(left);
+      }
+      return PageParserResults.of(Map.of("slow", 1), List.of("late"));
+    };
+    PageParserFactory parserFactory = url -> url.equals("slow")
+        ? slowPage
+        : () -> PageParserResults.of(Map.of("fast", 1), List.of("slow"));
+
+    CrawlResult result =
+        newCrawler(parserFactory, 3, Duration.ofMillis(500)).crawl(List.of("fast"));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(1);
+    assertThat(result.getWordCounts()).containsExactly("fast", 1);
+  }
+
+  private static BreadthFirstWebCrawler newCrawler(PageParserFactory parserFactory, int maxDepth) {
+    return newCrawler(parserFactory, maxDepth, Duration.ofSeconds(10));
+  }
+
+  private static BreadthFirstWebCrawler newCrawler(
+      PageParserFactory parserFactory, int maxDepth, Duration timeout) {
+    return new BreadthFirstWebCrawler(
+        Clock.systemUTC(),
+        parserFactory,
+        new UrlCanonicalizer(List.of(), false),
+        timeout,
+        5,
+        2,
+        maxDepth,
+        List.of(),
+        () -> new FingerprintSet(16),
+        new WordDictionary());
+  }
+}
@@ -0,0 +1,42 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ConcurrencyControllerTest {
+  @Test
+  public void growsWhileWorkIsWaiting() {
+    ConcurrencyController controller = new ConcurrencyController(1, 2, 4);
+    controller.recordLatency(1_000);
+
+    assertThat(controller.adjust(10, 0.1)).isEqualTo(3);
+    assertThat(controller.adjust(10, 0.1)).isEqualTo(4);
+    assertThat(controller.adjust(10, 0.1)).isEqualTo(4);
+    assertThat(controller.adjust(0, 0.1)).isEqualTo(4);
+  }
+
+  @Test
+  public void shrinksWhenCpuIsSaturated() {
+    ConcurrencyController controller = new ConcurrencyController(1, 8, 8);
+
+    assertThat(controller.adjust(10, 0.95)).isEqualTo(6);
+    assertThat(controller.adjust(10, 0.95)).isEqualTo(4);
+    assertThat(controller.adjust(10, 0.95)).isEqualTo(3);
+    assertThat(controller.adjust(10, 0.95)).isEqualTo(2);
+    assertThat(controller.adjust(10, 0.95)).isEqualTo(1);
+    assertThat(controller.adjust(10, 0.95)).isEqualTo(1);
+  }
+
+  @Test
+  public void shrinksWhenPagesGetSlower() {
+    ConcurrencyController controller = new ConcurrencyController(1, 8, 16);
+    controller.recordLatency(1_000);
+    assertThat(controller.adjust(10, -1)).isEqualTo(9);
+
+    for (int i = 0; i < 5; i++) {
+      controller.recordLatency(10_000);
+    }
+    assertThat(controller.adjust(10, -1)).isEqualTo(6);
+  }
+}
@@ -0,0 +1,153 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class CrawlCheckpointTest {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void restoresCrawlState() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpoint checkpoint = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    checkpoint.pageCrawled("a", "a", 3, Map.of("foo", 2, "bar", 1), List.of("b", "c"));
+    checkpoint.pageCrawled("b", "a", 2, Map.of("foo", 1), List.of("a", "d"));
+    checkpoint.close();
+
+    CrawlCheckpoint.State state = CrawlCheckpoint.load(path);
+
+    assertThat(state.getVisitedUrls()).containsExactly("a", "b");
+    assertThat(state.getCounts()).containsExactly("foo", 3, "bar", 1);
+    assertThat(state.getPending().stream()
+        .map(page -> page.getUrl() + "@" + page.getDepth())
+        .collect(Collectors.toList()))
+        .containsExactly("c@2", "d@1");
+  }
+
+  @Test
+  public void appendsWhenResuming() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpoint first = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    first.pageCrawled("a", "a", 2, Map.of("foo", 1), List.of("b"));
+    first.close();
+    CrawlCheckpoint second = new CrawlCheckpoint(path, Duration.ofMinutes(1), CrawlCheckpoint.load(path));
+    second.pageCrawled("b", "a", 1, Map.of("foo", 1), List.of());
+    second.close();
+
+    CrawlCheckpoint.State state = CrawlCheckpoint.load(path);
+
+    assertThat(state.getVisitedUrls()).containsExactly("a", "b");
+    assertThat(state.getCounts()).containsExactly("foo", 2);
+    assertThat(state.getPending()).isEmpty();
+  }
+
+  @Test
+  public void ignoresTruncatedBlock() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpoint checkpoint = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    checkpoint.pageCrawled("a", "a", 2, Map.of("foo", 1), List.of());
+    checkpoint.close();
+    // A block header that promises more bytes than the file holds, as after a crash.
+    Files.write(path, new byte[] {0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+    CrawlCheckpoint.State state = CrawlCheckpoint.load(path);
+
+    assertThat(state.getVisitedUrls()).containsExactly("a");
+  }
+
+  @Test
+  public void dropsTruncatedBlockWhenResuming() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpoint first = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    first.pageCrawled("a", "a", 3, Map.of("foo", 1), List.of("b"));
+    first.close();
+    long firstBlockEnd = Files.size(path);
+    CrawlCheckpoint second = new CrawlCheckpoint(path, Duration.ofMinutes(1), CrawlCheckpoint.load(path));
+    second.pageCrawled("b", "a", 2, Map.of("foo", 1), List.of("c"));
+    second.close();
+    // Cut the second block in half, as if the crawl had crashed while writing it.
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.truncate(firstBlockEnd + (Files.size(path) - firstBlockEnd) / 2);
+    }
+
+    CrawlCheckpoint.State resumed = CrawlCheckpoint.load(path);
+    assertThat(resumed.getLength()).isEqualTo(firstBlockEnd);
+    CrawlCheckpoint third = new CrawlCheckpoint(path, Duration.ofMinutes(1), resumed);
+    third.pageCrawled("b", "a", 2, Map.of("bar", 1), List.of());
+    third.close();
+
+    CrawlCheckpoint.State state = CrawlCheckpoint.load(path);
+    assertThat(state.getVisitedUrls()).containsExactly("a", "b");
+    assertThat(state.getCounts()).containsExactly("foo", 1, "bar", 1);
+    assertThat(state.getLength()).isEqualTo(Files.size(path));
+  }
+
+  @Test
+  public void stopsAtBlockLongerThanTheFile() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpoint checkpoint = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    checkpoint.pageCrawled("a", "a", 2, Map.of("foo", 1), List.of());
+    checkpoint.close();
+    long length = Files.size(path);
+    // A garbled length, which must not be used to allocate the block.
+    Files.write(path, new byte[] {0x7f, -1, -1, -1, 42}, StandardOpenOption.APPEND);
+
+    CrawlCheckpoint.State state = CrawlCheckpoint.load(path);
+
+    assertThat(state.getVisitedUrls()).containsExactly("a");
+    assertThat(state.getLength()).isEqualTo(length);
+  }
+
+  @Test
+  public void writesStringsOver64Kilobytes() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    String longUrl = "http://example.com/" + "a".repeat(70_000);
+    String longWord = "\u00e9".repeat(40_000);
+    CrawlCheckpoint checkpoint = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    checkpoint.pageCrawled(longUrl, longUrl, 2, Map.of(longWord, 1), List.of(longUrl + "/b"));
+    checkpoint.close();
+
+    CrawlCheckpoint.State state = CrawlCheckpoint.load(path);
+
+    assertThat(state.getVisitedUrls()).containsExactly(longUrl);
+    assertThat(state.getCounts()).containsExactly(longWord, 1);
+    assertThat(state.getPending().get(0).getUrl()).isEqualTo(longUrl + "/b");
+  }
+
+  @Test
+  public void reportsFailedWriteOnClose() throws IOException {
+    Path path = tempDir.resolve("crawl.checkpoint");
+    CrawlCheckpoint checkpoint = new CrawlCheckpoint(path, Duration.ofMinutes(1), null);
+    Map<String, Integer> unwritable = new HashMap<>();
+    unwritable.put("foo", null);
+    checkpoint.pageCrawled("a", "a", 2, unwritable, List.of());
+    checkpoint.pageCrawled("b", "a", 2, Map.of("foo", 1), List.of());
+
+    assertThrows(IOException.class, checkpoint::close);
+    // The file is left as it was before the block that could not be written.
+    assertThat(CrawlCheckpoint.load(path).getVisitedUrls()).isEmpty();
+  }
+
+  @Test
+  public void rejectsOtherFiles() throws IOException {
+    Path path = tempDir.resolve("not-a-checkpoint");
+    Files.writeString(path, "hello world");
+
+    assertThrows(IOException.class, () -> CrawlCheckpoint.load(path));
+  }
+}
@@ -0,0 +1,55 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.testing.ConcurrentTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class FingerprintSetTest {
+  @Test
+  public void addsEachUrlOnce() {
+    FingerprintSet set = new FingerprintSet(16);
+    assertThat(set.addIfAbsent("http://example.com/a")).isTrue();
+    assertThat(set.addIfAbsent("http://example.com/b")).isTrue();
+    assertThat(set.addIfAbsent("http://example.com/a")).isFalse();
+
+    assertThat(set.contains("http://example.com/a")).isTrue();
+    assertThat(set.contains("http://example.com/c")).isFalse();
+    assertThat(set.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void growsBeyondExpectedSize() {
+    FingerprintSet set = new FingerprintSet(16);
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(set.addIfAbsent("http://example.com/" + i)).isTrue();
+    }
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(set.contains("http://example.com/" + i)).isTrue();
+      assertThat(set.addIfAbsent("http://example.com/" + i)).isFalse();
+    }
+    assertThat(set.contains("http://example.com/-1")).isFalse();
+    assertThat(set.size()).isEqualTo(100_000);
+  }
+
+  @Test
+  public void concurrentAddsSucceedOncePerUrl() throws Exception {
+    FingerprintSet set = new FingerprintSet(16);
+    int threads = 4;
+    int urls = 50_000;
+    AtomicInteger added = new AtomicInteger();
+    ConcurrentTesting.runConcurrently(threads, () -> {
+      for (int i = 0; i < urls; i++) {
+        if (set.addIfAbsent("http://example.com/" + i)) {
+          added.incrementAndGet();
+        }
+      }
+      return null;
+    });
+
+    assertThat(added.get()).isEqualTo(urls);
+    assertThat(set.size()).isEqualTo(urls);
+  }
+}
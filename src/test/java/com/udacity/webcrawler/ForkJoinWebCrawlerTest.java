@@ -0,0 +1,101 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageParserResults;
+import org.junit.jupiter.api.Test;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ForkJoinWebCrawlerTest {
+  @Inject
+  private ForkJoinWebCrawler forkJoinWebCrawler;
+
+  @Test
+  public void testMaxParallelism() {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder().build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(forkJoinWebCrawler.getMaxParallelism())
+        .isEqualTo(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  public void leavesOutPagesInFlightAtDeadline() throws Exception {
+    CountDownLatch crawlReturned = new CountDownLatch(1);
+    CountDownLatch slowPageParsed = new CountDownLatch(1);
+    Set<String> parsed = ConcurrentHashMap.newKeySet();
+    // Keeps going past the deadline, and only returns once the crawl has returned.
+    PageParser slowPage = () -> {
+      try {
+        crawlReturned.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      slowPageParsed.countDown();
+      return PageParserResults.of(Map.of("slow", 1), List.of("late"));
+    };
+    PageParserFactory parserFactory = url -> {
+      parsed.add(url);
+      return url.equals("slow")
+          ? slowPage
+          : () -> PageParserResults.of(Map.of("fast", 1), List.of("slow"));
+    };
+    ForkJoinWebCrawler crawler =
+        TestCrawlers.create(ForkJoinWebCrawler.class, config(1), parserFactory);
+
+    Instant start = Instant.now();
+    CrawlResult result = crawler.crawl(List.of("fast"));
+    crawlReturned.countDown();
+
+    assertThat(Duration.between(start, Instant.now())).isLessThan(Duration.ofSeconds(5));
+    // The slow page was in flight at the deadline, so it does not count as visited.
+    assertThat(result.getUrlsVisited()).isEqualTo(1);
+    assertThat(result.getWordCounts()).containsExactly("fast", 1);
+    assertThat(slowPageParsed.await(10, TimeUnit.SECONDS)).isTrue();
+    // Give the slow page's task time to try to merge, which must not fork its links.
+    Thread.sleep(200);
+    assertThat(parsed).containsExactly("fast", "slow");
+  }
+
+  @Test
+  public void reportsFailedPageWithoutEndingCrawl() {
+    PageParserFactory parserFactory = url -> () -> {
+      if (url.equals("bad")) {
+        throw new IllegalStateException("cannot parse " + url);
+      }
+      return PageParserResults.of(
+          Map.of("word", 1),
+          url.equals("root") ? List.of("bad", "good") : List.of("deeper"));
+    };
+    ForkJoinWebCrawler crawler =
+        TestCrawlers.create(ForkJoinWebCrawler.class, config(10), parserFactory);
+
+    CrawlResult result = crawler.crawl(List.of("root"));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    assertThat(result.getWordCounts()).containsExactly("word", 3);
+    assertThat(result.getCrawFailOnUrls()).containsExactly("bad");
+  }
+
+  private static CrawlerConfiguration config(int timeoutSeconds) {
+    return new CrawlerConfiguration.Builder()
+        .setMaxDepth(3)
+        .setPopularWordCount(10)
+        .setTimeoutSeconds(timeoutSeconds)
+        .build();
+  }
+}
@@ -0,0 +1,73 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.testing.ConcurrentTesting;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class FrontCodedUrlSetTest {
+  @Test
+  public void addsEachUrlOnce() {
+    FrontCodedUrlSet set = new FrontCodedUrlSet();
+    assertThat(set.addIfAbsent("http://example.com/a")).isTrue();
+    assertThat(set.addIfAbsent("http://example.com/a/b")).isTrue();
+    assertThat(set.addIfAbsent("http://example.com/a")).isFalse();
+
+    assertThat(set.contains("http://example.com/a/b")).isTrue();
+    assertThat(set.contains("http://example.com/a/")).isFalse();
+    assertThat(set.contains("http://example.com/")).isFalse();
+    assertThat(set.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void isExactAfterMerging() {
+    FrontCodedUrlSet set = new FrontCodedUrlSet();
+    // Enough URLs per host that most of them end up in front-coded blocks.
+    long urlBytes = 0;
+    for (int i = 0; i < 50_000; i++) {
+      assertThat(set.addIfAbsent(url(i))).isTrue();
+      urlBytes += url(i).getBytes(StandardCharsets.UTF_8).length;
+    }
+    // URLs of the same host share all but a few bytes, so the blocks take a fraction of the space
+    // of the URLs themselves.
+    assertThat(set.encodedBytes()).isGreaterThan(0L);
+    assertThat(set.encodedBytes()).isLessThan(urlBytes / 3);
+    for (int i = 0; i < 50_000; i++) {
+      assertThat(set.contains(url(i))).isTrue();
+      assertThat(set.addIfAbsent(url(i))).isFalse();
+      // Shares all but the last char with a URL in the set.
+      assertThat(set.contains(url(i) + "x")).isFalse();
+      assertThat(set.contains(url(i).substring(0, url(i).length() - 1))).isFalse();
+    }
+    assertThat(set.contains("http://ünïcode.example/")).isFalse();
+    assertThat(set.addIfAbsent("http://ünïcode.example/")).isTrue();
+    assertThat(set.contains("http://ünïcode.example/")).isTrue();
+    assertThat(set.size()).isEqualTo(50_001);
+  }
+
+  @Test
+  public void concurrentAddsSucceedOncePerUrl() throws Exception {
+    FrontCodedUrlSet set = new FrontCodedUrlSet();
+    int threads = 4;
+    int urls = 20_000;
+    AtomicInteger added = new AtomicInteger();
+    ConcurrentTesting.runConcurrently(threads, () -> {
+      for (int i = 0; i < urls; i++) {
+        if (set.addIfAbsent(url(i))) {
+          added.incrementAndGet();
+        }
+      }
+      return null;
+    });
+
+    assertThat(added.get()).isEqualTo(urls);
+    assertThat(set.size()).isEqualTo(urls);
+  }
+
+  private static String url(int i) {
+    return "https://host" + (i % 7) + ".example.com/articles/" + (i / 7) + "/index.html";
+  }
+}
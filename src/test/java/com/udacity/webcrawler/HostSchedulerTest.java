@@ -0,0 +1,161 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class HostSchedulerTest {
+
+  @Test
+  public void limitsTasksInFlightPerHost() {
+    List<Runnable> started = new ArrayList<>();
+    List<String> ran = new ArrayList<>();
+    HostScheduler scheduler = new HostScheduler(started::add, 1, Duration.ZERO);
+
+    scheduler.submit("http://a.com/1", () -> ran.add("a1"));
+    scheduler.submit("http://a.com/2", () -> ran.add("a2"));
+    scheduler.submit("http://b.com/1", () -> ran.add("b1"));
+    assertThat(started).hasSize(2);
+    assertThat(scheduler.queuedCount()).isEqualTo(1);
+
+    started.remove(0).run();
+    assertThat(ran).containsExactly("a1");
+    assertThat(started).hasSize(2);
+    assertThat(scheduler.queuedCount()).isEqualTo(0);
+
+    while (!started.isEmpty()) {
+      started.remove(0).run();
+    }
+    assertThat(ran).containsExactly("a1", "b1", "a2").inOrder();
+  }
+
+  @Test
+  public void alternatesBetweenHosts() {
+    List<Runnable> started = new ArrayList<>();
+    List<String> ran = new ArrayList<>();
+    HostScheduler scheduler = new HostScheduler(started::add, 1, Duration.ZERO);
+    Runnable blocker = () -> { };
+
+    scheduler.submit("http://a.com/0", blocker);
+    scheduler.submit("http://b.com/0", blocker);
+    for (int i = 1; i <= 2; i++) {
+      String page = "/" + i;
+      scheduler.submit("http://a.com" + page, () -> ran.add("a" + page));
+      scheduler.submit("http://b.com" + page, () -> ran.add("b" + page));
+    }
+    while (!started.isEmpty()) {
+      started.remove(0).run();
+    }
+
+    assertThat(ran).containsExactly("a/1", "b/1", "a/2", "b/2").inOrder();
+  }
+
+  @Test
+  public void waitsBetweenRequestsToTheSameHost() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    HostScheduler scheduler = new HostScheduler(executor, 0, Duration.ofMillis(50));
+    List<Long> startTimes = new ArrayList<>();
+    CountDownLatch done = new CountDownLatch(3);
+    try {
+      for (int i = 0; i < 3; i++) {
+        scheduler.submit("http://a.com/" + i, () -> {
+          synchronized (startTimes) {
+            startTimes.add(System.nanoTime());
+          }
+          done.countDown();
+        });
+      }
+      assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      scheduler.shutdown();
+      executor.shutdownNow();
+    }
+
+    for (int i = 1; i < startTimes.size(); i++) {
+      assertThat(startTimes.get(i) - startTimes.get(i - 1))
+          .isAtLeast(Duration.ofMillis(50).toNanos());
+    }
+  }
+
+  @Test
+  public void doesNotLimitUrlsWithoutHost() {
+    List<Runnable> started = new ArrayList<>();
+    HostScheduler scheduler = new HostScheduler(started::add, 1, Duration.ofHours(1));
+
+    for (int i = 0; i < 3; i++) {
+      scheduler.submit("file:///tmp/" + i + ".html", () -> { });
+    }
+
+    assertThat(started).hasSize(3);
+    assertThat(scheduler.queuedCount()).isEqualTo(0);
+    assertThat(scheduler.hostCount()).isEqualTo(0);
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void dropsIdleHosts() {
+    List<Runnable> started = new ArrayList<>();
+    HostScheduler scheduler = new HostScheduler(started::add, 1, Duration.ZERO);
+
+    for (int i = 0; i < 100; i++) {
+      scheduler.submit("http://host" + i + ".com/1", () -> { });
+      scheduler.submit("http://host" + i + ".com/2", () -> { });
+    }
+    assertThat(scheduler.hostCount()).isEqualTo(100);
+    while (!started.isEmpty()) {
+      started.remove(0).run();
+    }
+
+    assertThat(scheduler.hostCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void keepsIdleHostUntilDelayHasPassed() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    HostScheduler scheduler = new HostScheduler(executor, 0, Duration.ofMillis(200));
+    List<Long> startTimes = new ArrayList<>();
+    CountDownLatch done = new CountDownLatch(2);
+    Runnable task = () -> {
+      synchronized (startTimes) {
+        startTimes.add(System.nanoTime());
+      }
+      done.countDown();
+    };
+    try {
+      scheduler.submit("http://a.com/1", task);
+      while (done.getCount() == 2) {
+        Thread.sleep(1);
+      }
+      Thread.sleep(50);
+      // The first task has finished, but its delay has not passed yet.
+      assertThat(scheduler.hostCount()).isEqualTo(1);
+      scheduler.submit("http://a.com/2", task);
+      assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (scheduler.hostCount() > 0 && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(scheduler.hostCount()).isEqualTo(0);
+    } finally {
+      scheduler.shutdown();
+      executor.shutdownNow();
+    }
+
+    assertThat(startTimes.get(1) - startTimes.get(0)).isAtLeast(Duration.ofMillis(200).toNanos());
+  }
+
+  @Test
+  public void extractsHost() {
+    assertThat(HostScheduler.hostOf("https://Example.com:8080/a?b#c")).isEqualTo("example.com:8080");
+    assertThat(HostScheduler.hostOf("http://example.com")).isEqualTo("example.com");
+    assertThat(HostScheduler.hostOf("file:///tmp/a.html")).isEmpty();
+  }
+}
@@ -0,0 +1,91 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredUrlMatcherTest {
+  private static final List<String> URLS = List.of(
+      "",
+      "http://example.com",
+      "http://example.com/",
+      "http://example.com/index.html",
+      "https://example.com/a/b.pdf",
+      "https://example.com/a/b.PDF",
+      "http://example.org/dead-link.html",
+      "http://example.org/page-loop.html",
+      "http://example.org/page-loop.html?x",
+      "http://example.net/logout?next=/",
+      "http://example.net/a$b",
+      "http://example.net/.*",
+      "http://abcabc.com/",
+      "http://example.com/\nx",
+      "http://example.com/x.pdf\n",
+      "ftp://files.example.com/readme",
+      "http://example.com/ünïcode");
+
+  @Test
+  public void matchesSameUrlsAsEachPattern() {
+    List<String> regexes = List.of(
+        "http://example\\.com/.*",
+        "https://example\\.com/.*\\.pdf",
+        ".*\\.pdf",
+        ".*dead-.*",
+        "^.*-loop\\.html$",
+        ".*logout.*",
+        "http://example\\.net/a\\$b",
+        "\\Qhttp://example.net/.*\\E",
+        "\\Qftp://\\E.*",
+        "http://(\\w+)\\1\\.com/",
+        "(?i).*\\.PDF",
+        "ftp://[a-z]+\\.example\\.com/.*",
+        ".*ünïcode",
+        "",
+        "http://example\\.com\\.*");
+    // Each pattern on its own, and all of them together.
+    for (String regex : regexes) {
+      assertSameAsEachPattern(List.of(regex));
+    }
+    assertSameAsEachPattern(regexes);
+  }
+
+  @Test
+  public void matchesEverythingWithDotStar() {
+    assertSameAsEachPattern(List.of(".*"));
+    assertSameAsEachPattern(List.of(".*.*"));
+    assertSameAsEachPattern(List.of("^.*$"));
+  }
+
+  @Test
+  public void matchesNothingWithoutPatterns() {
+    IgnoredUrlMatcher matcher = new IgnoredUrlMatcher(List.of());
+    assertThat(matcher.matches("http://example.com/")).isFalse();
+  }
+
+  @Test
+  public void keepsGroupNamesApart() {
+    // Combined into one alternation, these would not compile.
+    assertSameAsEachPattern(List.of("http://(?<host>[a-z.]+)/", "https://(?<host>[a-z.]+)/.*"));
+  }
+
+  private static void assertSameAsEachPattern(List<String> regexes) {
+    List<Pattern> patterns = regexes.stream().map(Pattern::compile).collect(Collectors.toList());
+    IgnoredUrlMatcher matcher = new IgnoredUrlMatcher(patterns);
+    for (String url : URLS) {
+      boolean expected = patterns.stream().anyMatch(pattern -> pattern.matcher(url).matches());
+      assertWithMessage("%s matching %s", regexes, url)
+          .that(matcher.matches(url))
+          .isEqualTo(expected);
+    }
+    // Make sure the URLs cover both outcomes for the combined patterns.
+    if (regexes.size() > 1) {
+      assertThat(URLS.stream().map(matcher::matches).collect(Collectors.toSet()))
+          .containsExactly(true, false);
+    }
+  }
+}
@@ -17,6 +17,16 @@ public final class NoOpProfiler implements Profiler {
     return Objects.requireNonNull(delegate);
   }
 
+  @Override
+  public void recordMetric(String name, long value) {
+    Objects.requireNonNull(name);
+  }
+
+  @Override
+  public void recordSeries(String name, long value) {
+    Objects.requireNonNull(name);
+  }
+
   @Override
   public void writeData(Path path) {
     Objects.requireNonNull(path);
@@ -1,10 +1,22 @@
 package com.udacity.webcrawler;
 
 import com.google.inject.Guice;
+import com.udacity.webcrawler.json.CrawlResult;
 import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageParserResults;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import javax.inject.Inject;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -19,4 +31,74 @@ public final class ParallelWebCrawlerTest {
                 .injectMembers(this);
         assertThat(parallelWebCrawler.getMaxParallelism()).isGreaterThan(1);
     }
+
+    @Test
+    public void returnsPartialResultsAtDeadline() {
+        PageParser fastPage = () -> PageParserResults.of(Map.of("fast", 1), List.of("slow"));
+        PageParser slowPage = () -> {
+            try {
+                Thread.sleep(Duration.ofMinutes(1).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PageParserResults.of(Map.of("slow", 1), List.of());
+        };
+        ParallelWebCrawler crawler = TestCrawlers.create(
+                ParallelWebCrawler.class,
+                config().build(),
+                url -> url.equals("slow") ? slowPage : fastPage);
+
+        Instant start = Instant.now();
+        CrawlResult result = crawler.crawl(List.of("fast"));
+
+        assertThat(Duration.between(start, Instant.now())).isLessThan(Duration.ofSeconds(10));
+        // The slow page was abandoned at the deadline, so it does not count as visited.
+        assertThat(result.getUrlsVisited()).isEqualTo(1);
+        assertThat(result.getWordCounts()).containsExactly("fast", 1);
+    }
+
+    @Test
+    public void resumesFromCheckpoint(@TempDir Path tempDir) {
+        String checkpoint = tempDir.resolve("crawl.checkpoint").toString();
+        PageParser slowPage = () -> {
+            try {
+                Thread.sleep(Duration.ofMinutes(1).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PageParserResults.of(Map.of("slow", 1), List.of());
+        };
+        Set<String> parsed = ConcurrentHashMap.newKeySet();
+        PageParserFactory firstRun = url -> url.equals("b")
+                ? slowPage
+                : () -> PageParserResults.of(Map.of("a", 1), List.of("b"));
+        PageParserFactory secondRun = url -> () -> {
+            parsed.add(url);
+            return PageParserResults.of(Map.of(url, 1), List.of("a"));
+        };
+
+        crawlerWithCheckpoint(firstRun, checkpoint, false).crawl(List.of("a"));
+        CrawlResult result = crawlerWithCheckpoint(secondRun, checkpoint, true).crawl(List.of("a"));
+
+        assertThat(parsed).containsExactly("b");
+        assertThat(result.getUrlsVisited()).isEqualTo(2);
+        assertThat(result.getWordCounts()).containsExactly("a", 1, "b", 1);
+    }
+
+    private static ParallelWebCrawler crawlerWithCheckpoint(PageParserFactory parserFactory, String checkpoint, boolean resume) {
+        CrawlerConfiguration config = config()
+                .setCheckpointPath(checkpoint)
+                .setCheckpointIntervalSeconds(10)
+                .setResumeFromCheckpoint(resume)
+                .build();
+        return TestCrawlers.create(ParallelWebCrawler.class, config, parserFactory);
+    }
+
+    private static CrawlerConfiguration.Builder config() {
+        return new CrawlerConfiguration.Builder()
+                .setTimeoutSeconds(1)
+                .setPopularWordCount(5)
+                .setParallelism(2)
+                .setMaxDepth(3);
+    }
 }
@@ -0,0 +1,201 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.FetchedPage;
+import com.udacity.webcrawler.parser.FetchedPages;
+import com.udacity.webcrawler.parser.PageFetcher;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageParserResults;
+import com.udacity.webcrawler.profiler.Profiler;
+import org.junit.jupiter.api.Test;
+
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PipelinedWebCrawlerTest {
+
+  @Test
+  public void boundsQueuesBehindSlowParser() {
+    List<String> links = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      links.add("page" + i);
+    }
+    PageParserFactory parserFactory = url -> () -> {
+      LockSupport.parkNanos(Duration.ofMillis(5).toNanos());
+      return PageParserResults.of(Map.of("word", 1), url.equals("root") ? links : List.of());
+    };
+    RecordingProfiler profiler = new RecordingProfiler();
+
+    CrawlResult result = newCrawler(30, pagesFetcher(), parserFactory, profiler)
+        .crawl(List.of("root"));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(101);
+    assertThat(result.getWordCounts()).containsExactly("word", 101);
+    // With one parse thread, at most 16 downloads are started ahead of the parser, and the merge
+    // queue holds 2 results.
+    assertThat(Collections.max(profiler.values("pipeline.fetch.inFlight"))).isEqualTo(16L);
+    assertThat(Collections.max(profiler.values("pipeline.parse.queueDepth"))).isAtMost(15L);
+    assertThat(Collections.max(profiler.values("pipeline.merge.queueDepth"))).isAtMost(1L);
+  }
+
+  @Test
+  public void recordsMetricsForEachStage() {
+    PageParserFactory parserFactory = url -> () -> PageParserResults.of(
+        Map.of("word", 1), url.equals("root") ? List.of("a", "b", "root") : List.of());
+    RecordingProfiler profiler = new RecordingProfiler();
+
+    CrawlResult result = newCrawler(30, pagesFetcher(), parserFactory, profiler)
+        .crawl(List.of("root"));
+
+    assertThat(result.getUrlsVisited()).isEqualTo(3);
+    // "root", then "a", "b" and "root" again, which the dispatcher drops.
+    assertThat(profiler.values("pipeline.dispatch.queueDepth")).hasSize(4);
+    assertThat(profiler.values("pipeline.fetch.inFlight")).hasSize(3);
+    assertThat(profiler.values("pipeline.fetch.itemMicros")).hasSize(3);
+    assertThat(profiler.values("pipeline.fetch.bytes"))
+        .containsExactly((long) "<p>root</p>".length(), 8L, 8L);
+    assertThat(profiler.values("pipeline.parse.queueDepth")).hasSize(3);
+    assertThat(profiler.values("pipeline.merge.queueDepth")).hasSize(3);
+    // The time of an item is recorded once it has been handed on, so the last item of a stage may
+    // finish the crawl before its time is recorded.
+    assertThat(profiler.values("pipeline.dispatch.itemMicros").size()).isAtLeast(3);
+    assertThat(profiler.values("pipeline.parse.itemMicros").size()).isAtLeast(2);
+    assertThat(profiler.values("pipeline.merge.itemMicros").size()).isAtLeast(2);
+  }
+
+  @Test
+  public void releasesPermitWhenFetchThrows() {
+    List<String> links = new ArrayList<>();
+    // More than the 16 downloads that can be in flight with one parse thread.
+    for (int i = 0; i < 40; i++) {
+      links.add("bad" + i);
+    }
+    links.add("good");
+    PageFetcher fetcher = new PageFetcher() {
+      @Override
+      public FetchedPage fetch(String url) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public CompletableFuture<FetchedPage> fetchAsync(String url) {
+        if (url.startsWith("bad")) {
+          throw new IllegalArgumentException("Cannot download " + url);
+        }
+        return CompletableFuture.completedFuture(FetchedPages.of(url, ""));
+      }
+    };
+    PageParserFactory parserFactory = url -> () -> PageParserResults.of(
+        Map.of(url, 1), url.equals("root") ? links : List.of());
+
+    Instant start = Instant.now();
+    CrawlResult result = newCrawler(30, fetcher, parserFactory, new NoOpProfiler())
+        .crawl(List.of("root"));
+
+    assertThat(Duration.between(start, Instant.now())).isLessThan(Duration.ofSeconds(10));
+    assertThat(result.getWordCounts()).containsExactly("root", 1, "good", 1);
+  }
+
+  @Test
+  public void cancelsDownloadsInFlightAtDeadline() {
+    CompletableFuture<FetchedPage> slowDownload = new CompletableFuture<>();
+    PageFetcher fetcher = new PageFetcher() {
+      @Override
+      public FetchedPage fetch(String url) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public CompletableFuture<FetchedPage> fetchAsync(String url) {
+        return url.equals("slow")
+            ? slowDownload
+            : CompletableFuture.completedFuture(FetchedPages.of(url, ""));
+      }
+    };
+    PageParserFactory parserFactory = url -> () -> PageParserResults.of(
+        Map.of(url, 1), url.equals("root") ? List.of("slow") : List.of());
+
+    CrawlResult result = newCrawler(1, fetcher, parserFactory, new NoOpProfiler())
+        .crawl(List.of("root"));
+
+    assertThat(result.getWordCounts()).containsExactly("root", 1);
+    assertThat(slowDownload.isCancelled()).isTrue();
+  }
+
+  /**
+   * Returns a fetcher that downloads every URL instantly, as a page that holds its own URL.
+   */
+  private static PageFetcher pagesFetcher() {
+    return new PageFetcher() {
+      @Override
+      public FetchedPage fetch(String url) {
+        return FetchedPages.of(url, "<p>" + url + "</p>");
+      }
+
+      @Override
+      public CompletableFuture<FetchedPage> fetchAsync(String url) {
+        return CompletableFuture.completedFuture(fetch(url));
+      }
+    };
+  }
+
+  private static PipelinedWebCrawler newCrawler(
+      int timeoutSeconds, PageFetcher fetcher, PageParserFactory parserFactory, Profiler profiler) {
+    CrawlerConfiguration config = new CrawlerConfiguration.Builder()
+        .setParallelism(1)
+        .setMaxDepth(5)
+        .setPopularWordCount(10)
+        .setTimeoutSeconds(timeoutSeconds)
+        .build();
+    return TestCrawlers.create(PipelinedWebCrawler.class, config, binder -> {
+      binder.bind(PageFetcher.class).toInstance(fetcher);
+      binder.bind(PageParserFactory.class).toInstance(parserFactory);
+      binder.bind(Profiler.class).toInstance(profiler);
+    });
+  }
+
+  /**
+   * A {@link Profiler} that keeps every metric that is recorded.
+   */
+  private static final class RecordingProfiler implements Profiler {
+    private final Map<String, List<Long>> metrics = new HashMap<>();
+
+    synchronized List<Long> values(String name) {
+      return new ArrayList<>(metrics.getOrDefault(name, List.of()));
+    }
+
+    @Override
+    public <T> T wrap(Class<T> klass, T delegate) {
+      return delegate;
+    }
+
+    @Override
+    public synchronized void recordMetric(String name, long value) {
+      metrics.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+    }
+
+    @Override
+    public void recordSeries(String name, long value) {
+    }
+
+    @Override
+    public void writeData(Path path) {
+    }
+
+    @Override
+    public void writeData(Writer writer) {
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class PriorityFrontierTest {
+  @Test
+  public void pollsHighestScoreFirst() {
+    PriorityFrontier frontier = new PriorityFrontier((url, depth, inlinks, pagesOnHost) -> -depth);
+    frontier.offer("http://a.com/deep", 2);
+    frontier.offer("http://a.com/shallow", 0);
+    frontier.offer("http://a.com/middle", 1);
+
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/shallow");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/middle");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/deep");
+    assertThat(frontier.poll()).isNull();
+    assertThat(frontier.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void breaksTiesInFifoOrder() {
+    PriorityFrontier frontier = new PriorityFrontier((url, depth, inlinks, pagesOnHost) -> 0);
+    frontier.offer("http://a.com/1", 0);
+    frontier.offer("http://a.com/2", 0);
+
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+  }
+
+  @Test
+  public void repeatedOffersCountAsInlinks() {
+    PriorityFrontier frontier = new PriorityFrontier((url, depth, inlinks, pagesOnHost) -> inlinks);
+    frontier.offer("http://a.com/1", 1);
+    frontier.offer("http://a.com/2", 1);
+    frontier.offer("http://a.com/2", 3);
+
+    PriorityFrontier.Entry best = frontier.poll();
+    assertThat(best.getUrl()).isEqualTo("http://a.com/2");
+    assertThat(best.getDepth()).isEqualTo(1);
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.poll()).isNull();
+  }
+
+  @Test
+  public void prefersNewHosts() {
+    PriorityFrontier frontier =
+        new PriorityFrontier((url, depth, inlinks, pagesOnHost) -> -pagesOnHost);
+    frontier.offer("http://a.com/1", 0);
+    frontier.offer("http://a.com/2", 0);
+    frontier.offer("http://b.com/1", 0);
+
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://b.com/1");
+    assertThat(frontier.poll().getUrl()).isEqualTo("http://a.com/2");
+  }
+}
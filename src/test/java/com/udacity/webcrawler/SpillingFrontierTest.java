@@ -0,0 +1,98 @@
+package com.udacity.webcrawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class SpillingFrontierTest {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void keepsSmallFrontierOnHeap() throws IOException {
+    try (SpillingFrontier frontier = new SpillingFrontier(4, 1024, tempDir)) {
+      frontier.offer(page(1));
+      frontier.offer(page(2));
+
+      assertThat(frontier.spilledCount()).isEqualTo(0);
+      assertThat(frontier.poll().getUrl()).isEqualTo(page(1).getUrl());
+      assertThat(frontier.poll().getUrl()).isEqualTo(page(2).getUrl());
+      assertThat(frontier.poll()).isNull();
+    }
+    assertThat(listFiles(tempDir)).isEmpty();
+  }
+
+  @Test
+  public void spillsAcrossSegmentsInFifoOrder() throws IOException {
+    // Segments this small hold only a few pages each.
+    try (SpillingFrontier frontier = new SpillingFrontier(8, 256, tempDir)) {
+      for (int i = 0; i < 1000; i++) {
+        frontier.offer(page(i));
+      }
+      assertThat(frontier.size()).isEqualTo(1000);
+      assertThat(frontier.spilledCount()).isEqualTo(992);
+
+      for (int i = 0; i < 1000; i++) {
+        CrawlCheckpoint.PendingPage page = frontier.poll();
+        assertThat(page.getUrl()).isEqualTo(page(i).getUrl());
+        assertThat(page.getStartingUrl()).isEqualTo("http://example.com/ünïcode");
+        assertThat(page.getDepth()).isEqualTo(i % 7);
+      }
+      assertThat(frontier.poll()).isNull();
+    }
+    assertThat(listFiles(tempDir)).isEmpty();
+  }
+
+  @Test
+  public void interleavesOffersAndPolls() {
+    try (SpillingFrontier frontier = new SpillingFrontier(3, 128, tempDir)) {
+      int next = 0;
+      int expected = 0;
+      for (int round = 0; round < 200; round++) {
+        // Offer more than is polled, so the frontier keeps spilling while it is read back.
+        for (int i = 0; i < 3; i++) {
+          frontier.offer(page(next++));
+        }
+        for (int i = 0; i < 2; i++) {
+          assertThat(frontier.poll().getUrl()).isEqualTo(page(expected++).getUrl());
+        }
+      }
+      while (expected < next) {
+        assertThat(frontier.poll().getUrl()).isEqualTo(page(expected++).getUrl());
+      }
+      assertThat(frontier.poll()).isNull();
+
+      // Back on the heap once everything spilled has been read.
+      frontier.offer(page(next));
+      assertThat(frontier.spilledCount()).isEqualTo(0);
+      assertThat(frontier.poll().getUrl()).isEqualTo(page(next).getUrl());
+    }
+  }
+
+  @Test
+  public void dropsPagesOfferedAfterClose() {
+    SpillingFrontier frontier = new SpillingFrontier(1, 128, tempDir);
+    frontier.offer(page(1));
+    frontier.offer(page(2));
+    frontier.close();
+    frontier.offer(page(3));
+
+    assertThat(frontier.poll()).isNull();
+  }
+
+  private static CrawlCheckpoint.PendingPage page(int i) {
+    return new CrawlCheckpoint.PendingPage("http://example.com/" + i, "http://example.com/ünïcode", i % 7);
+  }
+
+  private static Object[] listFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.toArray();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.udacity.webcrawler;
+
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.util.Modules;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.profiler.Profiler;
+
+/**
+ * Creates crawlers through the {@link WebCrawlerModule}, with pages that are parsed by a given
+ * {@link PageParserFactory} instead of being downloaded.
+ */
+final class TestCrawlers {
+
+  private TestCrawlers() {
+  }
+
+  /**
+   * Returns the crawler of the given type, configured by the given configuration, with the
+   * bindings of the given module in place of the ones of the {@link WebCrawlerModule}. The module
+   * must bind a {@link Profiler}.
+   */
+  static <T extends WebCrawler> T create(
+      Class<T> type, CrawlerConfiguration config, Module overrides) {
+    return Guice.createInjector(Modules.override(new WebCrawlerModule(config)).with(overrides))
+        .getInstance(type);
+  }
+
+  /**
+   * Returns the crawler of the given type, configured by the given configuration.
+   */
+  static <T extends WebCrawler> T create(
+      Class<T> type,
+      CrawlerConfiguration config,
+      PageParserFactory parserFactory,
+      Profiler profiler) {
+    return create(type, config, binder -> {
+      binder.bind(PageParserFactory.class).toInstance(parserFactory);
+      binder.bind(Profiler.class).toInstance(profiler);
+    });
+  }
+
+  /**
+   * Returns the crawler of the given type, configured by the given configuration, with a
+   * {@link NoOpProfiler}.
+   */
+  static <T extends WebCrawler> T create(
+      Class<T> type, CrawlerConfiguration config, PageParserFactory parserFactory) {
+    return create(type, config, parserFactory, new NoOpProfiler());
+  }
+}
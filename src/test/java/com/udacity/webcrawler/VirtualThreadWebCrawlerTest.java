@@ -0,0 +1,108 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.json.CrawlResult;
+import com.udacity.webcrawler.json.CrawlerConfiguration;
+import com.udacity.webcrawler.parser.PageParser;
+import com.udacity.webcrawler.parser.PageParserFactory;
+import com.udacity.webcrawler.parser.PageParserResults;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class VirtualThreadWebCrawlerTest {
+
+  @Test
+  public void leavesOutPagesInFlightAtDeadline() throws Exception {
+    CountDownLatch crawlReturned = new CountDownLatch(1);
+    CountDownLatch slowPageParsed = new CountDownLatch(1);
+    Set<String> parsed = ConcurrentHashMap.newKeySet();
+    // Keeps going past the deadline, even once it is interrupted, and only returns once the crawl
+    // has returned.
+    PageParser slowPage = () -> {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          crawlReturned.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      slowPageParsed.countDown();
+      return PageParserResults.of(Map.of("slow", 1), List.of("late"));
+    };
+    PageParserFactory parserFactory = url -> {
+      parsed.add(url);
+      return url.equals("slow")
+          ? slowPage
+          : () -> PageParserResults.of(Map.of("fast", 1), List.of("slow"));
+    };
+    VirtualThreadWebCrawler crawler =
+        TestCrawlers.create(VirtualThreadWebCrawler.class, config(1), parserFactory);
+
+    Instant start = Instant.now();
+    CrawlResult result = crawler.crawl(List.of("fast"));
+    crawlReturned.countDown();
+
+    assertThat(Duration.between(start, Instant.now())).isLessThan(Duration.ofSeconds(10));
+    // The slow page was in flight at the deadline, so it does not count as visited.
+    assertThat(result.getUrlsVisited()).isEqualTo(1);
+    assertThat(result.getWordCounts()).containsExactly("fast", 1);
+    assertThat(slowPageParsed.await(10, TimeUnit.SECONDS)).isTrue();
+    // Give the slow page's task time to try to merge, which must not submit its links.
+    Thread.sleep(200);
+    assertThat(parsed).containsExactly("fast", "slow");
+  }
+
+  @Test
+  public void crawlsOnPlatformThreadsWithoutVirtualThreads() {
+    PageParserFactory parserFactory = url -> () -> PageParserResults.of(
+        Map.of("word", 1),
+        url.length() < 3 ? List.of(url + "a", url + "b") : List.of());
+    VirtualThreadWebCrawler crawler =
+        TestCrawlers.create(VirtualThreadWebCrawler.class, config(10), parserFactory);
+
+    CrawlResult result = crawler.crawl(List.of("r"));
+
+    // The project is built for Java 17, where the crawler falls back to platform threads.
+    assertThat(VirtualThreadWebCrawler.usesVirtualThreads())
+        .isEqualTo(Runtime.version().feature() >= 21);
+    assertThat(crawler.getMaxParallelism()).isEqualTo(3);
+    assertThat(result.getUrlsVisited()).isEqualTo(1 + 2 + 4);
+    assertThat(result.getWordCounts()).containsExactly("word", 7);
+  }
+
+  @Test
+  public void fallbackExecutorHasOneThreadPerPermit() {
+    ExecutorService executor = VirtualThreadWebCrawler.newThreadPerTaskExecutor(false, 3);
+    try {
+      assertThat(executor).isInstanceOf(ThreadPoolExecutor.class);
+      assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize()).isEqualTo(3);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static CrawlerConfiguration config(int timeoutSeconds) {
+    return new CrawlerConfiguration.Builder()
+        .setParallelism(3)
+        .setMaxDepth(5)
+        .setPopularWordCount(10)
+        .setTimeoutSeconds(timeoutSeconds)
+        .build();
+  }
+}
@@ -78,6 +78,19 @@ public final class WebCrawlerTest {
     assertThat(crawler.getClass()).isAssignableTo(ParallelWebCrawler.class);
   }
 
+  @Test
+  public void testVirtualThreadParallelism() {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setParallelism(Runtime.getRuntime().availableProcessors() + 1)
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(VirtualThreadWebCrawler.class);
+    assertThat(crawler.getMaxParallelism())
+        .isEqualTo(Runtime.getRuntime().availableProcessors() + 1);
+  }
+
   @ParameterizedTest
   @MethodSource("provideTestParameters")
   public void zeroMaxDepth(Class<?> crawlerClass) {
@@ -240,6 +253,29 @@ public final class WebCrawlerTest {
         .inOrder();
   }
 
+  @ParameterizedTest
+  @MethodSource("provideTestParameters")
+  public void nearDuplicatesAreOnlySkippedWithinOneCrawl(Class<?> crawlerClass) {
+    CrawlerConfiguration config =
+        new CrawlerConfiguration.Builder()
+            .setImplementationOverride(crawlerClass.getName())
+            .setMaxDepth(1)
+            .setPopularWordCount(20)
+            .setNearDuplicateDistance(3)
+            .addStartPages(Paths.get(DATA_DIR, "test-page.html").toUri().toString())
+            .build();
+    Guice.createInjector(new WebCrawlerModule(config), new NoOpProfilerModule())
+        .injectMembers(this);
+    assertThat(crawler.getClass()).isAssignableTo(crawlerClass);
+
+    CrawlResult first = crawler.crawl(config.getStartPages());
+    CrawlResult second = crawler.crawl(config.getStartPages());
+
+    assertThat(first.getWordCounts()).hasSize(9);
+    assertThat(second.getUrlsVisited()).isEqualTo(first.getUrlsVisited());
+    assertThat(second.getWordCounts()).isEqualTo(first.getWordCounts());
+  }
+
   @ParameterizedTest
   @MethodSource("provideTestParameters")
   public void pageNotFoundStillCountsAsVisited(Class<?> crawlerClass) {
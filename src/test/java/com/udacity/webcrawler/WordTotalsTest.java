@@ -0,0 +1,34 @@
+package com.udacity.webcrawler;
+
+import com.udacity.webcrawler.parser.PageParserResults;
+import com.udacity.webcrawler.parser.WordDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordTotalsTest {
+  @Test
+  public void addsUpPages() {
+    WordTotals totals = new WordTotals(new WordDictionary());
+    totals.add(PageParserResults.of(Map.of("the", 2, "fox", 1), List.of()));
+    totals.add(PageParserResults.of(Map.of("the", 1, "dog", 3), List.of()));
+    totals.addAll(Map.of("fox", 4));
+
+    assertThat(totals.toMap()).containsExactly("the", 3, "fox", 5, "dog", 3);
+  }
+
+  @Test
+  public void addsUpWordsWithManyIds() {
+    WordDictionary dictionary = new WordDictionary();
+    WordTotals totals = new WordTotals(dictionary);
+    for (int i = 0; i < 10_000; i++) {
+      dictionary.intern("unused" + i);
+    }
+    totals.addAll(Map.of("late", 7));
+
+    assertThat(totals.toMap()).containsExactly("late", 7);
+  }
+}
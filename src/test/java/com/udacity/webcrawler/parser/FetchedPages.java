@@ -0,0 +1,20 @@
+package com.udacity.webcrawler.parser;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds {@link FetchedPage}s for tests outside of the parser package.
+ */
+public final class FetchedPages {
+
+  /**
+   * Returns a downloaded page with the given URL and UTF-8 body.
+   */
+  public static FetchedPage of(String url, String body) {
+    return new FetchedPage(url, url, body.getBytes(StandardCharsets.UTF_8), "UTF-8");
+  }
+
+  private FetchedPages() {
+    // This class cannot be instantiated
+  }
+}
@@ -0,0 +1,83 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class IgnoredWordMatcherTest {
+  private static final List<String> TOKENS = List.of(
+      "",
+      "a",
+      "an",
+      "the",
+      "The",
+      "fox",
+      "jumped",
+      "running",
+      "unhappy",
+      "don't",
+      "a.b",
+      "😀",
+      "😀😀😀😀",
+      "x\u2028y",
+      "a\u0085",
+      "$money",
+      "end$",
+      "supercalifragilistic");
+
+  @Test
+  public void matchesSameTokensAsEachPattern() {
+    List<String> regexes = List.of(
+        "^.{1,3}$",
+        ".{4}",
+        "....",
+        ".{2,}",
+        ".+",
+        ".?",
+        ".{1,3}?",
+        "the",
+        "^(?:the|an)$",
+        "\\Qdon't\\E",
+        "a\\.b",
+        "\\$money",
+        "end\\$",
+        "un.*",
+        ".*ing",
+        ".*ing.*",
+        "(?i)the",
+        "j[aeiou]mped",
+        "");
+    for (String regex : regexes) {
+      assertSameAsEachPattern(List.of(regex));
+    }
+    assertSameAsEachPattern(regexes);
+  }
+
+  @Test
+  public void findsManyStopWords() {
+    List<String> regexes = List.of(
+        "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "he", "in", "is",
+        "it", "its", "of", "on", "that", "the", "to", "was", "were", "will", "with", "fox");
+    assertSameAsEachPattern(regexes);
+  }
+
+  private static void assertSameAsEachPattern(List<String> regexes) {
+    List<Pattern> patterns = regexes.stream().map(Pattern::compile).collect(Collectors.toList());
+    IgnoredWordMatcher matcher = new IgnoredWordMatcher(patterns);
+    for (String token : TOKENS) {
+      boolean expected = patterns.stream().anyMatch(p -> p.matcher(token).matches());
+      // Also as a slice of a longer string.
+      String text = "<<" + token + ">>";
+      assertWithMessage("%s matching %s", regexes, token)
+          .that(matcher.matches(text, 2, 2 + token.length()))
+          .isEqualTo(expected);
+      assertWithMessage("%s matching %s", regexes, token)
+          .that(matcher.matches(token, 0, token.length()))
+          .isEqualTo(expected);
+    }
+  }
+}
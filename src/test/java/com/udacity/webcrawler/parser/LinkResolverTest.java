@@ -0,0 +1,60 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class LinkResolverTest {
+
+  private static final UrlCanonicalizer CANONICALIZER = new UrlCanonicalizer(List.of(), false);
+
+  @TempDir
+  public Path dir;
+
+  @Test
+  public void resolvesLocalLinksLikePaths() throws IOException {
+    Path page = Files.createFile(Files.createDirectory(dir.resolve("my site")).resolve("a.html"));
+    Files.createFile(page.resolveSibling("b.html"));
+    LinkResolver resolver = LinkResolver.forLocalFile(page.toUri(), CANONICALIZER);
+    List<String> hrefs = List.of(
+        "b.html", "missing.html", "sub/c.html", "../up.html", "./same.html", "/rooted.html",
+        "a//b/", "x;y=1,z@w~!$&'()*+", "q.html?x=1", "frag.html#top", "with space.html",
+        "http://example.com/", "/");
+
+    for (String href : hrefs) {
+      String expected = CANONICALIZER.canonicalize(
+          Path.of(page.getParent().toString(), href).toUri().toString());
+      assertThat(resolver.resolve(href)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  public void resolvesRemoteLinksLikeJsoup() {
+    LinkResolver resolver = LinkResolver.forBaseUri("http://example.com/a/b.html", CANONICALIZER);
+
+    assertThat(resolver.resolve("c.html")).isEqualTo("http://example.com/a/c.html");
+    assertThat(resolver.resolve("../d.html")).isEqualTo("http://example.com/d.html");
+    assertThat(resolver.resolve("//other.org/e")).isEqualTo("http://other.org/e");
+    assertThat(resolver.resolve("https://x.org/"))
+        .isEqualTo(CANONICALIZER.canonicalize("https://x.org/"));
+  }
+
+  @Test
+  public void resolvesRepeatedLinksOnce() {
+    LinkResolver local =
+        LinkResolver.forLocalFile(URI.create("file:///site/page.html"), CANONICALIZER);
+    LinkResolver remote = LinkResolver.forBaseUri("http://example.com/", CANONICALIZER);
+
+    assertThat(local.resolve(new String("nav.html")))
+        .isSameInstanceAs(local.resolve(new String("nav.html")));
+    assertThat(remote.resolve(new String("nav.html")))
+        .isSameInstanceAs(remote.resolve(new String("nav.html")));
+  }
+}
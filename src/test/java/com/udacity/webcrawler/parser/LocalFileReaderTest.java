@@ -0,0 +1,81 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class LocalFileReaderTest {
+
+  @TempDir
+  public Path dir;
+
+  @Test
+  public void decodesUtf8() throws IOException {
+    assertThat(read("plain <b>ascii</b>".getBytes(StandardCharsets.UTF_8)))
+        .isEqualTo("plain <b>ascii</b>");
+    assertThat(read("na\u00efve caf\u00e9 \ud83d\ude00".getBytes(StandardCharsets.UTF_8)))
+        .isEqualTo("na\u00efve caf\u00e9 \ud83d\ude00");
+    assertThat(read(new byte[] {'a', (byte) 0xff, 'b'})).isEqualTo("a\ufffdb");
+    assertThat(read(new byte[0])).isEmpty();
+  }
+
+  @Test
+  public void followsByteOrderMarks() throws IOException {
+    assertThat(read(new byte[] {(byte) 0xef, (byte) 0xbb, (byte) 0xbf, 'h', 'i'})).isEqualTo("hi");
+    assertThat(read("\ufeffhi".getBytes(StandardCharsets.UTF_16LE))).isEqualTo("\ufeffhi");
+    assertThat(read("\ufeffhi".getBytes(StandardCharsets.UTF_16BE))).isEqualTo("\ufeffhi");
+  }
+
+  @Test
+  public void readsFilesLargerThanItsBuffers() throws IOException {
+    String text = "word \u00e9 ".repeat(100_000);
+    assertThat(read(text.getBytes(StandardCharsets.UTF_8))).isEqualTo(text);
+    assertThat(read("small".getBytes(StandardCharsets.UTF_8))).isEqualTo("small");
+  }
+
+  @Test
+  public void failsOnMissingFiles() {
+    assertThrows(NoSuchFileException.class, () -> LocalFileReader.read(dir.resolve("missing")));
+  }
+
+  @Test
+  public void parsersReadLocalFilesLikeTheFetcher() throws IOException {
+    Path file = Files.write(dir.resolve("page.html"),
+        ("\ufeff<p>Caf\u00e9 <a href=\"sub/next.html\">next</a> \u00fcber</p>")
+            .getBytes(StandardCharsets.UTF_8));
+    String url = file.toUri().toString();
+    PageFetcher fetcher = new PageFetcherImpl(Duration.ZERO);
+    UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of(), false);
+    WordDictionary dictionary = new WordDictionary();
+    FetchedPage page = fetcher.fetch(url);
+
+    List<PageParser.Result> results = List.of(
+        new PageParserImpl(url, fetcher, List.of(), canonicalizer, dictionary).parse(),
+        new StreamingPageParser(url, fetcher, List.of(), canonicalizer, dictionary).parse(),
+        new StreamingPageParser(page, List.of(), canonicalizer, dictionary).parse());
+    PageParser.Result expected =
+        new PageParserImpl(page, List.of(), canonicalizer, dictionary).parse();
+    for (PageParser.Result result : results) {
+      assertThat(result.getWordCounts()).isEqualTo(expected.getWordCounts());
+      assertThat(result.getLinks()).containsExactlyElementsIn(expected.getLinks());
+    }
+    assertThat(expected.getWordCounts()).containsExactly("caf", 1, "next", 1, "ber", 1);
+    assertThat(expected.getLinks())
+        .containsExactly(dir.resolve("sub/next.html").toUri().toString());
+  }
+
+  private String read(byte[] bytes) throws IOException {
+    Path file = Files.write(dir.resolve("page.html"), bytes);
+    return LocalFileReader.read(file).toString();
+  }
+}
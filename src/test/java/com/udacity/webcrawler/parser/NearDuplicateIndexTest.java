@@ -0,0 +1,94 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.NoOpProfiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class NearDuplicateIndexTest {
+
+  private static final String ARTICLE =
+      "the quick brown fox jumps over the lazy dog while seven wise owls watch from an old oak "
+          + "tree and count every leaf that falls into the river below the hill";
+
+  @Test
+  public void findsFingerprintsWithinDistance() {
+    Random random = new Random(42);
+    for (int maxDistance = 0; maxDistance <= NearDuplicateIndex.MAX_DISTANCE; maxDistance++) {
+      NearDuplicateIndex index = new NearDuplicateIndex(maxDistance, 64, new NoOpProfiler());
+      long fingerprint = random.nextLong();
+      assertThat(index.addIfNew(fingerprint)).isTrue();
+      assertThat(index.addIfNew(flipBits(fingerprint, maxDistance, random))).isFalse();
+      assertThat(index.addIfNew(flipBits(fingerprint, maxDistance + 1, random))).isTrue();
+    }
+  }
+
+  @Test
+  public void keepsCheckingOnceFull() {
+    NearDuplicateIndex index = new NearDuplicateIndex(3, 2, new NoOpProfiler());
+    assertThat(index.addIfNew(0L)).isTrue();
+    assertThat(index.addIfNew(-1L)).isTrue();
+    assertThat(index.addIfNew(0x5555555555555555L)).isTrue();
+    assertThat(index.addIfNew(0x5555555555555555L)).isTrue();
+    assertThat(index.addIfNew(1L)).isFalse();
+  }
+
+  @Test
+  public void forgetsFingerprintsWhenCleared() {
+    NearDuplicateIndex index = new NearDuplicateIndex(3, 2, new NoOpProfiler());
+    assertThat(index.addIfNew(0L)).isTrue();
+    assertThat(index.addIfNew(-1L)).isTrue();
+
+    index.clear();
+
+    assertThat(index.addIfNew(0L)).isTrue();
+    assertThat(index.addIfNew(1L)).isFalse();
+    assertThat(index.addIfNew(-1L)).isTrue();
+  }
+
+  @Test
+  public void skipsPagesThatDifferByAWord() {
+    NearDuplicateIndex index = new NearDuplicateIndex(3, 64, new NoOpProfiler());
+    assertThat(index.isNearDuplicate(page(ARTICLE + " posted on monday"))).isFalse();
+    assertThat(index.isNearDuplicate(page(ARTICLE + " posted on tuesday"))).isTrue();
+    assertThat(index.isNearDuplicate(
+        page("a completely different page about cooking pasta with garlic basil and olive oil")))
+        .isFalse();
+  }
+
+  @Test
+  public void neverSkipsPagesWithFewWords() {
+    NearDuplicateIndex index = new NearDuplicateIndex(3, 64, new NoOpProfiler());
+    assertThat(index.isNearDuplicate(page("home"))).isFalse();
+    assertThat(index.isNearDuplicate(page("home"))).isFalse();
+  }
+
+  @Test
+  public void disabledIndexSkipsNothing() {
+    NearDuplicateIndex index = new NearDuplicateIndex(-1, 64, new NoOpProfiler());
+    assertThat(index.isEnabled()).isFalse();
+    assertThat(index.isNearDuplicate(page(ARTICLE))).isFalse();
+    assertThat(index.isNearDuplicate(page(ARTICLE))).isFalse();
+  }
+
+  private static PageParser.Result page(String text) {
+    PageParser.Result.Builder builder = new PageParser.Result.Builder();
+    for (String word : text.split(" ")) {
+      builder.addWord(word);
+    }
+    return builder.build();
+  }
+
+  private static long flipBits(long fingerprint, int bits, Random random) {
+    while (bits > 0) {
+      long bit = 1L << random.nextInt(Long.SIZE);
+      if ((fingerprint & bit) == 0) {
+        fingerprint |= bit;
+        bits--;
+      }
+    }
+    return fingerprint;
+  }
+}
@@ -0,0 +1,105 @@
+package com.udacity.webcrawler.parser;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class PageFetcherImplTest {
+
+  private HttpServer server;
+  private String baseUrl;
+  private final PageFetcherImpl fetcher = new PageFetcherImpl(
+      PageFetcherImpl.newHttpClient(Duration.ofSeconds(5)), Duration.ofSeconds(5));
+
+  @BeforeEach
+  public void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/page", exchange -> respond(
+        exchange, 200, "text/html; charset=ISO-8859-1",
+        "<a href=\"other\">hello</a>".getBytes(StandardCharsets.ISO_8859_1)));
+    server.createContext("/moved", exchange -> {
+      exchange.getResponseHeaders().add("Location", "/page");
+      respond(exchange, 302, "text/html", new byte[0]);
+    });
+    server.createContext("/image", exchange -> respond(exchange, 200, "image/png", new byte[4]));
+    server.createContext("/", exchange -> respond(exchange, 404, "text/html", new byte[0]));
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void fetchesRemotePage() throws Exception {
+    FetchedPage page = fetcher.fetch(baseUrl + "/page");
+
+    assertThat(page.getUrl()).isEqualTo(baseUrl + "/page");
+    assertThat(page.getBaseUri()).isEqualTo(baseUrl + "/page");
+    assertThat(page.getCharset()).isEqualTo("ISO-8859-1");
+    assertThat(new String(page.getBody(), StandardCharsets.ISO_8859_1))
+        .isEqualTo("<a href=\"other\">hello</a>");
+  }
+
+  @Test
+  public void resolvesLinksAgainstRedirectTarget() throws Exception {
+    FetchedPage page = fetcher.fetch(baseUrl + "/moved");
+
+    assertThat(page.getUrl()).isEqualTo(baseUrl + "/moved");
+    assertThat(page.getBaseUri()).isEqualTo(baseUrl + "/page");
+
+    PageParser.Result result = new PageParserImpl(
+        page, List.of(), new UrlCanonicalizer(List.of(), false), new WordDictionary()).parse();
+    assertThat(result.getLinks()).containsExactly(baseUrl + "/other");
+    assertThat(result.getWordCounts()).containsExactly("hello", 1);
+  }
+
+  @Test
+  public void rejectsErrorsAndNonHtml() {
+    assertThrows(IOException.class, () -> fetcher.fetch(baseUrl + "/missing"));
+    assertThrows(IOException.class, () -> fetcher.fetch(baseUrl + "/image"));
+    assertThrows(IOException.class, () -> fetcher.fetch("ftp://localhost/page"));
+  }
+
+  @Test
+  public void fetchAsyncDoesNotBlock() throws Exception {
+    List<CompletableFuture<FetchedPage>> pages = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      pages.add(fetcher.fetchAsync(baseUrl + "/page"));
+    }
+    CompletableFuture<FetchedPage> missing = fetcher.fetchAsync(baseUrl + "/missing");
+
+    for (CompletableFuture<FetchedPage> page : pages) {
+      assertThat(page.get().size()).isGreaterThan(0);
+    }
+    ExecutionException e = assertThrows(ExecutionException.class, missing::get);
+    assertThat(e).hasCauseThat().isInstanceOf(IOException.class);
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.udacity.webcrawler.parser;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link PageParser.Result}s for tests outside of the parser package.
+ */
+public final class PageParserResults {
+
+  /**
+   * Returns a parse result with the given word counts and links.
+   */
+  public static PageParser.Result of(Map<String, Integer> wordCounts, List<String> links) {
+    PageParser.Result.Builder builder = new PageParser.Result.Builder();
+    wordCounts.forEach((word, count) -> {
+      for (int i = 0; i < count; i++) {
+        builder.addWord(word);
+      }
+    });
+    links.forEach(builder::addLink);
+    return builder.build();
+  }
+
+  private PageParserResults() {
+    // This class cannot be instantiated
+  }
+}
@@ -0,0 +1,119 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.profiler.Profiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ParseCacheTest {
+
+  private final List<Long> hitPercents = new ArrayList<>();
+  private final Profiler profiler = new Profiler() {
+    @Override
+    public <T> T wrap(Class<T> klass, T delegate) {
+      return delegate;
+    }
+
+    @Override
+    public void recordMetric(String name, long value) {
+      assertThat(name).isEqualTo("parseCache.hitPercent");
+      hitPercents.add(value);
+    }
+
+    @Override
+    public void recordSeries(String name, long value) {
+    }
+
+    @Override
+    public void writeData(Path path) {
+    }
+
+    @Override
+    public void writeData(Writer writer) {
+    }
+  };
+
+  @Test
+  public void samePageUnderAnotherUrlIsParsedOnce() {
+    ParseCache cache = new ParseCache(8, profiler);
+    PageParser.Result first = cache.parse(page("http://a.com/1", "http://a.com/", "x y"), parser());
+    PageParser.Result second =
+        cache.parse(page("http://a.com/2", "http://a.com/", "x y"), failingParser());
+
+    assertThat(second).isSameInstanceAs(first);
+    assertThat(hitPercents).containsExactly(0L, 100L).inOrder();
+  }
+
+  @Test
+  public void differentBodyOrLinkBaseIsParsedAgain() {
+    ParseCache cache = new ParseCache(8, profiler);
+    cache.parse(page("http://a.com/1", "http://a.com/", "x y"), parser());
+    cache.parse(page("http://a.com/1", "http://a.com/", "x z"), parser());
+    cache.parse(page("http://a.com/1", "http://b.com/", "x y"), parser());
+
+    assertThat(hitPercents).containsExactly(0L, 0L, 0L);
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    ParseCache cache = new ParseCache(2, profiler);
+    FetchedPage a = page("http://a.com/", "http://a.com/", "a");
+    FetchedPage b = page("http://a.com/", "http://a.com/", "b");
+    FetchedPage c = page("http://a.com/", "http://a.com/", "c");
+    cache.parse(a, parser());
+    cache.parse(b, parser());
+    cache.parse(a, failingParser());
+    cache.parse(c, parser());
+    cache.parse(a, failingParser());
+    cache.parse(b, parser());
+
+    assertThat(hitPercents).containsExactly(0L, 0L, 100L, 0L, 100L, 0L).inOrder();
+  }
+
+  @Test
+  public void modifiedLocalFileIsParsedAgain(@TempDir Path dir) throws Exception {
+    Path file = Files.writeString(dir.resolve("page.html"), "x y");
+    String url = file.toUri().toString();
+    ParseCache cache = new ParseCache(8, profiler);
+    PageParser.Result first = cache.parseLocal(url, attributes(file), parser());
+    assertThat(cache.parseLocal(url, attributes(file), failingParser())).isSameInstanceAs(first);
+
+    Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+    assertThat(cache.parseLocal(url, attributes(file), parser())).isNotSameInstanceAs(first);
+    assertThat(hitPercents).containsExactly(0L, 100L, 0L).inOrder();
+  }
+
+  @Test
+  public void zeroSizeIsDisabled() {
+    assertThat(new ParseCache(0, profiler).isEnabled()).isFalse();
+    assertThat(new ParseCache(1, profiler).isEnabled()).isTrue();
+  }
+
+  private static FetchedPage page(String url, String baseUri, String body) {
+    return new FetchedPage(url, baseUri, body.getBytes(StandardCharsets.UTF_8), null);
+  }
+
+  private static BasicFileAttributes attributes(Path file) throws Exception {
+    return Files.readAttributes(file, BasicFileAttributes.class);
+  }
+
+  private static PageParser parser() {
+    return () -> new PageParser.Result.Builder().build();
+  }
+
+  private static PageParser failingParser() {
+    return () -> {
+      throw new AssertionError("page should have been cached");
+    };
+  }
+}
@@ -0,0 +1,111 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class StreamingPageParserTest {
+
+  private static final String DATA_DIR = System.getProperty("testDataDir");
+  private static final String REMOTE_URL = "http://example.com/a/b.html";
+  private static final UrlCanonicalizer CANONICALIZER = new UrlCanonicalizer(List.of(), false);
+  private static final List<Pattern> IGNORED_WORDS =
+      List.of(Pattern.compile("^...$"), Pattern.compile("the"));
+
+  private static final List<String> PAGES = List.of(
+      "",
+      "plain text, no tags",
+      "<p>The <b>quick</b> brown<i>fox</i></p><a href=\"/c\">jumped</a> over",
+      "<script>var notAWord = '<p>';</script><style>p { color: red }</style>after",
+      "<script>if (a </scripts> b) {}</script>shown",
+      "caf&eacute; &amp;&lt;&gt; &#65;&#x42; &copy &notit; &#0; &#x110000; &#150;",
+      "no&nbsp;break\u00a0space zero\u200bwidth soft\u00adhyphen",
+      "<!-- hidden --> shown <!--> <!---> <!-- a --!> also <!bogus> <?xml ?> end",
+      "<title>Page &amp; Title</title><textarea>typed <b>text</b></textarea>",
+      "<xmp>&amp; raw <b></xmp><noembed>x&lt;y</noembed>",
+      "<a href='x>y' title=\">\">quoted</a><a href=\"dup1\" href=\"dup2\">dup</a>",
+      "split</>run and <a href=\"?q=1&amp;r=2\">query</a> <a href=\"?q=1&copy=2\">raw</a>",
+      "<html><head><base href=\"http://other.org/dir/\"></head><body><a href=\"x\">x</a>",
+      "<a href=\"#frag\">frag</a> <a href=\"mailto:a@b.c\">mail</a> <a href=\"\">empty</a>",
+      "<div>unclosed <a href=\"u\">link <p>text",
+      "<plaintext><b>all</b> raw &amp; </plaintext> here",
+      "trailing <a href=\"lost\"");
+
+  @Test
+  public void matchesJsoupOnTestData() throws IOException {
+    try (Stream<Path> files = Files.list(Paths.get(DATA_DIR))) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        FetchedPage page =
+            new FetchedPage(file.toUri().toString(), "", Files.readAllBytes(file), null);
+        assertSameResult(page, List.of());
+        assertSameResult(page, IGNORED_WORDS);
+      }
+    }
+  }
+
+  @Test
+  public void matchesJsoupOnMarkup() {
+    for (String html : PAGES) {
+      FetchedPage page =
+          new FetchedPage(REMOTE_URL, REMOTE_URL, html.getBytes(StandardCharsets.UTF_8), null);
+      assertSameResult(page, List.of());
+      assertSameResult(page, IGNORED_WORDS);
+    }
+  }
+
+  @Test
+  public void detectsCharsets() {
+    byte[] latin1 = "<meta charset=\"ISO-8859-1\"><p>na\u00efve caf\u00e9</p>"
+        .getBytes(StandardCharsets.ISO_8859_1);
+    byte[] contentType =
+        ("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=iso-8859-1\">"
+            + "<p>\u00fcber</p>").getBytes(StandardCharsets.ISO_8859_1);
+    byte[] bom = ("\ufeff<p>\u00e9t\u00e9</p>").getBytes(StandardCharsets.UTF_16LE);
+    for (byte[] body : List.of(latin1, contentType, bom)) {
+      assertSameResult(new FetchedPage(REMOTE_URL, REMOTE_URL, body, null), List.of());
+    }
+    assertSameResult(new FetchedPage(REMOTE_URL, REMOTE_URL, latin1, "UTF-8"), List.of());
+  }
+
+  @Test
+  public void parsesLocalFiles() {
+    String testPage = Paths.get(DATA_DIR, "test-page.html").toUri().toString();
+    PageParser.Result result = new StreamingPageParser(
+        testPage,
+        new PageFetcherImpl(Duration.ZERO),
+        List.of(),
+        CANONICALIZER,
+        new WordDictionary()).parse();
+
+    assertThat(result.getLinks())
+        .containsExactly(Paths.get(DATA_DIR, "link-1.html").toUri().toString());
+    assertThat(result.getWordCounts()).hasSize(9);
+    assertThat(result.getWordCounts()).containsEntry("the", 2);
+  }
+
+  private static void assertSameResult(FetchedPage page, List<Pattern> ignoredWords) {
+    WordDictionary dictionary = new WordDictionary();
+    PageParser.Result expected =
+        new PageParserImpl(page, ignoredWords, CANONICALIZER, dictionary).parse();
+    PageParser.Result actual =
+        new StreamingPageParser(page, ignoredWords, CANONICALIZER, dictionary).parse();
+    String html = new String(page.getBody(), StandardCharsets.UTF_8);
+    assertWithMessage("words of \"%s\"", html)
+        .that(actual.getWordCounts())
+        .isEqualTo(expected.getWordCounts());
+    assertWithMessage("links of \"%s\"", html)
+        .that(actual.getLinks())
+        .containsExactlyElementsIn(expected.getLinks());
+  }
+}
@@ -0,0 +1,75 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class UrlCanonicalizerTest {
+
+  private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(List.of(), false);
+
+  @Test
+  public void spellingsOfTheSameUrlAreEqual() {
+    assertThat(canonicalizer.canonicalize("HTTP://Host/a#frag")).isEqualTo("http://host/a");
+    assertThat(canonicalizer.canonicalize("http://host/a")).isEqualTo("http://host/a");
+    assertThat(canonicalizer.canonicalize("http://host:80/a/./")).isEqualTo("http://host/a/");
+    assertThat(canonicalizer.canonicalize("https://host:443")).isEqualTo("https://host/");
+    assertThat(canonicalizer.canonicalize("http://host/a/b/../c/.")).isEqualTo("http://host/a/c/");
+    assertThat(canonicalizer.canonicalize("http://host/../../a")).isEqualTo("http://host/a");
+  }
+
+  @Test
+  public void keepsWhatIsSignificant() {
+    assertThat(canonicalizer.canonicalize("http://User@Host:8080/Path?Q=1"))
+        .isEqualTo("http://User@host:8080/Path?Q=1");
+    assertThat(canonicalizer.canonicalize("https://host:80/")).isEqualTo("https://host:80/");
+    assertThat(canonicalizer.canonicalize("http://[::1]:80/x")).isEqualTo("http://[::1]/x");
+    assertThat(canonicalizer.canonicalize("file:/tmp/a/../b.html")).isEqualTo("file:/tmp/b.html");
+    assertThat(canonicalizer.canonicalize("MAILTO:someone@Example.com"))
+        .isEqualTo("mailto:someone@Example.com");
+    assertThat(canonicalizer.canonicalize("")).isEmpty();
+    assertThat(canonicalizer.canonicalize("relative/path")).isEqualTo("relative/path");
+  }
+
+  @Test
+  public void returnsCanonicalUrlsUnchanged() {
+    String url = "http://host/a/b?x=1";
+    assertThat(canonicalizer.canonicalize(url)).isSameInstanceAs(url);
+  }
+
+  @Test
+  public void stripsAndSortsQueryParameters() {
+    UrlCanonicalizer stripping = new UrlCanonicalizer(List.of("utm_*", "fbclid"), true);
+
+    assertThat(stripping.canonicalize("http://host/?b=2&utm_source=x&a=1&fbclid=y#top"))
+        .isEqualTo("http://host/?a=1&b=2");
+    assertThat(stripping.canonicalize("http://host/?utm_medium=x&fbclid2=z"))
+        .isEqualTo("http://host/?fbclid2=z");
+    assertThat(stripping.canonicalize("http://host/p?utm_medium=x")).isEqualTo("http://host/p");
+    assertThat(stripping.canonicalize("http://host/p?&&a")).isEqualTo("http://host/p?a");
+  }
+
+  @Test
+  public void sortsQueriesWithManyParameters() {
+    UrlCanonicalizer sorting = new UrlCanonicalizer(List.of(), true);
+    StringBuilder query = new StringBuilder();
+    StringBuilder sorted = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      query.append(query.length() == 0 ? '?' : '&').append((char) ('t' - i)).append("=1");
+      sorted.append(sorted.length() == 0 ? '?' : '&').append((char) ('a' + i)).append("=1");
+    }
+
+    assertThat(sorting.canonicalize("http://host/" + query)).isEqualTo("http://host/" + sorted);
+    // The buffer grown for the long query is reused for the next one.
+    assertThat(sorting.canonicalize("http://host/?b=1&a=1")).isEqualTo("http://host/?a=1&b=1");
+  }
+
+  @Test
+  public void canonicalizesListsInOrder() {
+    assertThat(canonicalizer.canonicalize(List.of("HTTP://Host/b", "http://host/a#x")))
+        .containsExactly("http://host/b", "http://host/a")
+        .inOrder();
+  }
+}
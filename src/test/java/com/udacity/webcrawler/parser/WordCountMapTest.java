@@ -0,0 +1,57 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class WordCountMapTest {
+  @Test
+  public void countsWordsFromReusedBuffer() {
+    WordDictionary dictionary = new WordDictionary();
+    WordCountMap counts = new WordCountMap(dictionary);
+    StringBuilder buffer = new StringBuilder();
+    for (String word : List.of("the", "fox", "the", "dog", "the")) {
+      buffer.setLength(0);
+      counts.increment(buffer.append(word));
+    }
+
+    assertThat(counts.size()).isEqualTo(3);
+    assertThat(toMap(counts)).containsExactly("the", 3, "fox", 1, "dog", 1);
+    // Each distinct word is interned once, when it is first counted.
+    assertThat(dictionary.size()).isEqualTo(3);
+    assertThat(dictionary.intern("dog")).isEqualTo(2);
+
+    int[] ids = new int[counts.size()];
+    int[] wordCounts = new int[counts.size()];
+    counts.copyTo(ids, wordCounts);
+    Map<String, Integer> copied = new HashMap<>();
+    for (int i = 0; i < ids.length; i++) {
+      copied.put(dictionary.word(ids[i]), wordCounts[i]);
+    }
+    assertThat(copied).isEqualTo(toMap(counts));
+  }
+
+  @Test
+  public void growsPastInitialCapacity() {
+    WordCountMap counts = new WordCountMap(new WordDictionary());
+    Map<String, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      String word = "w" + (i % 3_000);
+      counts.increment(word);
+      expected.merge(word, 1, Integer::sum);
+    }
+
+    assertThat(counts.size()).isEqualTo(3_000);
+    assertThat(toMap(counts)).isEqualTo(expected);
+  }
+
+  private static Map<String, Integer> toMap(WordCountMap counts) {
+    Map<String, Integer> map = new HashMap<>();
+    counts.forEach(map::put);
+    return map;
+  }
+}
@@ -0,0 +1,61 @@
+package com.udacity.webcrawler.parser;
+
+import com.udacity.webcrawler.testing.ConcurrentTesting;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class WordDictionaryTest {
+  @Test
+  public void givesEachWordOneId() {
+    WordDictionary dictionary = new WordDictionary();
+    assertThat(dictionary.intern("the")).isEqualTo(0);
+    assertThat(dictionary.intern("fox")).isEqualTo(1);
+    assertThat(dictionary.intern("the")).isEqualTo(0);
+    assertThat(dictionary.intern(new StringBuilder("fox"))).isEqualTo(1);
+
+    assertThat(dictionary.word(0)).isEqualTo("the");
+    assertThat(dictionary.word(1)).isEqualTo("fox");
+    assertThat(dictionary.size()).isEqualTo(2);
+    assertThrows(IndexOutOfBoundsException.class, () -> dictionary.word(2));
+  }
+
+  @Test
+  public void keepsIdsWhileGrowing() {
+    WordDictionary dictionary = new WordDictionary();
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(dictionary.intern("word" + i)).isEqualTo(i);
+    }
+    for (int i = 0; i < 100_000; i++) {
+      assertThat(dictionary.intern("word" + i)).isEqualTo(i);
+      assertThat(dictionary.word(i)).isEqualTo("word" + i);
+    }
+    assertThat(dictionary.size()).isEqualTo(100_000);
+  }
+
+  @Test
+  public void concurrentInternsAgreeOnIds() throws Exception {
+    WordDictionary dictionary = new WordDictionary();
+    int threads = 4;
+    int words = 50_000;
+    List<int[]> results = ConcurrentTesting.runConcurrently(threads, () -> {
+      int[] ids = new int[words];
+      for (int i = 0; i < words; i++) {
+        ids[i] = dictionary.intern("word" + i);
+      }
+      return ids;
+    });
+
+    int[] first = results.get(0);
+    for (int[] ids : results) {
+      assertThat(ids).isEqualTo(first);
+    }
+    for (int i = 0; i < words; i++) {
+      assertThat(dictionary.word(first[i])).isEqualTo("word" + i);
+    }
+    assertThat(dictionary.size()).isEqualTo(words);
+  }
+}
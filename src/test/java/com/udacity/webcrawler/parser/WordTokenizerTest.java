@@ -0,0 +1,90 @@
+package com.udacity.webcrawler.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+public final class WordTokenizerTest {
+  private static final List<String> TEXTS = List.of(
+      "",
+      "   ",
+      "The quick brown fox",
+      "  Jumped over\tthe\nlazy dog.  ",
+      "Don't stop-believing! 100% (really)",
+      "--- ... !!!",
+      "snake_case CamelCase ALLCAPS",
+      "café naïve über",
+      "\u2003em\u2003space\u2003",
+      "a \u2003 b",
+      "vertical\u000btab form\ffeed",
+      "emoji 😀 here😀there",
+      "\u001cseparator\u001c x");
+
+  @Test
+  public void splitsLikeRegexPipeline() {
+    for (String text : TEXTS) {
+      assertSameWords(text, List.of());
+    }
+  }
+
+  @Test
+  public void dropsIgnoredWordsLikeRegexPipeline() {
+    List<Pattern> ignored = List.of(
+        Pattern.compile("^...$"),
+        Pattern.compile("(?i)the"),
+        Pattern.compile(".*!"),
+        Pattern.compile("(?<=x)y"),
+        Pattern.compile("\\b\\w+\\b-.*"));
+    for (String text : TEXTS) {
+      assertSameWords(text, ignored);
+    }
+  }
+
+  @Test
+  public void matchesRegexPipelineOnRandomText() {
+    Random random = new Random(42);
+    String alphabet = "aZ9_ \t\n.-!'é\u2003\u000b\u00a0";
+    List<Pattern> ignored = List.of(Pattern.compile("^..$"), Pattern.compile("a.*"));
+    for (int n = 0; n < 2000; n++) {
+      StringBuilder text = new StringBuilder();
+      for (int i = random.nextInt(20); i > 0; i--) {
+        text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      assertSameWords(text.toString(), List.of());
+      assertSameWords(text.toString(), ignored);
+    }
+  }
+
+  @Test
+  public void reusesBufferAcrossCalls() {
+    WordTokenizer tokenizer = new WordTokenizer(List.of());
+    List<String> words = new ArrayList<>();
+    tokenizer.tokenize("a-very-long-word-that-fills-the-buffer", words::add);
+    tokenizer.tokenize("b", words::add);
+    assertThat(words).containsExactly("averylongwordthatfillsthebuffer", "b").inOrder();
+  }
+
+  /**
+   * Compares with the split, strip, and lower-case steps the parser used before it had a
+   * tokenizer.
+   */
+  private static void assertSameWords(String text, List<Pattern> ignoredWords) {
+    List<String> expected = Arrays.stream(Pattern.compile("\\s+").split(text.strip()))
+        .filter(s -> !s.isBlank())
+        .filter(s -> ignoredWords.stream().noneMatch(p -> p.matcher(s).matches()))
+        .map(s -> s.replaceAll("\\W", ""))
+        .map(String::toLowerCase)
+        .collect(Collectors.toList());
+    List<String> actual = new ArrayList<>();
+    new WordTokenizer(ignoredWords).tokenize(text, actual::add);
+    assertWithMessage("words of \"%s\"", text).that(actual).isEqualTo(expected);
+  }
+}
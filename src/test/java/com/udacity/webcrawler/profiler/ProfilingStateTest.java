@@ -0,0 +1,39 @@
+package com.udacity.webcrawler.profiler;
+
+import com.udacity.webcrawler.testing.CloseableStringWriter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public final class ProfilingStateTest {
+
+    @Test
+    public void aggregatesMetricSamples() throws Exception {
+        ProfilingState state = new ProfilingState();
+        state.recordMetric("queue.depth", 2);
+        state.recordMetric("queue.depth", 6);
+        state.recordMetric("a.metric", 1);
+
+        CloseableStringWriter writer = new CloseableStringWriter();
+        state.write(writer);
+
+        String[] lines = writer.toString().split(System.lineSeparator());
+        assertThat(lines).asList()
+                .containsExactly("a.metric: 1 samples, mean 1.0, max 1", "queue.depth: 2 samples, mean 4.0, max 6")
+                .inOrder();
+    }
+
+    @Test
+    public void writesSeriesInOrder() throws Exception {
+        ProfilingState state = new ProfilingState();
+        state.recordSeries("pool.size", Duration.ofMillis(200), 4);
+        state.recordSeries("pool.size", Duration.ofMillis(400), 6);
+
+        CloseableStringWriter writer = new CloseableStringWriter();
+        state.write(writer);
+
+        assertThat(writer.toString().trim()).isEqualTo("pool.size over time: 200ms=4 400ms=6");
+    }
+}
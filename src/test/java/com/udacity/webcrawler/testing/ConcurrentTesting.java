@@ -0,0 +1,49 @@
+package com.udacity.webcrawler.testing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the same task on several threads at once, for tests of classes that are meant to be shared
+ * between threads.
+ */
+public final class ConcurrentTesting {
+
+  private ConcurrentTesting() {
+  }
+
+  /**
+   * Runs the given task on each of the given number of threads, which all start it at the same
+   * time, and waits for them to finish.
+   *
+   * @return the result of the task on each thread.
+   * @throws Exception the first exception thrown by the task, wrapped in an
+   *                   {@link java.util.concurrent.ExecutionException}.
+   */
+  public static <T> List<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<T>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(pool.submit(() -> {
+          start.await();
+          return task.call();
+        }));
+      }
+      start.countDown();
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}